@@ -0,0 +1,72 @@
+package com.framework.api;
+
+import com.framework.service.logic.PlayerBulkTransfer;
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.util.Map;
+
+/**
+ * Administrative endpoints for moving player data in bulk. Callers need the admin role; directories are
+ * relative to game.bulk.base-directory.
+ */
+@Path("/admin")
+@RolesAllowed("admin")
+public class AdminResource {
+
+    @Inject
+    PlayerBulkTransfer playerBulkTransfer;
+
+    /**
+     * Exports all players as CSV files (one per table) into a directory below the bulk base directory.
+     * Accessible at: POST http://localhost:8080/admin/players/export?directory=...
+     */
+    @POST
+    @Path("/players/export")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response exportPlayers(@QueryParam("directory") String directory) {
+        if (directory == null) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("Missing 'directory'")
+                    .build();
+        }
+        try {
+            Map<String, Long> counts = playerBulkTransfer.exportTo(playerBulkTransfer.resolveDirectory(directory));
+            return Response.ok().entity(counts).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(e.getMessage())
+                    .build();
+        }
+    }
+
+    /**
+     * Imports players from the CSV files in a directory below the bulk base directory. Repeat with the same importId
+     * to resume an import that failed part way.
+     * Accessible at: POST http://localhost:8080/admin/players/import?directory=...&importId=...
+     */
+    @POST
+    @Path("/players/import")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response importPlayers(@QueryParam("directory") String directory,
+                                  @QueryParam("importId") String importId) {
+        if (directory == null || importId == null) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("Missing 'directory' or 'importId'")
+                    .build();
+        }
+        try {
+            Map<String, Long> counts = playerBulkTransfer.importFrom(playerBulkTransfer.resolveDirectory(directory), importId);
+            return Response.ok().entity(counts).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(e.getMessage())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.framework.api;
+
+import com.framework.service.core.DbCostTracker;
+import com.framework.service.logic.ActionService;
+import com.framework.service.logic.AgentStateCache;
+import com.framework.service.logic.GameTickService;
+import com.framework.service.logic.LootSummary;
+import com.framework.service.logic.RngService;
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Debug endpoints for investigating game behaviour. Callers need the admin role.
+ */
+@Path("/debug")
+@RolesAllowed("admin")
+public class DebugResource {
+
+    @Inject
+    ActionService actionService;
+
+    @Inject
+    GameTickService gameTickService;
+
+    @Inject
+    AgentStateCache agentStateCache;
+
+    @Inject
+    SessionMessageSender messageSender;
+
+    @Inject
+    RngService rngService;
+
+    /**
+     * Replays the loot a player rolled in a given tick (of the current run unless an RNG epoch is given).
+     * Accessible at: GET http://localhost:8080/debug/loot-replay?playerId=...&lootTableId=...&tick=...&epoch=...
+     */
+    @GET
+    @Path("/loot-replay")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response replayLoot(@QueryParam("playerId") String playerId,
+                               @QueryParam("lootTableId") String lootTableId,
+                               @QueryParam("tick") long tick,
+                               @QueryParam("epoch") Long epoch,
+                               @QueryParam("stream") @DefaultValue("0") int stream,
+                               @QueryParam("rolls") @DefaultValue("1") long rolls) {
+        if (playerId == null || lootTableId == null) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("Missing 'playerId' or 'lootTableId'")
+                    .build();
+        }
+        try {
+            long runEpoch = epoch != null ? epoch : rngService.getEpoch();
+            LootSummary loot = actionService.replayLoot(playerId, lootTableId, runEpoch, tick, stream, rolls);
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("playerId", playerId);
+            result.put("epoch", runEpoch);
+            result.put("tick", tick);
+            result.put("stream", stream);
+            result.put("loot", loot.toMap());
+            return Response.ok().entity(result).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(e.getMessage())
+                    .build();
+        }
+    }
+
+    /**
+     * Shows the tick budget accounting: per-phase timings, overruns, missed ticks and pipeline queues.
+     * Accessible at: GET http://localhost:8080/debug/tick-stats
+     */
+    @GET
+    @Path("/tick-stats")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response tickStats() {
+        Map<String, Object> result = gameTickService.getTickStats().snapshot();
+        result.put("activeActions", actionService.getActiveActionCount());
+        result.put("pendingTimers", actionService.getPendingTimerCount());
+        result.put("persistQueueDepth", gameTickService.getPersistQueueDepth());
+        result.put("broadcastQueueDepth", gameTickService.getBroadcastQueueDepth());
+        result.put("droppedDeltas", gameTickService.getDroppedDeltaCount());
+        return Response.ok().entity(result).build();
+    }
+
+    /**
+     * Shows the agent state cache counters: size, hits, misses, evictions and expirations.
+     * Accessible at: GET http://localhost:8080/debug/agent-state-cache
+     */
+    @GET
+    @Path("/agent-state-cache")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response agentStateCacheStats() {
+        return Response.ok().entity(agentStateCache.getStats()).build();
+    }
+
+    /**
+     * Shows the database cost per WebSocket message type and tick phase: statements, rows fetched,
+     * JDBC time, averages per invocation and budget overruns.
+     * Accessible at: GET http://localhost:8080/debug/db-cost
+     */
+    @GET
+    @Path("/db-cost")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response dbCost() {
+        return Response.ok().entity(DbCostTracker.snapshot()).build();
+    }
+
+    /**
+     * Shows the outbound WebSocket counters: messages sent, STATE_DELTAs merged, messages dropped
+     * and slow clients disconnected.
+     * Accessible at: GET http://localhost:8080/debug/outbound
+     */
+    @GET
+    @Path("/outbound")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response outboundStats() {
+        return Response.ok().entity(messageSender.getStats()).build();
+    }
+}
@@ -1,13 +1,19 @@
 package com.framework.api;
 
-import com.framework.data.entity.PlayerEntity;
 import com.framework.data.entity.PlayerItemEntity;
 import com.framework.data.model.Location;
+import com.framework.data.model.PlayerSnapshot;
+import com.framework.service.core.DbCostTracker;
 import com.framework.service.logic.ActionService;
 import com.framework.service.logic.ActionState;
+import com.framework.service.logic.AgentStateCache;
+import com.framework.service.logic.GameTickService;
 import com.framework.service.logic.InventoryService;
 import com.framework.service.logic.LocationService;
+import com.framework.service.logic.LootSummary;
+import com.framework.service.logic.PlayerExperienceCache;
 import com.framework.service.logic.PlayerService;
+import com.framework.service.logic.TickResult;
 import com.framework.service.repos.AgentStateRepository;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -19,21 +25,35 @@ import jakarta.websocket.Session;
 import jakarta.websocket.server.ServerEndpoint;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 /**
  * WebSocket endpoint for real-time game communication.
- * Protocol: v1 - WebSocket (WSS/WS) on ws://localhost:8080/game/ws
+ * Protocol: v1 - WebSocket (WSS/WS) on ws://localhost:8080/game/ws, as JSON text frames or, for clients
+ * that ask for the game.v1.cbor subprotocol, CBOR binary frames (see WireProtocol)
  */
-@ServerEndpoint("/game/ws")
+@ServerEndpoint(value = "/game/ws", subprotocols = {WireProtocol.CBOR, WireProtocol.JSON})
 @ApplicationScoped
 public class GameWebSocket {
     
     // Map to store active sessions (playerId -> Session)
     private final Map<String, Session> sessions = new ConcurrentHashMap<>();
     
+    // Connect and disconnect of the same player run on different session queues; these keep them apart
+    private static final int CONNECTION_LOCK_STRIPES = 256;
+    private final ReentrantLock[] connectionLocks = new ReentrantLock[CONNECTION_LOCK_STRIPES];
+    {
+        for (int i = 0; i < connectionLocks.length; i++) {
+            connectionLocks[i] = new ReentrantLock();
+        }
+    }
+    
     @Inject
     PlayerService playerService;
     
@@ -49,8 +69,30 @@ public class GameWebSocket {
     @Inject
     AgentStateRepository agentStateRepository;
     
+    @Inject
+    SessionCommandDispatcher commandDispatcher;
+    
+    @Inject
+    SessionMessageSender messageSender;
+    
+    @Inject
+    PlayerExperienceCache experienceCache;
+    
+    @Inject
+    AgentStateCache agentStateCache;
+    
+    @Inject
+    GameTickService gameTickService;
+    
+    // "blocking" (JDBC) or "reactive" (reactive Postgres client) for the STATE_INIT snapshot and moves
+    @ConfigProperty(name = "game.persistence.mode", defaultValue = "blocking")
+    String persistenceMode;
+    
     private final ObjectMapper objectMapper = new ObjectMapper();
     
+    // Client message types, each charged its own database cost (unknown types share one scope)
+    private static final Set<String> MESSAGE_TYPES = Set.of("START_ACTION", "MOVE_LOCATION", "ATTACK_TARGET", "EQUIP_ITEM", "SELL_ITEM");
+    
     @OnOpen
     public void onOpen(Session session) {
         // Extract player ID from query parameters
@@ -59,19 +101,16 @@ public class GameWebSocket {
             sessions.put(playerId, session);
             session.getUserProperties().put("playerId", playerId);
             
-            // Get or create player on connection
-            try {
-                playerService.getOrCreatePlayer(playerId);
-                
-                // Send full state update (STATE_INIT)
-                sendStateInit(session, playerId);
-                
-                System.out.println("Player connected: " + playerId);
-            } catch (Exception e) {
-                System.err.println("Error initializing player: " + e.getMessage());
-                e.printStackTrace();
-                sendError(session, "Failed to initialize player: " + e.getMessage());
-            }
+            // Load the player off the I/O thread, ahead of any command this session sends
+            commandDispatcher.dispatch(session, () -> {
+                ReentrantLock lock = connectionLock(playerId);
+                lock.lock();
+                try (DbCostTracker.Scope dbScope = DbCostTracker.begin("ws.CONNECT")) {
+                    initializePlayer(session, playerId);
+                } finally {
+                    lock.unlock();
+                }
+            }, true);
         } else {
             try {
                 session.close();
@@ -85,10 +124,74 @@ public class GameWebSocket {
     public void onClose(Session session) {
         String playerId = (String) session.getUserProperties().get("playerId");
         if (playerId != null) {
-            sessions.remove(playerId);
-            // Stop any active actions
-            actionService.stopAction(playerId);
-            System.out.println("Player disconnected: " + playerId);
+            sessions.remove(playerId, session);
+            // Runs after this session's pending commands
+            commandDispatcher.dispatch(session, () -> {
+                // Checked under the lock, so a reconnect either comes first (and is seen) or loads after the cleanup
+                ReentrantLock lock = connectionLock(playerId);
+                lock.lock();
+                try (DbCostTracker.Scope dbScope = DbCostTracker.begin("ws.DISCONNECT")) {
+                    if (!sessions.containsKey(playerId)) {
+                        releasePlayer(playerId);
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                System.out.println("Player disconnected: " + playerId);
+            }, true);
+        }
+    }
+    
+    /**
+     * Releases what an online player holds. Every step runs even if an earlier one fails.
+     */
+    private void releasePlayer(String playerId) {
+        try {
+            // Keep the action going offline; it is caught up on reconnect
+            actionService.suspendAction(playerId);
+        } finally {
+            try {
+                // Write their cached experience and inventory now rather than on the next interval
+                experienceCache.flushPlayer(playerId);
+            } finally {
+                try {
+                    inventoryService.unloadInventory(playerId);
+                } finally {
+                    agentStateCache.invalidate(playerId);
+                }
+            }
+        }
+    }
+    
+    private ReentrantLock connectionLock(String playerId) {
+        return connectionLocks[Math.floorMod(playerId.hashCode(), connectionLocks.length)];
+    }
+    
+    /**
+     * Gets or creates the player, credits offline progress and sends the initial state.
+     */
+    private void initializePlayer(Session session, String playerId) {
+        try {
+            playerService.getOrCreatePlayer(playerId);
+            // Inventory reads and writes are served from memory while the player is online
+            inventoryService.loadInventory(playerId);
+            
+            // Credit progress made while offline before sending state
+            TickResult offlineProgress = actionService.resumeAction(playerId);
+            
+            // Send full state update (STATE_INIT), with the catalog ID tables once per connection
+            sendStateInit(session, playerId, true);
+            
+            // STATE_INIT already includes it, so this is only a summary (a STATE_DELTA would count it twice)
+            if (offlineProgress != null && !offlineProgress.isEmpty()) {
+                sendOfflineProgress(session, offlineProgress);
+            }
+            
+            System.out.println("Player connected: " + playerId);
+        } catch (Exception e) {
+            System.err.println("Error initializing player: " + e.getMessage());
+            e.printStackTrace();
+            sendError(session, "Failed to initialize player: " + e.getMessage());
         }
     }
     
@@ -107,9 +210,30 @@ public class GameWebSocket {
             return;
         }
         
+        // Handlers do blocking DB work, so run them off the I/O thread (in order per session)
+        if (!commandDispatcher.dispatch(session, () -> handleMessage(session, playerId, message, null))) {
+            sendError(session, "Too many pending commands, slow down");
+        }
+    }
+    
+    @OnMessage
+    public void onBinaryMessage(byte[] message, Session session) {
+        String playerId = (String) session.getUserProperties().get("playerId");
+        if (playerId == null) {
+            sendError(session, "Player ID not found");
+            return;
+        }
+        
+        if (!commandDispatcher.dispatch(session, () -> handleMessage(session, playerId, null, message))) {
+            sendError(session, "Too many pending commands, slow down");
+        }
+    }
+    
+    // Exactly one of text (JSON) and binary (CBOR) is set
+    private void handleMessage(Session session, String playerId, String text, byte[] binary) {
         try {
-            // Parse JSON message
-            ObjectNode json = (ObjectNode) objectMapper.readTree(message);
+            // Parse the message; both encodings give the same tree
+            ObjectNode json = (ObjectNode) (binary != null ? WireProtocol.decodeBinary(binary) : objectMapper.readTree(text));
             String type = json.has("type") ? json.get("type").asText() : null;
             
             if (type == null) {
@@ -117,25 +241,28 @@ public class GameWebSocket {
                 return;
             }
             
-            // Route to appropriate handler based on protocol
-            switch (type) {
-                case "START_ACTION":
-                    handleStartAction(session, playerId, json);
-                    break;
-                case "MOVE_LOCATION":
-                    handleMoveLocation(session, playerId, json);
-                    break;
-                case "ATTACK_TARGET":
-                    handleAttackTarget(session, playerId, json);
-                    break;
-                case "EQUIP_ITEM":
-                    handleEquipItem(session, playerId, json);
-                    break;
-                case "SELL_ITEM":
-                    handleSellItem(session, playerId, json);
-                    break;
-                default:
-                    sendError(session, "Unknown message type: " + type);
+            // Route to appropriate handler based on protocol (its database work is charged to ws.<type>)
+            String scope = MESSAGE_TYPES.contains(type) ? "ws." + type : "ws.UNKNOWN";
+            try (DbCostTracker.Scope dbScope = DbCostTracker.begin(scope)) {
+                switch (type) {
+                    case "START_ACTION":
+                        handleStartAction(session, playerId, json);
+                        break;
+                    case "MOVE_LOCATION":
+                        handleMoveLocation(session, playerId, json);
+                        break;
+                    case "ATTACK_TARGET":
+                        handleAttackTarget(session, playerId, json);
+                        break;
+                    case "EQUIP_ITEM":
+                        handleEquipItem(session, playerId, json);
+                        break;
+                    case "SELL_ITEM":
+                        handleSellItem(session, playerId, json);
+                        break;
+                    default:
+                        sendError(session, "Unknown message type: " + type);
+                }
             }
         } catch (Exception e) {
             System.err.println("Error processing message: " + e.getMessage());
@@ -147,26 +274,31 @@ public class GameWebSocket {
     // ========== Server → Client Message Handlers ==========
     
     /**
-     * Sends a full state update (STATE_INIT) on connect.
+     * Sends a full state update (STATE_INIT) on connect and after commands.
+     * @param withIdTables Whether to include the catalog ID tables (binary clients only; sent on connect,
+     *        they do not change while the server runs)
      */
-    private void sendStateInit(Session session, String playerId) {
+    private void sendStateInit(Session session, String playerId, boolean withIdTables) {
         try {
-            PlayerEntity player = playerService.getPlayer(playerId);
-            if (player == null) {
+            // Read first: every tick delta persisted up to here is in the snapshot (see SessionMessageSender)
+            long persistSequence = gameTickService.getPersistSequence();
+            // Player, agent state and items in one round trip (see PlayerRepository.findSnapshot)
+            PlayerSnapshot snapshot = isReactive()
+                ? commandDispatcher.await(playerService.getSnapshotAsync(playerId))
+                : playerService.getSnapshot(playerId);
+            if (snapshot == null) {
                 sendError(session, "Player not found");
                 return;
             }
             
-            List<PlayerItemEntity> inventory = inventoryService.getInventory(playerId);
-            List<PlayerItemEntity> equipped = inventoryService.getEquippedItems(playerId);
             ActionState currentAction = actionService.getActiveAction(playerId);
-            Location location = locationService.getCurrentLocation(playerId);
+            Location location = locationService.getLocation(snapshot.getAgentState());
             
             ObjectNode response = objectMapper.createObjectNode();
             response.put("type", "STATE_INIT");
-            response.set("player", objectMapper.valueToTree(player));
-            response.set("inventory", objectMapper.valueToTree(inventory));
-            response.set("equipped", objectMapper.valueToTree(equipped));
+            response.set("player", objectMapper.valueToTree(snapshot.getPlayer()));
+            response.set("inventory", objectMapper.valueToTree(snapshot.getInventory()));
+            response.set("equipped", objectMapper.valueToTree(snapshot.getEquipped()));
             
             // Current action details
             if (currentAction != null) {
@@ -192,7 +324,12 @@ public class GameWebSocket {
                 response.set("location", objectMapper.nullNode());
             }
             
-            sendMessage(session, objectMapper.writeValueAsString(response));
+            // Binary clients get STATE_DELTA skills and items as catalog indexes, listed here
+            if (withIdTables && WireProtocol.isBinary(session)) {
+                WireProtocol.addIdTables(response);
+            }
+            
+            messageSender.sendStateInit(session, response, persistSequence);
         } catch (Exception e) {
             System.err.println("Error sending STATE_INIT: " + e.getMessage());
             e.printStackTrace();
@@ -202,30 +339,35 @@ public class GameWebSocket {
     
     /**
      * Sends a delta update (STATE_DELTA) for game ticks.
+     * @param sequence The persist sequence of the tick (see GameTickService.getPersistSequence)
      */
     public void sendStateDelta(String playerId, Map<String, Integer> xpDelta, 
                                Map<String, Integer> inventoryDelta, 
-                               int health, String message) {
+                               int health, String message, long sequence) {
         Session session = sessions.get(playerId);
         if (session == null || !session.isOpen()) {
             return;
         }
         
-        try {
-            ObjectNode response = objectMapper.createObjectNode();
-            response.put("type", "STATE_DELTA");
-            response.set("xpDelta", objectMapper.valueToTree(xpDelta));
-            response.set("inventoryDelta", objectMapper.valueToTree(inventoryDelta));
-            response.put("health", health);
-            if (message != null) {
-                response.put("message", message);
-            }
-            
-            sendMessage(session, objectMapper.writeValueAsString(response));
-        } catch (Exception e) {
-            System.err.println("Error sending STATE_DELTA: " + e.getMessage());
-            e.printStackTrace();
+        messageSender.sendStateDelta(session, xpDelta, inventoryDelta, health, message, sequence);
+    }
+    
+    /**
+     * Sends a delta update (STATE_DELTA) for the items in a loot summary.
+     * @param sequence The persist sequence of the tick (see GameTickService.getPersistSequence)
+     */
+    public void sendStateDelta(String playerId, Map<String, Integer> xpDelta, 
+                               LootSummary loot, int health, String message, long sequence) {
+        Session session = sessions.get(playerId);
+        if (session == null || !session.isOpen()) {
+            return;
+        }
+        
+        Map<String, Integer> inventoryDelta = new LinkedHashMap<>();
+        for (int i = 0; i < loot.size(); i++) {
+            inventoryDelta.put(loot.getItemId(i), loot.getQuantity(i));
         }
+        messageSender.sendStateDelta(session, xpDelta, inventoryDelta, health, message, sequence);
     }
     
     /**
@@ -243,7 +385,7 @@ public class GameWebSocket {
             response.set("targetMob", targetMob);
             response.put("warningMessage", warningMessage);
             
-            sendMessage(session, objectMapper.writeValueAsString(response));
+            sendMessage(session, response);
         } catch (Exception e) {
             System.err.println("Error sending COMBAT_START: " + e.getMessage());
             e.printStackTrace();
@@ -266,13 +408,38 @@ public class GameWebSocket {
                 response.put("message", message);
             }
             
-            sendMessage(session, objectMapper.writeValueAsString(response));
+            sendMessage(session, response);
         } catch (Exception e) {
             System.err.println("Error sending COMBAT_END: " + e.getMessage());
             e.printStackTrace();
         }
     }
     
+    /**
+     * Sends an OFFLINE_PROGRESS summary of what was credited while the player was away. Informational only:
+     * the gains are already part of the STATE_INIT sent before it.
+     */
+    private void sendOfflineProgress(Session session, TickResult progress) {
+        try {
+            ObjectNode response = objectMapper.createObjectNode();
+            response.put("type", "OFFLINE_PROGRESS");
+            ObjectNode xpGained = response.putObject("xpGained");
+            if (progress.experience > 0 && progress.skillId != null) {
+                xpGained.put(progress.skillId, progress.experience);
+            }
+            ObjectNode itemsGained = response.putObject("itemsGained");
+            for (int i = 0; i < progress.loot.size(); i++) {
+                itemsGained.put(progress.loot.getItemId(i), progress.loot.getQuantity(i));
+            }
+            response.put("message", progress.message != null ? progress.message : "Progress made while you were away");
+            
+            sendMessage(session, response);
+        } catch (Exception e) {
+            System.err.println("Error sending OFFLINE_PROGRESS: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+    
     /**
      * Sends an alert message.
      */
@@ -287,7 +454,7 @@ public class GameWebSocket {
             response.put("type", "ALERT");
             response.put("warningMessage", warningMessage);
             
-            sendMessage(session, objectMapper.writeValueAsString(response));
+            sendMessage(session, response);
         } catch (Exception e) {
             System.err.println("Error sending ALERT: " + e.getMessage());
             e.printStackTrace();
@@ -312,7 +479,7 @@ public class GameWebSocket {
             actionService.startAction(playerId, actionId, instanceId);
             
             // Send confirmation and updated state
-            sendStateInit(session, playerId);
+            sendStateInit(session, playerId, false);
         } catch (Exception e) {
             sendError(session, "Failed to start action: " + e.getMessage());
         }
@@ -334,10 +501,14 @@ public class GameWebSocket {
             actionService.stopAction(playerId);
             
             // Move to location
-            locationService.moveToLocation(playerId, targetLocationId);
+            if (isReactive()) {
+                commandDispatcher.await(locationService.moveToLocationAsync(playerId, targetLocationId));
+            } else {
+                locationService.moveToLocation(playerId, targetLocationId);
+            }
             
             // Send updated state
-            sendStateInit(session, playerId);
+            sendStateInit(session, playerId, false);
         } catch (Exception e) {
             sendError(session, "Failed to move location: " + e.getMessage());
         }
@@ -387,11 +558,19 @@ public class GameWebSocket {
                 sendError(session, "Item not found in inventory");
                 return;
             }
+            if (item.id == null) {
+                // Picked up since the last inventory flush: write it out to get its ID
+                inventoryService.flushInventory(playerId);
+                item = inventoryService.getInventory(playerId).stream()
+                    .filter(i -> i.itemId.equals(itemId) && "INVENTORY".equals(i.slot))
+                    .findFirst()
+                    .orElse(item);
+            }
             
             inventoryService.equipItem(playerId, item.id, slot);
             
             // Send updated state
-            sendStateInit(session, playerId);
+            sendStateInit(session, playerId, false);
         } catch (Exception e) {
             sendError(session, "Failed to equip item: " + e.getMessage());
         }
@@ -422,13 +601,14 @@ public class GameWebSocket {
     
     // ========== Utility Methods ==========
     
-    private void sendMessage(Session session, String message) {
-        try {
-            session.getBasicRemote().sendText(message);
-        } catch (Exception e) {
-            System.err.println("Error sending message: " + e.getMessage());
-            e.printStackTrace();
-        }
+    // Reactive queries are awaited on the command's virtual thread, never on the I/O thread
+    private boolean isReactive() {
+        return "reactive".equalsIgnoreCase(persistenceMode) && commandDispatcher.isVirtual();
+    }
+    
+    // Queued per session and sent asynchronously, so a slow client never blocks the caller
+    private void sendMessage(Session session, ObjectNode message) {
+        messageSender.send(session, message);
     }
     
     private void sendError(Session session, String errorMessage) {
@@ -436,7 +616,7 @@ public class GameWebSocket {
             ObjectNode error = objectMapper.createObjectNode();
             error.put("type", "error");
             error.put("message", errorMessage);
-            sendMessage(session, objectMapper.writeValueAsString(error));
+            sendMessage(session, error);
         } catch (Exception e) {
             System.err.println("Error sending error message: " + e.getMessage());
             e.printStackTrace();
@@ -0,0 +1,209 @@
+package com.framework.api;
+
+import io.quarkus.arc.Arc;
+import io.quarkus.arc.ManagedContext;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.websocket.Session;
+import java.util.Queue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Runs inbound WebSocket commands off the container's I/O thread.
+ * In "virtual" mode every session gets a serial command queue drained by a virtual thread,
+ * so commands of one session run in order while a slow database call only blocks its own session.
+ * A global semaphore caps how many commands run at once (keep it at or below the DB pool size).
+ * In "inline" mode commands run on the calling thread, as before.
+ * A command that waits on a non-blocking query (see await) gives its permit back while it waits.
+ * Every command runs with a CDI request context active, as Panache reads outside a transaction need one.
+ */
+@ApplicationScoped
+public class SessionCommandDispatcher {
+    
+    private static final String QUEUE_PROPERTY = "commandQueue";
+    
+    // "virtual" (per-session queues on virtual threads) or "inline" (run on the I/O thread)
+    @ConfigProperty(name = "game.ws.dispatch-mode", defaultValue = "virtual")
+    String dispatchMode;
+    
+    // Max number of commands executing at the same time, across all sessions
+    @ConfigProperty(name = "game.ws.max-concurrent-commands", defaultValue = "16")
+    int maxConcurrentCommands;
+    
+    // Max number of queued (not yet finished) commands per session
+    @ConfigProperty(name = "game.ws.session-queue-depth", defaultValue = "32")
+    int sessionQueueDepth;
+    
+    private ExecutorService executor;
+    private Semaphore permits;
+    private final ThreadLocal<Boolean> holdsPermit = ThreadLocal.withInitial(() -> false);
+    
+    @PostConstruct
+    void init() {
+        if (isVirtual()) {
+            executor = Executors.newVirtualThreadPerTaskExecutor();
+            permits = new Semaphore(maxConcurrentCommands);
+        }
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+    
+    /**
+     * Checks whether commands are dispatched onto virtual threads.
+     * @return true in "virtual" mode
+     */
+    public boolean isVirtual() {
+        return "virtual".equalsIgnoreCase(dispatchMode);
+    }
+    
+    /**
+     * Queues a command for a session. Commands of the same session run one at a time, in order.
+     * @param session The WebSocket session
+     * @param command The command to run
+     * @return false if the session's queue is full and the command was rejected
+     */
+    public boolean dispatch(Session session, Runnable command) {
+        return dispatch(session, command, false);
+    }
+    
+    /**
+     * Queues a command for a session.
+     * @param session The WebSocket session
+     * @param command The command to run
+     * @param force If true, the command is queued even when the session's queue is full (e.g. cleanup on close)
+     * @return false if the session's queue is full and the command was rejected
+     */
+    public boolean dispatch(Session session, Runnable command, boolean force) {
+        if (!isVirtual()) {
+            runInRequestContext(command);
+            return true;
+        }
+        SessionQueue queue = (SessionQueue) session.getUserProperties()
+            .computeIfAbsent(QUEUE_PROPERTY, k -> new SessionQueue());
+        return queue.submit(command, force);
+    }
+    
+    /**
+     * Waits for an asynchronous result from within a command, e.g. a reactive database query.
+     * The command's permit is released while waiting, since the wait holds no JDBC connection,
+     * and the rest of the command continues on its own (virtual) thread, in session order.
+     * Must not be called on an I/O thread, i.e. only in "virtual" mode.
+     * @param stage The pending result
+     * @return The result
+     * @throws RuntimeException The failure of the stage, unwrapped
+     */
+    public <T> T await(CompletionStage<T> stage) {
+        boolean release = holdsPermit.get();
+        if (release) {
+            permits.release();
+            holdsPermit.set(false);
+        }
+        try {
+            return stage.toCompletableFuture().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        } finally {
+            if (release) {
+                permits.acquireUninterruptibly();
+                holdsPermit.set(true);
+            }
+        }
+    }
+    
+    /**
+     * Gets the number of queued (not yet finished) commands for a session.
+     * @param session The WebSocket session
+     * @return The queue depth
+     */
+    public int getQueueDepth(Session session) {
+        SessionQueue queue = (SessionQueue) session.getUserProperties().get(QUEUE_PROPERTY);
+        return queue != null ? queue.pending.get() : 0;
+    }
+    
+    // Runs the command in a request context of its own, unless the calling thread already has one
+    private static void runInRequestContext(Runnable command) {
+        ManagedContext requestContext = Arc.container().requestContext();
+        if (requestContext.isActive()) {
+            command.run();
+            return;
+        }
+        requestContext.activate();
+        try {
+            command.run();
+        } finally {
+            requestContext.terminate();
+        }
+    }
+    
+    /**
+     * Serial command queue of one session. At most one virtual thread drains it at a time.
+     */
+    private class SessionQueue {
+        private final Queue<Runnable> commands = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        
+        boolean submit(Runnable command, boolean force) {
+            if (pending.incrementAndGet() > sessionQueueDepth && !force) {
+                pending.decrementAndGet();
+                return false;
+            }
+            commands.add(command);
+            if (draining.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+            return true;
+        }
+        
+        private void drain() {
+            while (true) {
+                Runnable command;
+                while ((command = commands.poll()) != null) {
+                    run(command);
+                    pending.decrementAndGet();
+                }
+                draining.set(false);
+                // A command may have been added after the last poll but before the flag was cleared
+                if (commands.isEmpty() || !draining.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        }
+        
+        private void run(Runnable command) {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            holdsPermit.set(true);
+            try {
+                runInRequestContext(command);
+            } catch (Exception e) {
+                System.err.println("Error running session command: " + e.getMessage());
+                e.printStackTrace();
+            } finally {
+                holdsPermit.set(false);
+                permits.release();
+            }
+        }
+    }
+}
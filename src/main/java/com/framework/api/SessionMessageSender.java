@@ -0,0 +1,333 @@
+package com.framework.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.framework.service.logic.GameJournal;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.websocket.CloseReason;
+import jakarta.websocket.SendResult;
+import jakarta.websocket.Session;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Sends outbound WebSocket messages without blocking the caller, encoded in each session's WireProtocol.
+ * Every session gets a bounded queue drained by asynchronous sends, one message in flight at a time,
+ * so a slow client only backs up its own queue and never the tick broadcasters.
+ * While a send is in flight, a STATE_DELTA queued right behind another is merged into it (XP and item
+ * deltas added up, latest health, messages joined), and a new STATE_INIT replaces the STATE_INITs queued
+ * before it and the STATE_DELTAs it covers. Deltas and snapshots carry the tick persist sequence (see
+ * GameTickService.getPersistSequence), so a delta is only discarded when it was persisted before the
+ * snapshot was read; later deltas are kept and sent after the STATE_INIT. No message is ever silently dropped: a client
+ * whose queue is full when a message cannot be merged, or whose queue stays full for longer than the
+ * slow-consumer limit, is disconnected and gets a fresh STATE_INIT when it reconnects.
+ * A message is only queued once the journal records appended by the sending thread are durable, so a client
+ * never sees the result of a command that a crash could still undo.
+ */
+@ApplicationScoped
+public class SessionMessageSender {
+
+    private static final String OUTBOX_PROPERTY = "outbox";
+
+    @Inject
+    GameJournal journal;
+
+    // Max queued (not yet sent) messages per session
+    @ConfigProperty(name = "game.ws.outbound-queue-depth", defaultValue = "64")
+    int queueDepth;
+
+    // How long a session's queue may stay full before the client is disconnected
+    @ConfigProperty(name = "game.ws.slow-consumer-millis", defaultValue = "10000")
+    long slowConsumerMillis;
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder slowConsumers = new LongAdder();
+
+    /**
+     * A STATE_DELTA not sent yet, kept as data so later deltas can be merged into it.
+     */
+    private static final class PendingDelta {
+        final Map<String, Integer> xpDelta;
+        final Map<String, Integer> inventoryDelta;
+        int health;
+        String message;
+        long sequence; // Persist sequence of the latest tick merged in
+
+        PendingDelta(Map<String, Integer> xpDelta, Map<String, Integer> inventoryDelta, int health, String message,
+                     long sequence) {
+            this.xpDelta = new LinkedHashMap<>(xpDelta);
+            this.inventoryDelta = new LinkedHashMap<>(inventoryDelta);
+            this.health = health;
+            this.message = message;
+            this.sequence = sequence;
+        }
+
+        void merge(PendingDelta later) {
+            later.xpDelta.forEach((skillId, xp) -> xpDelta.merge(skillId, xp, SessionMessageSender::addSaturated));
+            later.inventoryDelta.forEach((itemId, quantity) -> inventoryDelta.merge(itemId, quantity, SessionMessageSender::addSaturated));
+            health = later.health;
+            if (later.message != null) {
+                message = message == null ? later.message : message + "\n" + later.message;
+            }
+            sequence = Math.max(sequence, later.sequence);
+        }
+    }
+
+    /**
+     * A STATE_INIT not sent yet, with the persist sequence read before its snapshot.
+     */
+    private record PendingInit(JsonNode tree, long sequence) {
+        // Only the connection's first STATE_INIT carries the catalog ID tables of binary clients
+        boolean hasIdTables() {
+            return tree.has("skillIds");
+        }
+    }
+
+    /**
+     * Queues a message for a session; it is encoded in the session's wire protocol when sent.
+     * @param session The WebSocket session
+     * @param message The message
+     */
+    public void send(Session session, JsonNode message) {
+        journal.syncOwn();
+        outboxOf(session).offer(message);
+    }
+
+    /**
+     * Queues a STATE_INIT for a session, replacing the queued STATE_INITs and the STATE_DELTAs its snapshot covers.
+     * @param session The WebSocket session
+     * @param message The STATE_INIT message
+     * @param sequence The tick persist sequence read before the snapshot (every delta up to it is included)
+     */
+    public void sendStateInit(Session session, JsonNode message, long sequence) {
+        journal.syncOwn();
+        outboxOf(session).offer(new PendingInit(message, sequence));
+    }
+
+    /**
+     * Queues a STATE_DELTA for a session, merging it into a queued one where possible.
+     * @param session The WebSocket session
+     * @param xpDelta Experience gained per skill ID
+     * @param inventoryDelta Quantity gained per item ID
+     * @param health The player's current health
+     * @param message Optional message shown to the player (may be null)
+     * @param sequence The tick persist sequence of the delta
+     */
+    public void sendStateDelta(Session session, Map<String, Integer> xpDelta, Map<String, Integer> inventoryDelta,
+                               int health, String message, long sequence) {
+        journal.syncOwn();
+        outboxOf(session).offer(new PendingDelta(xpDelta, inventoryDelta, health, message, sequence));
+    }
+
+    /**
+     * Gets the number of queued (not yet sent) messages for a session.
+     * @param session The WebSocket session
+     * @return The queue depth
+     */
+    public int getQueueDepth(Session session) {
+        Outbox outbox = outboxOf(session);
+        synchronized (outbox) {
+            return outbox.queue.size();
+        }
+    }
+
+    /**
+     * Gets the outbound counters: messages sent, messages merged or superseded, messages discarded with a
+     * disconnected client and slow clients disconnected.
+     * @return Map of metric name to value
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queueDepth", queueDepth);
+        stats.put("sent", sent.sum());
+        stats.put("coalescedDeltas", coalesced.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("slowConsumerDisconnects", slowConsumers.sum());
+        return stats;
+    }
+
+    // Tick broadcasters and session commands send concurrently, and user properties are not a concurrent map
+    private Outbox outboxOf(Session session) {
+        Map<String, Object> properties = session.getUserProperties();
+        synchronized (properties) {
+            return (Outbox) properties.computeIfAbsent(OUTBOX_PROPERTY, k -> new Outbox(session));
+        }
+    }
+
+    private static int addSaturated(int a, int b) {
+        long sum = (long) a + b;
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, sum));
+    }
+
+    /**
+     * Outbound queue of one session (guarded by itself). Holds message trees, pending STATE_INITs and pending STATE_DELTAs.
+     */
+    private class Outbox {
+        private final Session session;
+        private final boolean binary;
+        private final ArrayDeque<Object> queue = new ArrayDeque<>();
+        private boolean sending;
+        private boolean closed;
+        // When the queue last became full (System.nanoTime), 0 while it is not
+        private long fullSince;
+        // Persist sequence covered by the latest STATE_INIT queued; deltas up to it are already in the snapshot
+        private long coveredSequence = -1;
+
+        Outbox(Session session) {
+            this.session = session;
+            this.binary = WireProtocol.isBinary(session);
+        }
+
+        void offer(Object message) {
+            boolean start = false;
+            String reason = null;
+            synchronized (this) {
+                if (closed) {
+                    dropped.increment();
+                    return;
+                }
+                if (message instanceof PendingDelta delta && delta.sequence <= coveredSequence) {
+                    // Persisted before the snapshot of a STATE_INIT already queued or sent
+                    coalesced.increment();
+                } else if (message instanceof PendingDelta delta && queue.peekLast() instanceof PendingDelta last) {
+                    // Consecutive deltas while the socket is busy become one
+                    last.merge(delta);
+                    coalesced.increment();
+                } else if (message instanceof PendingInit init) {
+                    coveredSequence = Math.max(coveredSequence, init.sequence());
+                    if (!insertStateInit(init)) {
+                        reason = "outbound queue full (" + queueDepth + " messages)";
+                    }
+                } else {
+                    if (queue.size() < queueDepth) {
+                        queue.add(message);
+                    } else {
+                        // Dropping it would leave the client out of sync; it resyncs on reconnect instead
+                        reason = "outbound queue full (" + queueDepth + " messages)";
+                    }
+                }
+                if (reason == null && queue.size() >= queueDepth) {
+                    long now = System.nanoTime();
+                    if (fullSince == 0) {
+                        fullSince = now;
+                    } else if (now - fullSince > TimeUnit.MILLISECONDS.toNanos(slowConsumerMillis)) {
+                        reason = "outbound queue full for over " + slowConsumerMillis + "ms";
+                    }
+                }
+                if (reason != null) {
+                    closed = true;
+                    dropped.add(queue.size() + 1);
+                    queue.clear();
+                } else if (!sending) {
+                    sending = true;
+                    start = true;
+                }
+            }
+            if (reason != null) {
+                disconnect(reason);
+            } else if (start) {
+                sendNext();
+            }
+        }
+
+        // A STATE_INIT carries the whole state, so earlier STATE_INITs still queued (except one carrying the ID
+        // tables) and the deltas persisted before its snapshot are redundant. Deltas persisted after it are not:
+        // the STATE_INIT goes in front of them, so the client applies them on top of the snapshot.
+        // Returns false if there is no room for it.
+        private boolean insertStateInit(PendingInit init) {
+            ArrayDeque<Object> kept = new ArrayDeque<>(queue.size() + 1);
+            boolean inserted = false;
+            for (Object message : queue) {
+                if (message instanceof PendingDelta delta && delta.sequence <= init.sequence()
+                        || message instanceof PendingInit queuedInit && !queuedInit.hasIdTables()) {
+                    coalesced.increment();
+                    continue;
+                }
+                if (!inserted && message instanceof PendingDelta) {
+                    kept.add(init);
+                    inserted = true;
+                }
+                kept.add(message);
+            }
+            if (!inserted) {
+                kept.add(init);
+            }
+            if (kept.size() > queueDepth) {
+                return false;
+            }
+            queue.clear();
+            queue.addAll(kept);
+            return true;
+        }
+
+        // Sends the head of the queue; the completion of each send starts the next one
+        private void sendNext() {
+            Object message;
+            synchronized (this) {
+                message = queue.poll();
+                if (queue.size() < queueDepth) {
+                    fullSince = 0;
+                }
+                if (message == null || closed) {
+                    sending = false;
+                    return;
+                }
+            }
+            try {
+                JsonNode tree;
+                if (message instanceof PendingDelta delta) {
+                    tree = WireProtocol.stateDelta(delta.xpDelta, delta.inventoryDelta, delta.health, delta.message, binary);
+                } else if (message instanceof PendingInit init) {
+                    tree = init.tree();
+                } else {
+                    tree = (JsonNode) message;
+                }
+                if (binary) {
+                    session.getAsyncRemote().sendBinary(ByteBuffer.wrap(WireProtocol.encodeBinary(tree)), this::onSent);
+                } else {
+                    session.getAsyncRemote().sendText(WireProtocol.encodeText(tree), this::onSent);
+                }
+            } catch (Exception e) {
+                System.err.println("Error sending message: " + e.getMessage());
+                fail();
+            }
+        }
+
+        private void onSent(SendResult result) {
+            if (!result.isOK()) {
+                System.err.println("Error sending message: " + (result.getException() != null ? result.getException().getMessage() : "unknown"));
+                fail();
+                return;
+            }
+            sent.increment();
+            sendNext();
+        }
+
+        // The socket is gone: nothing queued can be delivered any more
+        private void fail() {
+            synchronized (this) {
+                closed = true;
+                sending = false;
+                dropped.add(queue.size());
+                queue.clear();
+            }
+        }
+
+        private void disconnect(String reason) {
+            slowConsumers.increment();
+            System.err.println("Disconnecting slow client (session " + session.getId() + "): " + reason);
+            try {
+                session.close(new CloseReason(CloseReason.CloseCodes.TRY_AGAIN_LATER, "Too slow, reconnect"));
+            } catch (Exception e) {
+                System.err.println("Error closing session: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.framework.api;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.cbor.CBORMapper;
+import com.framework.data.staticdata.StaticItemData;
+import com.framework.data.staticdata.StaticSkillData;
+import jakarta.websocket.Session;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * The two encodings of the game protocol, chosen per connection through the WebSocket subprotocol.
+ *
+ * game.v1.json (also used when the client asks for no subprotocol): text frames of JSON.
+ * game.v1.cbor: binary frames of CBOR (RFC 8949) with the same message fields, except that STATE_DELTA
+ * sends xpDelta and inventoryDelta as flat arrays of numeric ID and amount pairs ([skill index, xp, ...]
+ * and [item index, quantity, ...]) instead of maps keyed by string ID. The indexes are the dense catalog
+ * indexes (StaticSkillData/StaticItemData); the first STATE_INIT of a connection carries skillIds and itemIds,
+ * the ID of each index, so clients need no built-in copy of the catalog (later STATE_INITs leave them out).
+ * Clients may send their commands in either encoding.
+ */
+public final class WireProtocol {
+
+    public static final String JSON = "game.v1.json";
+    public static final String CBOR = "game.v1.cbor";
+
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+    private static final ObjectMapper CBOR_MAPPER = new CBORMapper();
+
+    private WireProtocol() {
+    }
+
+    /**
+     * Checks whether a connection negotiated the binary encoding.
+     * @param session The WebSocket session
+     * @return true for game.v1.cbor
+     */
+    public static boolean isBinary(Session session) {
+        return CBOR.equals(session.getNegotiatedSubprotocol());
+    }
+
+    /**
+     * Builds a STATE_DELTA message.
+     * @param xpDelta Experience gained per skill ID
+     * @param inventoryDelta Quantity gained per item ID
+     * @param health The player's current health
+     * @param message Optional message shown to the player (may be null)
+     * @param numericIds Whether to send the deltas as numeric ID arrays (binary encoding); falls back to
+     *        string keys if a skill or item is not in the catalog
+     * @return The message tree
+     */
+    public static ObjectNode stateDelta(Map<String, Integer> xpDelta, Map<String, Integer> inventoryDelta,
+                                        int health, String message, boolean numericIds) {
+        ObjectNode response = JSON_MAPPER.createObjectNode();
+        response.put("type", "STATE_DELTA");
+        ArrayNode xpPairs = numericIds ? skillPairs(xpDelta) : null;
+        ArrayNode itemPairs = numericIds ? itemPairs(inventoryDelta) : null;
+        if (xpPairs != null && itemPairs != null) {
+            response.set("xpDelta", xpPairs);
+            response.set("inventoryDelta", itemPairs);
+        } else {
+            response.set("xpDelta", JSON_MAPPER.valueToTree(xpDelta));
+            response.set("inventoryDelta", JSON_MAPPER.valueToTree(inventoryDelta));
+        }
+        response.put("health", health);
+        if (message != null) {
+            response.put("message", message);
+        }
+        return response;
+    }
+
+    /**
+     * Adds the index-to-ID tables of skills and items to the first STATE_INIT of a binary connection.
+     * @param stateInit The STATE_INIT message
+     */
+    public static void addIdTables(ObjectNode stateInit) {
+        ArrayNode skillIds = stateInit.putArray("skillIds");
+        for (int i = 0; i < StaticSkillData.getSkillCount(); i++) {
+            skillIds.add(StaticSkillData.getSkillByIndex(i).getId());
+        }
+        ArrayNode itemIds = stateInit.putArray("itemIds");
+        for (int i = 0; i < StaticItemData.getItemCount(); i++) {
+            itemIds.add(StaticItemData.getItemIdByIndex(i));
+        }
+    }
+
+    /**
+     * Encodes a message as a text frame.
+     * @param message The message tree
+     * @return The JSON text
+     * @throws JsonProcessingException If the message cannot be serialized
+     */
+    public static String encodeText(JsonNode message) throws JsonProcessingException {
+        return JSON_MAPPER.writeValueAsString(message);
+    }
+
+    /**
+     * Encodes a message as a binary frame.
+     * @param message The message tree
+     * @return The CBOR bytes
+     * @throws JsonProcessingException If the message cannot be serialized
+     */
+    public static byte[] encodeBinary(JsonNode message) throws JsonProcessingException {
+        return CBOR_MAPPER.writeValueAsBytes(message);
+    }
+
+    /**
+     * Decodes a binary frame sent by a client.
+     * @param message The CBOR bytes
+     * @return The message tree
+     * @throws IOException If the bytes are not valid CBOR
+     */
+    public static JsonNode decodeBinary(byte[] message) throws IOException {
+        return CBOR_MAPPER.readTree(message);
+    }
+
+    // [skill index, xp, ...], or null if a skill is not in the catalog
+    private static ArrayNode skillPairs(Map<String, Integer> xpDelta) {
+        ArrayNode pairs = JSON_MAPPER.createArrayNode();
+        for (Map.Entry<String, Integer> entry : xpDelta.entrySet()) {
+            int index = StaticSkillData.getSkillIndex(entry.getKey());
+            if (index < 0) {
+                return null;
+            }
+            pairs.add(index).add(entry.getValue());
+        }
+        return pairs;
+    }
+
+    // [item index, quantity, ...], or null if an item is not in the catalog
+    private static ArrayNode itemPairs(Map<String, Integer> inventoryDelta) {
+        ArrayNode pairs = JSON_MAPPER.createArrayNode();
+        for (Map.Entry<String, Integer> entry : inventoryDelta.entrySet()) {
+            if (!StaticItemData.hasItem(entry.getKey())) {
+                return null;
+            }
+            pairs.add(StaticItemData.getItemIndex(entry.getKey())).add(entry.getValue());
+        }
+        return pairs;
+    }
+}
@@ -28,8 +28,8 @@ public class AgentStateEntity extends PanacheEntityBase {
     
     public int maxMana;
     
-    // JSON or serialized state for complex data
-    public String stateData; // JSON string for flexible state storage
+    // Serialized state for complex data (buffs, cooldowns, action progress)
+    public byte[] stateData; // Binary, see StateDataCodec
     
     // Hibernate requires a no-argument constructor
     public AgentStateEntity() {}
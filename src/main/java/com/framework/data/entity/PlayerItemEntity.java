@@ -4,6 +4,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
 
@@ -15,8 +16,11 @@ import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
 @Table(name = "player_item")
 public class PlayerItemEntity extends PanacheEntityBase {
     
+    // Pooled sequence: one nextval per 50 inserts, and inserts can be sent as JDBC batches
+    // (IDENTITY forces Hibernate to execute each insert on its own to read the key back)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "player_item_seq")
+    @SequenceGenerator(name = "player_item_seq", sequenceName = "player_item_seq", allocationSize = 50)
     public Long id; // Auto-generated primary key
     
     public String ownerId; // Foreign key to PlayerEntity (renamed from playerId)
@@ -29,6 +33,9 @@ public class PlayerItemEntity extends PanacheEntityBase {
     
     public Float currentDurability; // The item's current health (for equipable items), null if not equipment
     
+    // Copied from the blueprint; a player has at most one stackable row per item in INVENTORY (unique partial index)
+    public boolean stackable;
+    
     // Hibernate requires a no-argument constructor
     public PlayerItemEntity() {}
     
@@ -0,0 +1,70 @@
+package com.framework.data.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Experience and level of one player in one skill.
+ * Mutable entity persisted to the database; written in batches by PlayerExperienceCache.
+ */
+@Entity
+@Table(name = "player_skill")
+@IdClass(PlayerSkillEntity.Key.class)
+public class PlayerSkillEntity extends PanacheEntityBase {
+    
+    @Id
+    @Column(name = "player_id")
+    public String playerId;
+    
+    @Id
+    @Column(name = "skill_id")
+    public String skillId; // Reference to static Skill blueprint
+    
+    public long experience;
+    
+    public int level;
+    
+    // Hibernate requires a no-argument constructor
+    public PlayerSkillEntity() {}
+    
+    public PlayerSkillEntity(String playerId, String skillId, long experience, int level) {
+        this.playerId = playerId;
+        this.skillId = skillId;
+        this.experience = experience;
+        this.level = level;
+    }
+    
+    /**
+     * Composite primary key (player_id, skill_id).
+     */
+    public static class Key implements Serializable {
+        public String playerId;
+        public String skillId;
+        
+        public Key() {}
+        
+        public Key(String playerId, String skillId) {
+            this.playerId = playerId;
+            this.skillId = skillId;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key other)) {
+                return false;
+            }
+            return Objects.equals(playerId, other.playerId) && Objects.equals(skillId, other.skillId);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(playerId, skillId);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.framework.data.migration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.framework.service.core.StateDataCodec;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+
+/**
+ * Liquibase step of changeset 7: re-encodes agent_state.state_data from JSON text into
+ * agent_state.state_data_binary with StateDataCodec. Text that is not a JSON object is kept
+ * as a "legacyText" string field rather than dropped.
+ */
+public class StateDataBinaryMigration implements CustomTaskChange {
+    private static final int BATCH_SIZE = 500;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private int converted;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void execute(Database database) throws CustomChangeException {
+        Connection connection = ((JdbcConnection) database.getConnection()).getUnderlyingConnection();
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT id, state_data FROM agent_state WHERE state_data IS NOT NULL");
+             PreparedStatement update = connection.prepareStatement(
+                "UPDATE agent_state SET state_data_binary = ? WHERE id = ?");
+             ResultSet rows = select.executeQuery()) {
+            int pending = 0;
+            while (rows.next()) {
+                String text = rows.getString(2);
+                Map<String, Object> fields;
+                try {
+                    fields = objectMapper.readValue(text, Map.class);
+                } catch (Exception e) {
+                    fields = new LinkedHashMap<>();
+                    fields.put("legacyText", text);
+                }
+                update.setBytes(1, StateDataCodec.encode(fields));
+                update.setString(2, rows.getString(1));
+                update.addBatch();
+                converted++;
+                if (++pending == BATCH_SIZE) {
+                    update.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                update.executeBatch();
+            }
+        } catch (Exception e) {
+            throw new CustomChangeException("Failed to convert agent_state.state_data to binary", e);
+        }
+    }
+
+    @Override
+    public String getConfirmationMessage() {
+        return "Converted " + converted + " agent_state.state_data values to binary";
+    }
+
+    @Override
+    public void setUp() {
+    }
+
+    @Override
+    public void setFileOpener(ResourceAccessor resourceAccessor) {
+    }
+
+    @Override
+    public ValidationErrors validate(Database database) {
+        return new ValidationErrors();
+    }
+}
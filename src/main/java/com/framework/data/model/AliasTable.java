@@ -0,0 +1,99 @@
+package com.framework.data.model;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Vose alias table for O(1) sampling from a fixed discrete distribution.
+ * Immutable once built.
+ */
+public class AliasTable {
+    private static final double UNIT_53 = 0x1p53; // nextLong() >>> 11 is uniform in [0, 2^53)
+
+    private final long[] thresholds; // Column i keeps i when the 53-bit draw is below thresholds[i]
+    private final int[] aliases; // Otherwise column i yields aliases[i]
+
+    /**
+     * Builds an alias table from non-negative weights using Vose's method.
+     * @param weights The relative weights (need not sum to 1)
+     * @throws IllegalArgumentException if there are no weights or the total is not positive
+     */
+    public AliasTable(double[] weights) {
+        if (weights == null || weights.length == 0) {
+            throw new IllegalArgumentException("AliasTable weights cannot be null or empty");
+        }
+        int n = weights.length;
+        double total = 0;
+        for (double weight : weights) {
+            if (weight < 0.0) {
+                throw new IllegalArgumentException("AliasTable weights cannot be negative");
+            }
+            total += weight;
+        }
+        if (total <= 0.0) {
+            throw new IllegalArgumentException("AliasTable weights must have a positive total");
+        }
+
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / total;
+            if (scaled[i] < 1.0) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+
+        double[] probabilities = new double[n];
+        this.aliases = new int[n];
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            probabilities[less] = scaled[less];
+            aliases[less] = more;
+            scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+            if (scaled[more] < 1.0) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        // Whatever is left is full (up to rounding error)
+        while (largeCount > 0) {
+            int index = large[--largeCount];
+            probabilities[index] = 1.0;
+            aliases[index] = index;
+        }
+        while (smallCount > 0) {
+            int index = small[--smallCount];
+            probabilities[index] = 1.0;
+            aliases[index] = index;
+        }
+
+        this.thresholds = new long[n];
+        for (int i = 0; i < n; i++) {
+            thresholds[i] = (long) Math.ceil(probabilities[i] * UNIT_53);
+        }
+    }
+
+    /**
+     * Gets the number of outcomes.
+     * @return The number of outcomes
+     */
+    public int size() {
+        return aliases.length;
+    }
+
+    /**
+     * Samples one outcome index in O(1).
+     * @param random The random generator
+     * @return An index between 0 and size() - 1, distributed according to the weights
+     */
+    public int sample(RandomGenerator random) {
+        int column = random.nextInt(aliases.length);
+        return (random.nextLong() >>> 11) < thresholds[column] ? column : aliases[column];
+    }
+}
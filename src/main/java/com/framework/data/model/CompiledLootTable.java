@@ -0,0 +1,130 @@
+package com.framework.data.model;
+
+import com.framework.data.model.LootTable.LootDrop;
+import com.framework.data.model.LootTable.LootGroup;
+import com.framework.data.staticdata.StaticItemData;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Precompiled, array-backed form of a LootTable, built once at startup.
+ * Independent drops keep their per-drop chance semantics but are checked against
+ * precomputed 53-bit integer thresholds; drops with chance 1 skip the random draw and
+ * drops with chance 0 are removed. Each "exactly one of" group is sampled in O(1) with an alias table.
+ * All arrays are shared and must be treated as read-only.
+ */
+public class CompiledLootTable {
+    private static final double UNIT_53 = 0x1p53; // nextLong() >>> 11 is uniform in [0, 2^53)
+
+    /**
+     * Converts a chance into a threshold so that (nextLong() >>> 11) < threshold
+     * is equivalent to nextDouble() < chance.
+     * @param chance The chance (0.0 to 1.0)
+     * @return The 53-bit threshold
+     */
+    public static long toThreshold(double chance) {
+        return (long) Math.ceil(chance * UNIT_53);
+    }
+
+    private final String id;
+
+    // Independent drops, parallel arrays
+    public final int[] dropItemIndexes;
+    public final long[] dropThresholds;
+    public final double[] dropChances;
+    public final int[] dropMinQuantities;
+    public final int[] dropMaxQuantities;
+
+    // "Exactly one of" groups
+    public final Group[] groups;
+
+    public CompiledLootTable(LootTable lootTable) {
+        this.id = lootTable.getId();
+
+        List<LootDrop> drops = new ArrayList<>();
+        for (LootDrop drop : lootTable.getDrops()) {
+            if (drop.getChance() > 0.0 && drop.getMaxQuantity() > 0) {
+                drops.add(drop);
+            }
+        }
+        int n = drops.size();
+        this.dropItemIndexes = new int[n];
+        this.dropThresholds = new long[n];
+        this.dropChances = new double[n];
+        this.dropMinQuantities = new int[n];
+        this.dropMaxQuantities = new int[n];
+        for (int i = 0; i < n; i++) {
+            LootDrop drop = drops.get(i);
+            dropItemIndexes[i] = StaticItemData.getItemIndex(drop.getItemId());
+            dropThresholds[i] = toThreshold(drop.getChance());
+            dropChances[i] = drop.getChance();
+            dropMinQuantities[i] = drop.getMinQuantity();
+            dropMaxQuantities[i] = drop.getMaxQuantity();
+        }
+
+        List<Group> compiledGroups = new ArrayList<>();
+        for (LootGroup group : lootTable.getGroups()) {
+            if (group.getChance() > 0.0) {
+                compiledGroups.add(new Group(group));
+            }
+        }
+        this.groups = compiledGroups.toArray(new Group[0]);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Checks whether an independent drop always succeeds (no random draw needed).
+     * @param i The drop index
+     * @return true if the drop's chance is 1
+     */
+    public boolean isGuaranteed(int i) {
+        return dropThresholds[i] >= (1L << 53);
+    }
+
+    /**
+     * Compiled "exactly one of" group.
+     */
+    public static class Group {
+        public final long threshold; // Chance that the group drops anything, as a 53-bit threshold
+        public final double chance;
+        public final AliasTable aliasTable;
+        public final double[] probabilities; // Normalized entry probabilities (sum to 1)
+        public final int lastWeighted; // Index of the last entry with a positive probability
+        public final int[] itemIndexes;
+        public final int[] minQuantities;
+        public final int[] maxQuantities;
+
+        Group(LootGroup group) {
+            List<LootDrop> entries = group.getEntries();
+            int n = entries.size();
+            double[] weights = new double[n];
+            double total = 0;
+            this.itemIndexes = new int[n];
+            this.minQuantities = new int[n];
+            this.maxQuantities = new int[n];
+            for (int i = 0; i < n; i++) {
+                LootDrop entry = entries.get(i);
+                weights[i] = entry.getChance();
+                total += weights[i];
+                itemIndexes[i] = StaticItemData.getItemIndex(entry.getItemId());
+                minQuantities[i] = entry.getMinQuantity();
+                maxQuantities[i] = entry.getMaxQuantity();
+            }
+            this.probabilities = new double[n];
+            int last = 0;
+            for (int i = 0; i < n; i++) {
+                probabilities[i] = weights[i] / total;
+                if (weights[i] > 0.0) {
+                    last = i;
+                }
+            }
+            this.lastWeighted = last;
+            this.chance = group.getChance();
+            this.threshold = toThreshold(group.getChance());
+            this.aliasTable = new AliasTable(weights);
+        }
+    }
+}
@@ -5,11 +5,14 @@ import java.util.List;
 
 /**
  * Defines a reusable drop list (referenced by Actions and Creatures).
+ * Every drop is rolled independently with its own chance. Groups additionally
+ * drop "exactly one of" their entries, picked by weight.
  * Immutable blueprint for loot table definitions.
  */
 public class LootTable {
     private final String id;
     private final List<LootDrop> drops;
+    private final List<LootGroup> groups;
 
     /**
      * Creates a LootTable with validation of all item references.
@@ -18,44 +21,68 @@ public class LootTable {
      * @throws IllegalArgumentException if any drop references a non-existent item
      */
     public LootTable(String id, List<LootDrop> drops) {
+        this(id, drops, List.of());
+    }
+
+    /**
+     * Creates a LootTable with independent drops and weighted groups.
+     * @param id The unique identifier for this loot table
+     * @param drops The list of independently rolled loot drops
+     * @param groups The list of "exactly one of" groups
+     * @throws IllegalArgumentException if any drop references a non-existent item
+     */
+    public LootTable(String id, List<LootDrop> drops, List<LootGroup> groups) {
         if (id == null || id.isBlank()) {
             throw new IllegalArgumentException("LootTable id cannot be null or blank");
         }
         if (drops == null) {
             throw new IllegalArgumentException("Drops list cannot be null");
         }
+        if (groups == null) {
+            throw new IllegalArgumentException("Groups list cannot be null");
+        }
         
         // Cross-reference validation: ensure all itemIds exist
         for (LootDrop drop : drops) {
-            if (drop.getItemId() == null || drop.getItemId().isBlank()) {
-                throw new IllegalArgumentException("LootDrop itemId cannot be null or blank");
-            }
-            try {
-                StaticItemData.getItem(drop.getItemId());
-            } catch (IllegalArgumentException e) {
-                throw new IllegalArgumentException(
-                    "LootDrop references non-existent item: " + drop.getItemId() + 
-                    " in LootTable: " + id, e);
-            }
-            
-            // Validate chance is between 0 and 1
-            if (drop.getChance() < 0.0 || drop.getChance() > 1.0) {
-                throw new IllegalArgumentException(
-                    "LootDrop chance must be between 0.0 and 1.0, got: " + drop.getChance());
-            }
-            
-            // Validate quantity ranges
-            if (drop.getMinQuantity() < 0) {
-                throw new IllegalArgumentException("LootDrop minQuantity cannot be negative");
-            }
-            if (drop.getMaxQuantity() < drop.getMinQuantity()) {
-                throw new IllegalArgumentException(
-                    "LootDrop maxQuantity must be >= minQuantity");
+            validateDrop(id, drop);
+        }
+        for (LootGroup group : groups) {
+            for (LootDrop entry : group.getEntries()) {
+                validateDrop(id, entry);
             }
         }
         
         this.id = id;
         this.drops = List.copyOf(drops); // Immutable copy
+        this.groups = List.copyOf(groups); // Immutable copy
+    }
+
+    private static void validateDrop(String id, LootDrop drop) {
+        if (drop.getItemId() == null || drop.getItemId().isBlank()) {
+            throw new IllegalArgumentException("LootDrop itemId cannot be null or blank");
+        }
+        try {
+            StaticItemData.getItem(drop.getItemId());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(
+                "LootDrop references non-existent item: " + drop.getItemId() + 
+                " in LootTable: " + id, e);
+        }
+        
+        // Validate chance is between 0 and 1
+        if (drop.getChance() < 0.0 || drop.getChance() > 1.0) {
+            throw new IllegalArgumentException(
+                "LootDrop chance must be between 0.0 and 1.0, got: " + drop.getChance());
+        }
+        
+        // Validate quantity ranges
+        if (drop.getMinQuantity() < 0) {
+            throw new IllegalArgumentException("LootDrop minQuantity cannot be negative");
+        }
+        if (drop.getMaxQuantity() < drop.getMinQuantity()) {
+            throw new IllegalArgumentException(
+                "LootDrop maxQuantity must be >= minQuantity");
+        }
     }
 
     public String getId() {
@@ -66,6 +93,46 @@ public class LootTable {
         return drops; // Already immutable
     }
 
+    public List<LootGroup> getGroups() {
+        return groups; // Already immutable
+    }
+
+    /**
+     * Nested class representing an "exactly one of" group.
+     * When the group rolls successfully (with probability chance), exactly one entry drops.
+     * The entries' chance values are used as relative weights.
+     */
+    public static class LootGroup {
+        private final double chance;
+        private final List<LootDrop> entries;
+
+        public LootGroup(double chance, List<LootDrop> entries) {
+            if (chance < 0.0 || chance > 1.0) {
+                throw new IllegalArgumentException("LootGroup chance must be between 0.0 and 1.0");
+            }
+            if (entries == null || entries.isEmpty()) {
+                throw new IllegalArgumentException("LootGroup entries cannot be null or empty");
+            }
+            double totalWeight = 0;
+            for (LootDrop entry : entries) {
+                totalWeight += entry.getChance();
+            }
+            if (totalWeight <= 0.0) {
+                throw new IllegalArgumentException("LootGroup entries must have a positive total weight");
+            }
+            this.chance = chance;
+            this.entries = List.copyOf(entries); // Immutable copy
+        }
+
+        public double getChance() {
+            return chance;
+        }
+
+        public List<LootDrop> getEntries() {
+            return entries; // Already immutable
+        }
+    }
+
     /**
      * Nested class representing a single loot drop entry.
      */
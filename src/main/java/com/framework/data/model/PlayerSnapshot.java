@@ -0,0 +1,50 @@
+package com.framework.data.model;
+
+import com.framework.data.entity.AgentStateEntity;
+import com.framework.data.entity.PlayerEntity;
+import com.framework.data.entity.PlayerItemEntity;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Everything STATE_INIT needs about one player, loaded in a single round trip.
+ * The entities are detached copies; changing them does not write anything.
+ */
+public class PlayerSnapshot {
+    private final PlayerEntity player;
+    private final AgentStateEntity agentState; // null if the player has no agent state yet
+    private final List<PlayerItemEntity> inventory; // Every item instance, equipped or not
+    private final List<PlayerItemEntity> equipped;
+
+    public PlayerSnapshot(PlayerEntity player, AgentStateEntity agentState, List<PlayerItemEntity> items) {
+        if (player == null) {
+            throw new IllegalArgumentException("Player cannot be null");
+        }
+        this.player = player;
+        this.agentState = agentState;
+        this.inventory = List.copyOf(items);
+        List<PlayerItemEntity> equippedItems = new ArrayList<>();
+        for (PlayerItemEntity item : items) {
+            if (item.slot != null && !"INVENTORY".equals(item.slot)) {
+                equippedItems.add(item);
+            }
+        }
+        this.equipped = List.copyOf(equippedItems);
+    }
+
+    public PlayerEntity getPlayer() {
+        return player;
+    }
+
+    public AgentStateEntity getAgentState() {
+        return agentState;
+    }
+
+    public List<PlayerItemEntity> getInventory() {
+        return inventory;
+    }
+
+    public List<PlayerItemEntity> getEquipped() {
+        return equipped;
+    }
+}
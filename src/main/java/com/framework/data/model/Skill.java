@@ -10,6 +10,7 @@ public class Skill {
     private final String id;
     private final String name;
     private final List<Integer> experienceCurve;
+    private final long[] levelThresholds; // Total XP required for level i + 1, for binary search
 
     public Skill(String id, String name, List<Integer> experienceCurve) {
         if (id == null || id.isBlank()) {
@@ -24,6 +25,13 @@ public class Skill {
         this.id = id;
         this.name = name;
         this.experienceCurve = List.copyOf(experienceCurve); // Immutable copy
+        this.levelThresholds = new long[experienceCurve.size()];
+        for (int i = 0; i < levelThresholds.length; i++) {
+            levelThresholds[i] = experienceCurve.get(i);
+            if (i > 0 && levelThresholds[i] < levelThresholds[i - 1]) {
+                throw new IllegalArgumentException("Experience curve must not decrease (skill: " + id + ")");
+            }
+        }
     }
 
     public String getId() {
@@ -49,4 +57,32 @@ public class Skill {
         }
         return experienceCurve.get(level - 1);
     }
+
+    /**
+     * Gets the level reached with a total amount of XP, by binary search over the compiled curve.
+     * Does not allocate, so it can run for every player on every tick.
+     * @param experience The total XP in this skill
+     * @return The level (1 to getMaxLevel())
+     */
+    public int getLevel(long experience) {
+        int low = 0;
+        int high = levelThresholds.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (levelThresholds[mid] <= experience) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low + 1;
+    }
+
+    /**
+     * Gets the highest level of this skill.
+     * @return The number of levels on the curve
+     */
+    public int getMaxLevel() {
+        return levelThresholds.length;
+    }
 }
@@ -4,6 +4,7 @@ import com.framework.data.model.EquipmentDetails;
 import com.framework.data.model.Item;
 import com.framework.data.model.ItemType;
 import com.framework.data.model.EquipmentSlot;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -14,6 +15,8 @@ import java.util.Map;
  */
 public class StaticItemData {
     private static final Map<String, Item> items = new HashMap<>();
+    private static final Map<String, Integer> itemIndexes = new HashMap<>(); // itemId -> dense index
+    private static String[] itemIdsByIndex = new String[0];
     private static boolean initialized = false;
 
     /**
@@ -31,6 +34,13 @@ public class StaticItemData {
         items.put("bronze_sword", new Item("bronze_sword", "Bronze Sword", 100, false, 
             ItemType.EQUIPMENT, new EquipmentDetails(EquipmentSlot.WEAPON, 10, 10, 100, Map.of(1.0f, 1.0f))));
         
+        // Assign dense indices (sorted by ID so they are stable for a given catalog)
+        itemIdsByIndex = items.keySet().toArray(new String[0]);
+        Arrays.sort(itemIdsByIndex);
+        for (int i = 0; i < itemIdsByIndex.length; i++) {
+            itemIndexes.put(itemIdsByIndex[i], i);
+        }
+        
         initialized = true;
     }
 
@@ -73,4 +83,48 @@ public class StaticItemData {
         }
         return items.containsKey(id);
     }
+
+    /**
+     * Gets the dense numeric index of an item, for array-backed lookups.
+     * @param id The item ID
+     * @return The index, between 0 and getItemCount() - 1
+     * @throws IllegalArgumentException if the item is not found
+     */
+    public static int getItemIndex(String id) {
+        if (!initialized) {
+            initialize();
+        }
+        Integer index = itemIndexes.get(id);
+        if (index == null) {
+            throw new IllegalArgumentException("Item not found: " + id);
+        }
+        return index;
+    }
+
+    /**
+     * Gets the item ID for a dense numeric index.
+     * @param index The item index
+     * @return The item ID
+     * @throws IllegalArgumentException if the index is out of range
+     */
+    public static String getItemIdByIndex(int index) {
+        if (!initialized) {
+            initialize();
+        }
+        if (index < 0 || index >= itemIdsByIndex.length) {
+            throw new IllegalArgumentException("Item index out of range: " + index);
+        }
+        return itemIdsByIndex[index];
+    }
+
+    /**
+     * Gets the number of items in the catalog.
+     * @return The item count
+     */
+    public static int getItemCount() {
+        if (!initialized) {
+            initialize();
+        }
+        return itemIdsByIndex.length;
+    }
 }
@@ -1,5 +1,6 @@
 package com.framework.data.staticdata;
 
+import com.framework.data.model.CompiledLootTable;
 import com.framework.data.model.LootTable;
 import java.util.Collections;
 import java.util.HashMap;
@@ -13,6 +14,7 @@ import java.util.Arrays;
  */
 public class StaticLootTableData {
     private static final Map<String, LootTable> lootTables = new HashMap<>();
+    private static final Map<String, CompiledLootTable> compiledLootTables = new HashMap<>();
     private static boolean initialized = false;
 
     /**
@@ -31,6 +33,11 @@ public class StaticLootTableData {
         ));
         lootTables.put("copper_mining_drops", new LootTable("copper_mining_drops", copper_mining_drops));
         
+        // Compile every table once for fast rolling
+        for (LootTable lootTable : lootTables.values()) {
+            compiledLootTables.put(lootTable.getId(), new CompiledLootTable(lootTable));
+        }
+        
         initialized = true;
     }
 
@@ -51,6 +58,23 @@ public class StaticLootTableData {
         return lootTable;
     }
 
+    /**
+     * Gets the precompiled form of a loot table by its ID.
+     * @param id The loot table ID
+     * @return The CompiledLootTable object
+     * @throws IllegalArgumentException if the loot table is not found
+     */
+    public static CompiledLootTable getCompiledLootTable(String id) {
+        if (!initialized) {
+            initialize();
+        }
+        CompiledLootTable compiledLootTable = compiledLootTables.get(id);
+        if (compiledLootTable == null) {
+            throw new IllegalArgumentException("LootTable not found: " + id);
+        }
+        return compiledLootTable;
+    }
+
     /**
      * Gets all loot tables.
      * @return An unmodifiable collection of all loot tables
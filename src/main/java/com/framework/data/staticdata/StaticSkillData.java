@@ -13,6 +13,8 @@ import java.util.Arrays;
  */
 public class StaticSkillData {
     private static final Map<String, Skill> skills = new HashMap<>();
+    private static final Map<String, Integer> skillIndexes = new HashMap<>(); // skillId -> dense index
+    private static Skill[] skillsByIndex = new Skill[0];
     private static boolean initialized = false;
 
     /**
@@ -29,6 +31,18 @@ public class StaticSkillData {
         ArrayList<Integer> miningCurve = new ArrayList<Integer>(Arrays.asList(0, 100, 200, 400, 800, 1600));
         skills.put("mining", new Skill("mining", "Mining", miningCurve));
         
+        ArrayList<Integer> craftingCurve = new ArrayList<Integer>(Arrays.asList(0, 100, 200, 400, 800, 1600));
+        skills.put("crafting", new Skill("crafting", "Crafting", craftingCurve));
+        
+        // Assign dense indices (sorted by ID so they are stable for a given catalog)
+        String[] skillIds = skills.keySet().toArray(new String[0]);
+        Arrays.sort(skillIds);
+        skillsByIndex = new Skill[skillIds.length];
+        for (int i = 0; i < skillIds.length; i++) {
+            skillIndexes.put(skillIds[i], i);
+            skillsByIndex[i] = skills.get(skillIds[i]);
+        }
+        
         initialized = true;
     }
 
@@ -60,6 +74,42 @@ public class StaticSkillData {
         return Collections.unmodifiableMap(skills);
     }
 
+    /**
+     * Gets the dense index of a skill, for per-skill arrays.
+     * @param id The skill ID
+     * @return The index (0 to getSkillCount() - 1), or -1 if the skill does not exist
+     */
+    public static int getSkillIndex(String id) {
+        if (!initialized) {
+            initialize();
+        }
+        Integer index = skillIndexes.get(id);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Gets a skill by its dense index.
+     * @param index The index from getSkillIndex
+     * @return The Skill object
+     */
+    public static Skill getSkillByIndex(int index) {
+        if (!initialized) {
+            initialize();
+        }
+        return skillsByIndex[index];
+    }
+
+    /**
+     * Gets the number of skills.
+     * @return The skill count
+     */
+    public static int getSkillCount() {
+        if (!initialized) {
+            initialize();
+        }
+        return skillsByIndex.length;
+    }
+
     /**
      * Checks if a skill exists.
      * @param id The skill ID
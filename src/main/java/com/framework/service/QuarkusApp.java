@@ -5,8 +5,15 @@ import com.framework.data.staticdata.StaticItemData;
 import com.framework.data.staticdata.StaticLocationData;
 import com.framework.data.staticdata.StaticLootTableData;
 import com.framework.data.staticdata.StaticSkillData;
+import com.framework.service.logic.DbCostMetrics;
+import com.framework.service.logic.GameStateCheckpointer;
+import com.framework.service.logic.GameTickService;
+import com.framework.service.logic.PlayerExperienceCache;
+import com.framework.service.logic.PlayerInventoryCache;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import io.quarkus.runtime.ShutdownEvent;
 import io.quarkus.runtime.StartupEvent;
 
 /**
@@ -16,11 +23,29 @@ import io.quarkus.runtime.StartupEvent;
 @ApplicationScoped
 public class QuarkusApp {
     
+    @Inject
+    GameTickService gameTickService;
+    
+    @Inject
+    PlayerExperienceCache experienceCache;
+    
+    @Inject
+    PlayerInventoryCache inventoryCache;
+    
+    @Inject
+    GameStateCheckpointer checkpointer;
+    
+    @Inject
+    DbCostMetrics dbCostMetrics;
+    
     /**
      * Initializes static data on application startup.
      * @param evt The startup event
      */
     void onStart(@Observes StartupEvent evt) {
+        // Per-message / per-tick-phase database cost metrics and budgets
+        dbCostMetrics.start();
+        
         // Initialize all static data factories
         StaticItemData.initialize();
         StaticSkillData.initialize();
@@ -28,6 +53,23 @@ public class QuarkusApp {
         StaticActionData.initialize();
         StaticLocationData.initialize();
         
+        // Put back the actions, experience and inventories journaled by the previous run
+        checkpointer.recover();
+        
+        // Start the server-driven game loop
+        gameTickService.start();
+        
         System.out.println("Game framework initialized successfully!");
     }
+    
+    /**
+     * Stops the game loop on application shutdown and writes all cached experience, inventories and actions.
+     * @param evt The shutdown event
+     */
+    void onStop(@Observes ShutdownEvent evt) {
+        gameTickService.stop();
+        checkpointer.shutdown();
+        experienceCache.shutdown();
+        inventoryCache.shutdown();
+    }
 }
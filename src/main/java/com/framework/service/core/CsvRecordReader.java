@@ -0,0 +1,122 @@
+package com.framework.service.core;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * Reads CSV records one at a time, as written by Postgres COPY ... (FORMAT csv).
+ * A record ends at a line break outside quotes, so quoted values may span lines.
+ * Records are returned as they appear in the file (still quoted), ready to be passed on to COPY FROM.
+ */
+public class CsvRecordReader {
+    private final BufferedReader reader;
+    private long recordNumber;
+
+    public CsvRecordReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Reads the next record.
+     * @return The record without its line break, or null at the end of the input
+     * @throws IOException If reading fails or the input ends inside a quoted value
+     */
+    public String next() throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            return null;
+        }
+        if (!hasOpenQuote(line, false)) {
+            recordNumber++;
+            return line;
+        }
+        StringBuilder record = new StringBuilder(line);
+        boolean open = true;
+        while (open) {
+            line = reader.readLine();
+            if (line == null) {
+                throw new IOException("Unterminated quoted value in CSV record " + (recordNumber + 1));
+            }
+            record.append('\n').append(line);
+            open = hasOpenQuote(line, true);
+        }
+        recordNumber++;
+        return record.toString();
+    }
+
+    /**
+     * Gets the number of records read so far.
+     * @return The record count
+     */
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+
+    /**
+     * Extracts one field of a record, unquoted.
+     * @param record The record
+     * @param index The field index (0-based)
+     * @return The field value, or null if it is empty and unquoted (COPY's NULL) or missing
+     */
+    public static String field(String record, int index) {
+        int field = 0;
+        int i = 0;
+        while (i <= record.length()) {
+            if (field == index) {
+                if (i < record.length() && record.charAt(i) == '"') {
+                    StringBuilder value = new StringBuilder();
+                    for (int j = i + 1; j < record.length(); j++) {
+                        char c = record.charAt(j);
+                        if (c == '"') {
+                            if (j + 1 < record.length() && record.charAt(j + 1) == '"') {
+                                value.append('"');
+                                j++;
+                            } else {
+                                return value.toString();
+                            }
+                        } else {
+                            value.append(c);
+                        }
+                    }
+                    return value.toString();
+                }
+                int end = record.indexOf(',', i);
+                String value = end < 0 ? record.substring(i) : record.substring(i, end);
+                return value.isEmpty() ? null : value;
+            }
+            // Skip this field
+            if (i < record.length() && record.charAt(i) == '"') {
+                i++;
+                while (i < record.length()) {
+                    if (record.charAt(i) == '"') {
+                        if (i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                            i += 2;
+                            continue;
+                        }
+                        i++;
+                        break;
+                    }
+                    i++;
+                }
+            } else {
+                while (i < record.length() && record.charAt(i) != ',') {
+                    i++;
+                }
+            }
+            i++; // The comma
+            field++;
+        }
+        return null;
+    }
+
+    // Whether a quote is left open at the end of the line (doubled quotes are escapes and cancel out)
+    private static boolean hasOpenQuote(String line, boolean startsOpen) {
+        boolean open = startsOpen;
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == '"') {
+                open = !open;
+            }
+        }
+        return open;
+    }
+}
@@ -0,0 +1,258 @@
+package com.framework.service.core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Attributes database cost (statements executed, rows fetched, time spent in JDBC) to named units of work,
+ * such as a WebSocket message type or a tick phase.
+ * A unit of work opens a scope on its thread; MeteredDriver reports every statement to the innermost open
+ * scope, and closing the scope adds its totals to the scope name's stats. Statements run outside any scope
+ * are counted under UNSCOPED. A scope name may have a statement budget: invocations that exceed it are counted
+ * (and the first one is logged).
+ */
+public final class DbCostTracker {
+
+    /** Stats name for statements executed outside any scope (background flushes, startup, ...). */
+    public static final String UNSCOPED = "unscoped";
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+    private static final Map<String, Stats> STATS = new ConcurrentHashMap<>();
+    private static final Map<String, Integer> BUDGETS = new ConcurrentHashMap<>();
+    private static volatile Consumer<Stats> onNewStats = stats -> { };
+
+    private DbCostTracker() {
+    }
+
+    /**
+     * Accumulated cost of one scope name.
+     */
+    public static final class Stats {
+        final String name;
+        final LongAdder invocations = new LongAdder();
+        final LongAdder statements = new LongAdder();
+        final LongAdder rows = new LongAdder();
+        final LongAdder jdbcNanos = new LongAdder();
+        final LongAdder overBudget = new LongAdder();
+        final LongAccumulator maxStatements = new LongAccumulator(Math::max, 0);
+
+        Stats(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getInvocations() {
+            return invocations.sum();
+        }
+
+        public long getStatements() {
+            return statements.sum();
+        }
+
+        public long getRows() {
+            return rows.sum();
+        }
+
+        public double getJdbcSeconds() {
+            return jdbcNanos.sum() / 1e9;
+        }
+
+        public long getOverBudget() {
+            return overBudget.sum();
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            long count = invocations.sum();
+            long statementCount = statements.sum();
+            long nanos = jdbcNanos.sum();
+            map.put("invocations", count);
+            map.put("statements", statementCount);
+            map.put("rows", rows.sum());
+            map.put("jdbcMillis", TimeUnit.NANOSECONDS.toMillis(nanos));
+            map.put("avgStatements", count == 0 ? 0.0 : (double) statementCount / count);
+            map.put("avgJdbcMicros", count == 0 ? 0.0 : nanos / 1000.0 / count);
+            map.put("maxStatements", maxStatements.get());
+            Integer budget = BUDGETS.get(name);
+            if (budget != null) {
+                map.put("budget", budget);
+                map.put("overBudget", overBudget.sum());
+            }
+            return map;
+        }
+    }
+
+    /**
+     * One open unit of work on the current thread. Close it on the same thread, in reverse order of opening.
+     */
+    public static final class Scope implements AutoCloseable {
+        private final String name;
+        private final Scope outer;
+        private long statements;
+        private long rows;
+        private long jdbcNanos;
+        private boolean closed;
+
+        Scope(String name, Scope outer) {
+            this.name = name;
+            this.outer = outer;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Gets the number of statements executed in this scope so far.
+         * @return The statement count
+         */
+        public long getStatements() {
+            return statements;
+        }
+
+        /**
+         * Gets the number of rows fetched in this scope so far.
+         * @return The row count
+         */
+        public long getRows() {
+            return rows;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (outer == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(outer);
+            }
+            Stats stats = statsFor(name);
+            stats.invocations.increment();
+            stats.statements.add(statements);
+            stats.rows.add(rows);
+            stats.jdbcNanos.add(jdbcNanos);
+            stats.maxStatements.accumulate(statements);
+            Integer budget = BUDGETS.get(name);
+            if (budget != null && statements > budget) {
+                if (stats.overBudget.sum() == 0) {
+                    System.err.println("DB budget exceeded by " + name + ": " + statements + " statements (budget " + budget + ")");
+                }
+                stats.overBudget.increment();
+            }
+        }
+    }
+
+    /**
+     * Opens a scope on the current thread; use with try-with-resources.
+     * @param name The scope name, e.g. "ws.START_ACTION" or "tick.PERSIST"
+     * @return The open scope
+     */
+    public static Scope begin(String name) {
+        Scope scope = new Scope(name, CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * Records one executed statement (or batch) against the current scope.
+     * @param nanos Time spent executing it
+     */
+    public static void recordStatement(long nanos) {
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            scope.statements++;
+            scope.jdbcNanos += nanos;
+        } else {
+            Stats stats = statsFor(UNSCOPED);
+            stats.statements.increment();
+            stats.jdbcNanos.add(nanos);
+        }
+    }
+
+    /**
+     * Records JDBC time spent fetching results against the current scope.
+     * @param rows Rows fetched (0 or 1 per ResultSet.next call)
+     * @param nanos Time spent fetching
+     */
+    public static void recordFetch(long rows, long nanos) {
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            scope.rows += rows;
+            scope.jdbcNanos += nanos;
+        } else {
+            Stats stats = statsFor(UNSCOPED);
+            stats.rows.add(rows);
+            stats.jdbcNanos.add(nanos);
+        }
+    }
+
+    /**
+     * Sets statement budgets from a list like "ws.START_ACTION=4,tick.PERSIST=20".
+     * @param budgets The budget list (null or blank sets none)
+     * @throws IllegalArgumentException If an entry is not name=count
+     */
+    public static void setBudgets(String budgets) {
+        if (budgets == null || budgets.isBlank()) {
+            return;
+        }
+        for (String entry : budgets.split(",")) {
+            int equals = entry.lastIndexOf('=');
+            if (equals <= 0) {
+                throw new IllegalArgumentException("Invalid DB budget '" + entry.trim() + "', expected name=statements");
+            }
+            try {
+                BUDGETS.put(entry.substring(0, equals).trim(), Integer.parseInt(entry.substring(equals + 1).trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid DB budget '" + entry.trim() + "', expected name=statements");
+            }
+        }
+    }
+
+    /**
+     * Registers a callback for every scope name's stats, called now for existing ones and later as new names appear
+     * (e.g. to register them as metrics).
+     * @param listener The callback
+     */
+    public static synchronized void onNewStats(Consumer<Stats> listener) {
+        onNewStats = listener;
+        STATS.values().forEach(listener);
+    }
+
+    /**
+     * Gets the accumulated cost of every scope name, sorted by name.
+     * @return Map of scope name to its counters
+     */
+    public static Map<String, Object> snapshot() {
+        Map<String, Object> result = new TreeMap<>();
+        STATS.forEach((name, stats) -> result.put(name, stats.toMap()));
+        return result;
+    }
+
+    private static Stats statsFor(String name) {
+        Stats stats = STATS.get(name);
+        if (stats != null) {
+            return stats;
+        }
+        synchronized (DbCostTracker.class) {
+            stats = STATS.get(name);
+            if (stats == null) {
+                stats = new Stats(name);
+                STATS.put(name, stats);
+                onNewStats.accept(stats);
+            }
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package com.framework.service.core;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of opaque records in memory-mapped segment files, with group commit.
+ * Appends copy the record into the mapped segment and return at once; a committer thread forces
+ * the written range to disk every commit interval, so one fsync covers every record appended in
+ * that window. Callers that must not continue before their records are durable wait with awaitDurable.
+ *
+ * Each record is framed as [int length][int CRC32][payload]. Segments are preallocated (zero-filled),
+ * so a zero length marks the end; a torn or corrupt record ends the replay of its segment.
+ * A journal always appends to a fresh segment: existing segments are only replayed and deleted.
+ * Positions (LSNs) are segment index * segment size + offset, so they grow across segments.
+ */
+public class Journal implements AutoCloseable {
+    private static final int HEADER_BYTES = 8;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long commitIntervalMillis;
+    private final Object durableLock = new Object();
+
+    // Guarded by this
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long segmentIndex = -1;
+    private int position;
+    private int forcedPosition;
+
+    private long durableLsn; // Guarded by durableLock
+    private Thread committer;
+    private volatile boolean running;
+
+    /**
+     * Creates a journal (nothing is opened until open or replay is called).
+     * @param directory The directory holding the segment files
+     * @param segmentSize The size of each segment file in bytes
+     * @param commitIntervalMillis How often appended records are forced to disk
+     */
+    public Journal(Path directory, int segmentSize, long commitIntervalMillis) {
+        if (segmentSize < 1024) {
+            throw new IllegalArgumentException("Segment size must be at least 1024 bytes");
+        }
+        if (commitIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Commit interval must be positive");
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.commitIntervalMillis = commitIntervalMillis;
+    }
+
+    /**
+     * Hands every intact record of the existing segments to the visitor, oldest first.
+     * Must be called before open.
+     * @param visitor Receives each payload as a read-only buffer (only valid during the call)
+     * @throws IOException If a segment cannot be read
+     */
+    public void replay(Consumer<ByteBuffer> visitor) throws IOException {
+        CRC32 crc = new CRC32();
+        for (Path file : listSegments()) {
+            try (FileChannel readChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+                ByteBuffer data = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, readChannel.size());
+                while (data.remaining() >= HEADER_BYTES) {
+                    int length = data.getInt();
+                    int checksum = data.getInt();
+                    if (length <= 0 || length > data.remaining()) {
+                        break;
+                    }
+                    ByteBuffer payload = data.slice(data.position(), length);
+                    crc.reset();
+                    crc.update(payload.duplicate());
+                    if ((int) crc.getValue() != checksum) {
+                        System.err.println("Journal: corrupt record in " + file.getFileName() + " at " + (data.position() - HEADER_BYTES) + ", skipping the rest of the segment");
+                        break;
+                    }
+                    visitor.accept(payload.asReadOnlyBuffer());
+                    data.position(data.position() + length);
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts a new segment after the existing ones and starts the committer thread.
+     * @throws IOException If the segment cannot be created
+     */
+    public synchronized void open() throws IOException {
+        Files.createDirectories(directory);
+        long last = -1;
+        for (Path file : listSegments()) {
+            last = Math.max(last, segmentIndexOf(file));
+        }
+        startSegment(last + 1);
+        synchronized (durableLock) {
+            durableLsn = lsn(segmentIndex, 0);
+        }
+        running = true;
+        committer = new Thread(this::runCommitter, "journal-commit");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    /**
+     * Appends a record. Starts a new segment if the current one is full.
+     * @param payload The record (from its position to its limit; the position is not changed)
+     * @return The LSN just past the record, for awaitDurable
+     */
+    public synchronized long append(ByteBuffer payload) {
+        int length = payload.remaining();
+        if (length == 0 || length > segmentSize - HEADER_BYTES) {
+            throw new IllegalArgumentException("Journal record size out of range: " + length);
+        }
+        if (segment == null) {
+            throw new IllegalStateException("Journal is not open");
+        }
+        if (position + HEADER_BYTES + length > segmentSize) {
+            rotate();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        segment.putInt(position + 4, (int) crc.getValue());
+        segment.put(position + HEADER_BYTES, payload, payload.position(), length);
+        // The length goes last: a record is only visible to replay once it is complete
+        segment.putInt(position, length);
+        position += HEADER_BYTES + length;
+        return lsn(segmentIndex, position);
+    }
+
+    /**
+     * Waits until everything up to an LSN has been forced to disk.
+     * @param lsn The LSN returned by append
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public void awaitDurable(long lsn) throws InterruptedException {
+        synchronized (durableLock) {
+            while (durableLsn < lsn && running) {
+                durableLock.wait();
+            }
+        }
+    }
+
+    /**
+     * Forces the current segment and continues in a new one. Every record appended before this
+     * call lives in a segment with a lower index than the returned one.
+     * @return The index of the new current segment
+     */
+    public synchronized long rotate() {
+        try {
+            segment.force(0, position);
+            channel.close();
+            startSegment(segmentIndex + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to rotate journal segment", e);
+        }
+        publishDurable(lsn(segmentIndex, 0));
+        return segmentIndex;
+    }
+
+    /**
+     * Deletes the segments before a given one (after their contents have been checkpointed).
+     * @param firstKept The index of the oldest segment to keep
+     * @return The number of segments deleted
+     */
+    public int deleteSegmentsBefore(long firstKept) {
+        int deleted = 0;
+        try {
+            for (Path file : listSegments()) {
+                if (segmentIndexOf(file) < firstKept) {
+                    Files.deleteIfExists(file);
+                    deleted++;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete journal segments", e);
+        }
+        return deleted;
+    }
+
+    /**
+     * Gets the number of bytes appended to the current segment.
+     * @return The write position in the current segment
+     */
+    public synchronized int getSegmentPosition() {
+        return position;
+    }
+
+    /**
+     * Stops the committer and forces everything appended so far.
+     */
+    @Override
+    public void close() {
+        running = false;
+        if (committer != null) {
+            committer.interrupt();
+            try {
+                committer.join(commitIntervalMillis * 10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            if (segment != null) {
+                segment.force(0, position);
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    System.err.println("Error closing journal segment: " + e.getMessage());
+                }
+                segment = null;
+            }
+        }
+        synchronized (durableLock) {
+            durableLock.notifyAll();
+        }
+    }
+
+    private void runCommitter() {
+        while (running) {
+            try {
+                Thread.sleep(commitIntervalMillis);
+            } catch (InterruptedException e) {
+                break;
+            }
+            try {
+                commit();
+            } catch (Exception e) {
+                System.err.println("Error committing journal: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // Forces the range written since the last commit without holding the append lock during the fsync
+    private void commit() {
+        MappedByteBuffer buffer;
+        long index;
+        int from;
+        int to;
+        synchronized (this) {
+            if (segment == null || position == forcedPosition) {
+                return;
+            }
+            buffer = segment;
+            index = segmentIndex;
+            from = forcedPosition;
+            to = position;
+        }
+        buffer.force(from, to - from);
+        synchronized (this) {
+            if (segmentIndex == index) {
+                forcedPosition = Math.max(forcedPosition, to);
+            }
+        }
+        publishDurable(lsn(index, to));
+    }
+
+    private void publishDurable(long lsn) {
+        synchronized (durableLock) {
+            if (lsn > durableLsn) {
+                durableLsn = lsn;
+                durableLock.notifyAll();
+            }
+        }
+    }
+
+    private void startSegment(long index) throws IOException {
+        channel = FileChannel.open(segmentPath(index),
+            StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        segmentIndex = index;
+        position = 0;
+        forcedPosition = 0;
+    }
+
+    private long lsn(long index, int offset) {
+        return index * segmentSize + offset;
+    }
+
+    private Path segmentPath(long index) {
+        return directory.resolve(String.format("journal-%016d.log", index));
+    }
+
+    private static long segmentIndexOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring("journal-".length(), name.length() - ".log".length()));
+    }
+
+    private List<Path> listSegments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().matches("journal-\\d{16}\\.log"))
+                .sorted()
+                .forEach(segments::add);
+        }
+        return segments;
+    }
+}
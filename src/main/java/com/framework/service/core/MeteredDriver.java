@@ -0,0 +1,171 @@
+package com.framework.service.core;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * JDBC driver that wraps the Postgres driver and reports every statement to DbCostTracker: one statement per
+ * execute call (a JDBC batch counts once, as it is one round trip), rows per ResultSet.next, and the time spent
+ * in both. Sits below Hibernate, so it sees the raw JDBC the repositories run through Session.doWork as well
+ * as Hibernate's own statements.
+ * Enable with quarkus.datasource.jdbc.driver=com.framework.service.core.MeteredDriver (set for the dev and test
+ * profiles only, as the proxies add overhead to every statement and row). Not seen: the reactive
+ * client (it does not use JDBC) and the data streamed by COPY (the COPY statement itself is not counted either,
+ * it runs through the CopyManager taken from unwrap).
+ */
+public class MeteredDriver implements Driver {
+
+    private final Driver delegate = new org.postgresql.Driver();
+
+    @Override
+    public Connection connect(String url, Properties info) throws SQLException {
+        Connection connection = delegate.connect(url, info);
+        return connection == null ? null : wrap(Connection.class, new ConnectionHandler(connection));
+    }
+
+    @Override
+    public boolean acceptsURL(String url) throws SQLException {
+        return delegate.acceptsURL(url);
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) throws SQLException {
+        return delegate.getPropertyInfo(url, info);
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return delegate.getMajorVersion();
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return delegate.getMinorVersion();
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return delegate.jdbcCompliant();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return delegate.getParentLogger();
+    }
+
+    private static <T> T wrap(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(MeteredDriver.class.getClassLoader(), new Class<?>[] {type}, handler));
+    }
+
+    // Forwards calls to the wrapped JDBC object; equals compares the proxies themselves
+    private abstract static class Handler implements InvocationHandler {
+        final Object target;
+
+        Handler(Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getName().equals("equals") && args != null && args.length == 1) {
+                return proxy == args[0];
+            }
+            return handle(method, args);
+        }
+
+        abstract Object handle(Method method, Object[] args) throws Throwable;
+
+        Object forward(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    // Wraps the statements a connection creates; everything else (including unwrap) goes straight through
+    private static final class ConnectionHandler extends Handler {
+        ConnectionHandler(Connection target) {
+            super(target);
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            Object result = forward(method, args);
+            switch (method.getName()) {
+                case "createStatement":
+                    return wrap(Statement.class, new StatementHandler(result));
+                case "prepareStatement":
+                    return wrap(PreparedStatement.class, new StatementHandler(result));
+                case "prepareCall":
+                    return wrap(CallableStatement.class, new StatementHandler(result));
+                default:
+                    return result;
+            }
+        }
+    }
+
+    // Times and counts executes; wraps the result sets they return
+    private static final class StatementHandler extends Handler {
+        StatementHandler(Object target) {
+            super(target);
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                long start = System.nanoTime();
+                try {
+                    return wrapResultSet(forward(method, args));
+                } finally {
+                    DbCostTracker.recordStatement(System.nanoTime() - start);
+                }
+            }
+            Object result = forward(method, args);
+            if (name.equals("getResultSet") || name.equals("getGeneratedKeys")) {
+                return wrapResultSet(result);
+            }
+            return result;
+        }
+
+        private static Object wrapResultSet(Object result) {
+            if (result instanceof ResultSet) {
+                return wrap(ResultSet.class, new ResultSetHandler(result));
+            }
+            return result;
+        }
+    }
+
+    // Counts the rows read through next() and the time spent fetching them
+    private static final class ResultSetHandler extends Handler {
+        ResultSetHandler(Object target) {
+            super(target);
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            if (!method.getName().equals("next")) {
+                return forward(method, args);
+            }
+            long start = System.nanoTime();
+            boolean hasRow = (Boolean) forward(method, args);
+            DbCostTracker.recordFetch(hasRow ? 1 : 0, System.nanoTime() - start);
+            return hasRow;
+        }
+    }
+}
@@ -0,0 +1,443 @@
+package com.framework.service.core;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of AgentStateEntity.stateData (buffs, cooldowns, action progress, ...).
+ *
+ * A blob is a version byte followed by the top-level fields. Each field is a varint key
+ * (field ID << 3 | type) and its value. Field names listed in FIELDS are written as their index;
+ * any other name is written inline after field ID 0. Values:
+ * NULL, TRUE, FALSE (no bytes), LONG (zigzag varint), DOUBLE (8 bytes), STRING (varint length + UTF-8),
+ * OBJECT (varint length + fields) and ARRAY (varint length + elements, each a varint type and a value).
+ * Strings, objects and arrays are length-prefixed, so find() can skip over everything it does not need.
+ * Decoded values are Long, Double, String, Boolean, Map (LinkedHashMap, in field order) or List.
+ */
+public final class StateDataCodec {
+    public static final byte VERSION = 1;
+
+    // Interned field names; the index is the ID written in the blob. Append only: never reorder, remove or reuse
+    private static final String[] FIELDS = {
+        null, "action", "actionId", "instanceId", "startTime", "endTime", "lastTickTime", "pendingSeconds",
+        "pendingExperience", "buffs", "cooldowns", "progress", "id", "expiresAt", "stacks", "legacyText"
+    };
+    private static final Map<String, Integer> FIELD_IDS = new HashMap<>();
+    static {
+        for (int i = 1; i < FIELDS.length; i++) {
+            FIELD_IDS.put(FIELDS[i], i);
+        }
+    }
+
+    private static final int NULL = 0;
+    private static final int LONG = 1;
+    private static final int DOUBLE = 2;
+    private static final int STRING = 3;
+    private static final int TRUE = 4;
+    private static final int FALSE = 5;
+    private static final int OBJECT = 6;
+    private static final int ARRAY = 7;
+
+    private StateDataCodec() {
+    }
+
+    /**
+     * Encodes a map of fields (values may be numbers, strings, booleans, null, maps and lists).
+     * @param fields The fields
+     * @return The encoded blob
+     * @throws IllegalArgumentException If a value has an unsupported type
+     */
+    public static byte[] encode(Map<String, ?> fields) {
+        Writer writer = new Writer();
+        for (Map.Entry<String, ?> field : fields.entrySet()) {
+            writer.putValue(field.getKey(), field.getValue());
+        }
+        return writer.toByteArray();
+    }
+
+    /**
+     * Decodes a whole blob.
+     * @param data The blob (null gives an empty map)
+     * @return The fields, in the order they were written
+     * @throws IllegalArgumentException If the blob has an unknown version or is truncated
+     */
+    public static Map<String, Object> decode(byte[] data) {
+        if (data == null) {
+            return new LinkedHashMap<>();
+        }
+        Reader reader = new Reader(data);
+        return reader.readFields(data.length);
+    }
+
+    /**
+     * Reads a single field without decoding the rest of the blob: fields before it are skipped by
+     * their length, and only the value found is decoded.
+     * @param data The blob (may be null)
+     * @param path The field name, preceded by the names of the objects it is nested in
+     * @return The decoded value, or null if there is no such field
+     * @throws IllegalArgumentException If the blob has an unknown version or is truncated
+     */
+    public static Object find(byte[] data, String... path) {
+        if (data == null || path.length == 0) {
+            return null;
+        }
+        Reader reader = new Reader(data);
+        int end = data.length;
+        for (int depth = 0; depth < path.length; depth++) {
+            int type = reader.seek(path[depth], end);
+            if (type < 0) {
+                return null;
+            }
+            if (depth == path.length - 1) {
+                return reader.readValue(type);
+            }
+            if (type != OBJECT) {
+                return null;
+            }
+            int length = reader.readVarint();
+            end = reader.pos + length;
+        }
+        return null;
+    }
+
+    /**
+     * Streaming encoder, for writing state without building a map first.
+     * Objects and arrays are opened with begin* and closed with end*; inside an array,
+     * pass null as the field name.
+     */
+    public static final class Writer {
+        private byte[] buffer = new byte[64];
+        private int pos;
+        private int[] openStarts = new int[8]; // Body start of each open object/array
+        private boolean[] openArrays = new boolean[8];
+        private int depth;
+
+        public Writer() {
+            buffer[pos++] = VERSION;
+        }
+
+        public Writer putNull(String name) {
+            key(name, NULL);
+            return this;
+        }
+
+        public Writer putBoolean(String name, boolean value) {
+            key(name, value ? TRUE : FALSE);
+            return this;
+        }
+
+        public Writer putLong(String name, long value) {
+            key(name, LONG);
+            writeVarint((value << 1) ^ (value >> 63));
+            return this;
+        }
+
+        public Writer putDouble(String name, double value) {
+            key(name, DOUBLE);
+            long bits = Double.doubleToRawLongBits(value);
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[pos++] = (byte) (bits >>> shift);
+            }
+            return this;
+        }
+
+        public Writer putString(String name, String value) {
+            if (value == null) {
+                return putNull(name);
+            }
+            key(name, STRING);
+            writeBytes(value.getBytes(StandardCharsets.UTF_8));
+            return this;
+        }
+
+        public Writer beginObject(String name) {
+            key(name, OBJECT);
+            return open(false);
+        }
+
+        public Writer endObject() {
+            return close(false);
+        }
+
+        public Writer beginArray(String name) {
+            key(name, ARRAY);
+            return open(true);
+        }
+
+        public Writer endArray() {
+            return close(true);
+        }
+
+        /**
+         * Writes any supported value (see encode).
+         * @param name The field name (null inside an array)
+         * @param value The value
+         * @return This writer
+         */
+        @SuppressWarnings("unchecked")
+        public Writer putValue(String name, Object value) {
+            if (value == null) {
+                return putNull(name);
+            }
+            if (value instanceof Boolean bool) {
+                return putBoolean(name, bool);
+            }
+            if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                return putLong(name, ((Number) value).longValue());
+            }
+            if (value instanceof BigInteger big && big.bitLength() < 64) {
+                return putLong(name, big.longValue());
+            }
+            if (value instanceof Double || value instanceof Float || value instanceof BigDecimal) {
+                return putDouble(name, ((Number) value).doubleValue());
+            }
+            if (value instanceof CharSequence text) {
+                return putString(name, text.toString());
+            }
+            if (value instanceof Map<?, ?> map) {
+                beginObject(name);
+                for (Map.Entry<String, ?> field : ((Map<String, ?>) map).entrySet()) {
+                    putValue(field.getKey(), field.getValue());
+                }
+                return endObject();
+            }
+            if (value instanceof List<?> list) {
+                beginArray(name);
+                for (Object element : list) {
+                    putValue(null, element);
+                }
+                return endArray();
+            }
+            throw new IllegalArgumentException("Unsupported state data value: " + value.getClass().getName());
+        }
+
+        /**
+         * Gets the encoded blob.
+         * @return A copy of the bytes written
+         * @throws IllegalStateException If an object or array is still open
+         */
+        public byte[] toByteArray() {
+            if (depth != 0) {
+                throw new IllegalStateException("State data has " + depth + " unclosed object(s)/array(s)");
+            }
+            return Arrays.copyOf(buffer, pos);
+        }
+
+        private void key(String name, int type) {
+            if (depth > 0 && openArrays[depth - 1]) {
+                if (name != null) {
+                    throw new IllegalArgumentException("Array elements have no name: " + name);
+                }
+                writeVarint(type);
+                return;
+            }
+            if (name == null) {
+                throw new IllegalArgumentException("Field name is required outside arrays");
+            }
+            Integer id = FIELD_IDS.get(name);
+            writeVarint((long) (id == null ? 0 : id) << 3 | type);
+            if (id == null) {
+                writeBytes(name.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        private Writer open(boolean array) {
+            if (depth == openStarts.length) {
+                openStarts = Arrays.copyOf(openStarts, depth * 2);
+                openArrays = Arrays.copyOf(openArrays, depth * 2);
+            }
+            openStarts[depth] = pos;
+            openArrays[depth] = array;
+            depth++;
+            return this;
+        }
+
+        // The body length is only known now, so it is inserted in front of the body
+        private Writer close(boolean array) {
+            if (depth == 0 || openArrays[depth - 1] != array) {
+                throw new IllegalStateException("No open " + (array ? "array" : "object") + " to end");
+            }
+            depth--;
+            int start = openStarts[depth];
+            int length = pos - start;
+            int prefix = varintSize(length);
+            ensure(prefix);
+            System.arraycopy(buffer, start, buffer, start + prefix, length);
+            int end = pos + prefix;
+            pos = start;
+            writeVarint(length);
+            pos = end;
+            return this;
+        }
+
+        private void writeBytes(byte[] bytes) {
+            writeVarint(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, pos, bytes.length);
+            pos += bytes.length;
+        }
+
+        private void writeVarint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[pos++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[pos++] = (byte) value;
+        }
+
+        private void ensure(int bytes) {
+            if (pos + bytes > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, pos + bytes));
+            }
+        }
+
+        private static int varintSize(long value) {
+            int size = 1;
+            while ((value & ~0x7FL) != 0) {
+                value >>>= 7;
+                size++;
+            }
+            return size;
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] data;
+        private int pos;
+
+        Reader(byte[] data) {
+            if (data.length == 0 || data[0] != VERSION) {
+                throw new IllegalArgumentException("Unsupported state data version: " + (data.length == 0 ? "empty" : data[0]));
+            }
+            this.data = data;
+            this.pos = 1;
+        }
+
+        // Moves past the key of the named field; returns its type, or -1 if it is not before end
+        int seek(String name, int end) {
+            Integer wanted = FIELD_IDS.get(name);
+            while (pos < end) {
+                long key = readVarintLong();
+                int id = (int) (key >>> 3);
+                int type = (int) (key & 7);
+                boolean match;
+                if (id == 0) {
+                    match = readString().equals(name);
+                } else {
+                    match = wanted != null && wanted == id;
+                }
+                if (match) {
+                    return type;
+                }
+                skipValue(type);
+            }
+            return -1;
+        }
+
+        Map<String, Object> readFields(int end) {
+            Map<String, Object> fields = new LinkedHashMap<>();
+            while (pos < end) {
+                long key = readVarintLong();
+                int id = (int) (key >>> 3);
+                String name = id == 0 ? readString() : id < FIELDS.length ? FIELDS[id] : "#" + id;
+                fields.put(name, readValue((int) (key & 7)));
+            }
+            return fields;
+        }
+
+        Object readValue(int type) {
+            switch (type) {
+                case NULL:
+                    return null;
+                case TRUE:
+                    return Boolean.TRUE;
+                case FALSE:
+                    return Boolean.FALSE;
+                case LONG: {
+                    long raw = readVarintLong();
+                    return (raw >>> 1) ^ -(raw & 1);
+                }
+                case DOUBLE: {
+                    check(8);
+                    long bits = 0;
+                    for (int i = 0; i < 8; i++) {
+                        bits = (bits << 8) | (data[pos++] & 0xFF);
+                    }
+                    return Double.longBitsToDouble(bits);
+                }
+                case STRING:
+                    return readString();
+                case OBJECT: {
+                    int length = readVarint();
+                    check(length);
+                    return readFields(pos + length);
+                }
+                default: { // ARRAY
+                    int length = readVarint();
+                    check(length);
+                    int end = pos + length;
+                    List<Object> elements = new ArrayList<>();
+                    while (pos < end) {
+                        elements.add(readValue(readVarint()));
+                    }
+                    return elements;
+                }
+            }
+        }
+
+        void skipValue(int type) {
+            switch (type) {
+                case LONG -> readVarintLong();
+                case DOUBLE -> pos += 8;
+                case STRING, OBJECT, ARRAY -> {
+                    int length = readVarint();
+                    pos += length;
+                }
+                default -> { } // NULL, TRUE, FALSE have no bytes
+            }
+            if (pos > data.length) {
+                throw new IllegalArgumentException("Truncated state data");
+            }
+        }
+
+        String readString() {
+            int length = readVarint();
+            check(length);
+            String value = new String(data, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return value;
+        }
+
+        int readVarint() {
+            return (int) readVarintLong();
+        }
+
+        long readVarintLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                check(1);
+                byte b = data[pos++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in state data");
+        }
+
+        private void check(int bytes) {
+            if (bytes < 0 || pos + bytes > data.length) {
+                throw new IllegalArgumentException("Truncated state data");
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.framework.service.core;
 
+import com.framework.data.model.CompiledLootTable;
 import com.framework.data.model.Item;
 import com.framework.data.model.LootTable;
 import com.framework.data.model.Skill;
@@ -35,6 +36,14 @@ public interface StaticDataService {
      */
     LootTable getLootTable(String id);
     
+    /**
+     * Retrieves the precompiled form of a LootTable by its ID (for rolling).
+     * @param id The loot table ID
+     * @return The CompiledLootTable object
+     * @throws IllegalArgumentException if the ID is not found
+     */
+    CompiledLootTable getCompiledLootTable(String id);
+    
     /**
      * Returns all items (e.g., for store restock logic).
      * @return A collection of all items
@@ -1,5 +1,6 @@
 package com.framework.service.core;
 
+import com.framework.data.model.CompiledLootTable;
 import com.framework.data.model.Item;
 import com.framework.data.model.LootTable;
 import com.framework.data.model.Skill;
@@ -31,6 +32,11 @@ public class StaticDataServiceImpl implements StaticDataService {
         return StaticLootTableData.getLootTable(id);
     }
 
+    @Override
+    public CompiledLootTable getCompiledLootTable(String id) {
+        return StaticLootTableData.getCompiledLootTable(id);
+    }
+
     @Override
     public Collection<Item> getAllItems() {
         return StaticItemData.getAllItems().values();
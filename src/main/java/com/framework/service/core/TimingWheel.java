@@ -0,0 +1,273 @@
+package com.framework.service.core;
+
+import java.util.ArrayDeque;
+import java.util.List;
+
+/**
+ * Hashed hierarchical timing wheel for large numbers of timers.
+ * Scheduling and cancelling are O(1); advancing costs O(1) per elapsed wheel tick plus
+ * O(1) per timer that cascades down a level or expires. Expired timers are queued and
+ * handed out in bounded batches by drainExpired.
+ *
+ * Each level has 64 slots; level L covers 64^(L+1) wheel ticks. Timers further out than the
+ * top level are parked in its farthest slot and re-inserted when that slot cascades.
+ * All public methods are synchronized, so timers can be scheduled from any thread.
+ *
+ * @param <T> The payload type
+ */
+public class TimingWheel<T> {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    private final long tickMillis;
+    private final long startTime;
+    private final Bucket<T>[][] levels;
+    private final ArrayDeque<Timeout<T>> expired = new ArrayDeque<>();
+
+    private long currentTick; // Wheel ticks processed so far
+    private int size; // Pending (not yet expired) timers
+
+    /**
+     * Creates a timing wheel.
+     * @param tickMillis The resolution of the wheel in milliseconds
+     * @param levelCount The number of levels (each multiplies the range by 64)
+     * @param startTime The time (in milliseconds) of wheel tick 0
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, int levelCount, long startTime) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick duration must be positive");
+        }
+        if (levelCount < 1 || levelCount * SLOT_BITS > 60) {
+            throw new IllegalArgumentException("Level count must be between 1 and 10");
+        }
+        this.tickMillis = tickMillis;
+        this.startTime = startTime;
+        this.levels = new Bucket[levelCount][SLOTS];
+        for (int level = 0; level < levelCount; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                levels[level][slot] = new Bucket<>();
+            }
+        }
+    }
+
+    /**
+     * Schedules a timer.
+     * @param payload The payload handed back when the timer expires
+     * @param deadlineMillis When the timer should expire (in milliseconds)
+     * @return A handle that can be used to cancel the timer
+     */
+    public synchronized Timeout<T> schedule(T payload, long deadlineMillis) {
+        long deadlineTick = Math.floorDiv(deadlineMillis - startTime + tickMillis - 1, tickMillis);
+        Timeout<T> timeout = new Timeout<>(payload, deadlineTick);
+        place(timeout);
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Cancels a pending timer. Has no effect if it already expired or was cancelled.
+     * @param timeout The timer handle
+     * @return true if the timer was pending and is now cancelled
+     */
+    public synchronized boolean cancel(Timeout<T> timeout) {
+        if (timeout == null) {
+            return false;
+        }
+        if (timeout.state == Timeout.EXPIRED) {
+            // Expired but not handed out yet: skipped by drainExpired
+            timeout.state = Timeout.CANCELLED;
+            return true;
+        }
+        if (timeout.state != Timeout.PENDING) {
+            return false;
+        }
+        timeout.bucket.remove(timeout);
+        timeout.state = Timeout.CANCELLED;
+        size--;
+        return true;
+    }
+
+    /**
+     * Advances the wheel to the given time, moving every timer that is due into the expired queue.
+     * @param nowMillis The current time in milliseconds
+     */
+    public synchronized void advance(long nowMillis) {
+        long targetTick = Math.floorDiv(nowMillis - startTime, tickMillis);
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+            expireSlot(levels[0][(int) (currentTick & SLOT_MASK)]);
+        }
+    }
+
+    /**
+     * Hands out up to maxBatch expired timers in expiry order.
+     * Timers beyond the batch stay queued for the next call.
+     * @param into The list to add the expired payloads to
+     * @param maxBatch The maximum number of payloads to hand out
+     * @return The number of payloads added
+     */
+    public synchronized int drainExpired(List<T> into, int maxBatch) {
+        int drained = 0;
+        while (drained < maxBatch && !expired.isEmpty()) {
+            Timeout<T> timeout = expired.poll();
+            if (timeout.state == Timeout.EXPIRED) {
+                timeout.state = Timeout.FIRED;
+                into.add(timeout.payload);
+                drained++;
+            }
+        }
+        return drained;
+    }
+
+    /**
+     * Gets the number of pending (scheduled, not yet expired) timers.
+     * @return The number of pending timers
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Gets the number of expired timers waiting to be drained (including cancelled ones not yet skipped).
+     * @return The number of expired timers
+     */
+    public synchronized int expiredCount() {
+        return expired.size();
+    }
+
+    // Puts a pending timer into the slot matching its distance from the current tick
+    private void place(Timeout<T> timeout) {
+        long delta = timeout.deadlineTick - currentTick;
+        if (delta <= 0) {
+            // Already due
+            timeout.state = Timeout.EXPIRED;
+            timeout.bucket = null;
+            expired.add(timeout);
+            size--;
+            return;
+        }
+        int topLevel = levels.length - 1;
+        for (int level = 0; level <= topLevel; level++) {
+            int shift = SLOT_BITS * level;
+            if (delta < (1L << (shift + SLOT_BITS))) {
+                levels[level][(int) ((timeout.deadlineTick >>> shift) & SLOT_MASK)].add(timeout);
+                return;
+            }
+        }
+        // Beyond the wheel's range: park in the farthest top-level slot and re-place on cascade
+        int shift = SLOT_BITS * topLevel;
+        levels[topLevel][(int) (((currentTick >>> shift) - 1) & SLOT_MASK)].add(timeout);
+    }
+
+    // When lower levels wrap around, move the next slot of each higher level down
+    private void cascade() {
+        for (int level = 1; level < levels.length; level++) {
+            int shift = SLOT_BITS * level;
+            if ((currentTick & ((1L << shift) - 1)) != 0) {
+                return;
+            }
+            Bucket<T> bucket = levels[level][(int) ((currentTick >>> shift) & SLOT_MASK)];
+            Timeout<T> timeout = bucket.clear();
+            while (timeout != null) {
+                Timeout<T> next = timeout.next;
+                timeout.next = null;
+                timeout.prev = null;
+                place(timeout);
+                timeout = next;
+            }
+        }
+    }
+
+    private void expireSlot(Bucket<T> bucket) {
+        Timeout<T> timeout = bucket.clear();
+        while (timeout != null) {
+            Timeout<T> next = timeout.next;
+            timeout.next = null;
+            timeout.prev = null;
+            timeout.bucket = null;
+            timeout.state = Timeout.EXPIRED;
+            expired.add(timeout);
+            size--;
+            timeout = next;
+        }
+    }
+
+    /**
+     * Handle for a scheduled timer.
+     */
+    public static final class Timeout<T> {
+        static final int PENDING = 0;
+        static final int EXPIRED = 1; // Due, waiting in the expired queue
+        static final int FIRED = 2; // Handed out by drainExpired
+        static final int CANCELLED = 3;
+
+        private final T payload;
+        private final long deadlineTick;
+        private int state = PENDING;
+        private Bucket<T> bucket;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+
+        private Timeout(T payload, long deadlineTick) {
+            this.payload = payload;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T getPayload() {
+            return payload;
+        }
+
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state == EXPIRED || state == FIRED;
+        }
+    }
+
+    // Intrusive doubly linked list of timers in one slot
+    private static final class Bucket<T> {
+        private Timeout<T> head;
+        private Timeout<T> tail;
+
+        void add(Timeout<T> timeout) {
+            timeout.bucket = this;
+            timeout.prev = tail;
+            timeout.next = null;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        void remove(Timeout<T> timeout) {
+            if (timeout.prev == null) {
+                head = timeout.next;
+            } else {
+                timeout.prev.next = timeout.next;
+            }
+            if (timeout.next == null) {
+                tail = timeout.prev;
+            } else {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        // Detaches and returns the whole list
+        Timeout<T> clear() {
+            Timeout<T> first = head;
+            head = null;
+            tail = null;
+            return first;
+        }
+    }
+}
@@ -1,19 +1,21 @@
 package com.framework.service.logic;
 
 import com.framework.data.model.Action;
-import com.framework.data.model.Item;
-import com.framework.data.model.LootTable;
-import com.framework.data.model.LootTable.LootDrop;
 import com.framework.data.staticdata.StaticActionData;
 import com.framework.service.core.StaticDataService;
+import com.framework.service.core.TimingWheel;
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.random.RandomGenerator;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 /**
  * Service for managing game actions (mining, crafting, etc.).
@@ -30,10 +32,58 @@ public class ActionService {
     @Inject
     PlayerService playerService;
     
-    private final Random random = new Random();
+    @Inject
+    LootEngine lootEngine;
+    
+    @Inject
+    RngService rngService;
+    
+    @Inject
+    GameJournal journal;
+    
+    // Longest offline period that is credited on reconnect
+    @ConfigProperty(name = "game.offline.max-catchup-hours", defaultValue = "24")
+    double maxCatchUpHours;
+    
+    // How long a disconnected player's action is kept before it is discarded
+    @ConfigProperty(name = "game.offline.suspend-retention-hours", defaultValue = "168")
+    double suspendRetentionHours;
+    
+    // Resolution of the action timer wheel
+    @ConfigProperty(name = "game.timers.resolution-millis", defaultValue = "100")
+    long timerResolutionMillis;
     
-    // Track active actions: playerId -> ActionState
-    private final Map<String, ActionState> activeActions = new ConcurrentHashMap<>();
+    // Action completions and timeouts: O(1) schedule/cancel, drained by the game tick
+    private TimingWheel<ActionTimer> timers;
+    
+    // Number of shards the active actions are split into (a few times the tick worker count balances well)
+    @ConfigProperty(name = "game.tick.shards", defaultValue = "64")
+    int shardCount;
+    
+    // Track active actions: playerId -> ActionState, sharded by a hash of the player ID
+    private List<Map<String, ActionState>> activeShards;
+    private List<Map<String, ActionState>> activeShardViews; // Read-only views handed to the tick
+    
+    // Actions of disconnected players, resumed with catch-up on reconnect: playerId -> ActionState
+    private final Map<String, ActionState> suspendedActions = new ConcurrentHashMap<>();
+    
+    @PostConstruct
+    void init() {
+        // 4 levels of 64 slots: about 19 days of range at 100ms resolution
+        timers = new TimingWheel<>(timerResolutionMillis, 4, System.currentTimeMillis());
+        
+        activeShards = new ArrayList<>(shardCount);
+        activeShardViews = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            Map<String, ActionState> shard = new ConcurrentHashMap<>();
+            activeShards.add(shard);
+            activeShardViews.add(Collections.unmodifiableMap(shard));
+        }
+    }
+    
+    private Map<String, ActionState> activeShard(String playerId) {
+        return activeShards.get(Math.floorMod(playerId.hashCode(), activeShards.size()));
+    }
     
     /**
      * Initiates a task/action for a player.
@@ -44,15 +94,26 @@ public class ActionService {
     @Transactional
     public void startAction(String playerId, String actionId, String instanceId) {
         // Validate action exists (will throw if not found)
-        StaticActionData.getAction(actionId);
+        Action action = StaticActionData.getAction(actionId);
         
         // Check if player is already performing an action
-        if (activeActions.containsKey(playerId)) {
-            throw new IllegalStateException("Player is already performing an action: " + activeActions.get(playerId).actionId);
+        if (activeShard(playerId).containsKey(playerId)) {
+            throw new IllegalStateException("Player is already performing an action: " + activeShard(playerId).get(playerId).actionId);
         }
         
-        // Start the action
-        activeActions.put(playerId, new ActionState(actionId, instanceId));
+        // Start the action (replaces anything left over from a previous session)
+        ActionState previous = suspendedActions.remove(playerId);
+        if (previous != null) {
+            timers.cancel(previous.timer);
+        }
+        ActionState actionState = new ActionState(actionId, instanceId);
+        if (!action.isContinuous()) {
+            actionState.endTime = actionState.startTime + (long) (action.getDurationSeconds() * 1000);
+            actionState.timer = timers.schedule(
+                new ActionTimer(playerId, ActionTimer.Kind.COMPLETE, actionState), actionState.endTime);
+        }
+        activeShard(playerId).put(playerId, actionState);
+        journal.actionState(playerId, actionState);
     }
     
     /**
@@ -66,7 +127,7 @@ public class ActionService {
     }
     
     /**
-     * Runs the core idle logic (XP gain, calls InventoryService.addItem for loot).
+     * Runs the core idle logic (XP gain, rolls and grants loot in one batched inventory update).
      * @param playerId The player ID
      * @param actionId The action ID
      * @param elapsedSeconds The elapsed time in seconds since last tick
@@ -74,7 +135,7 @@ public class ActionService {
     @Transactional
     public void processActionTick(String playerId, String actionId, double elapsedSeconds) {
         // Verify action is active
-        ActionState actionState = activeActions.get(playerId);
+        ActionState actionState = activeShard(playerId).get(playerId);
         if (actionState == null || !actionState.actionId.equals(actionId)) {
             throw new IllegalStateException("Action is not active for player: " + playerId);
         }
@@ -92,18 +153,280 @@ public class ActionService {
         if (action.getLootTableId() != null && !action.getLootTableId().isBlank()) {
             // Roll for loot based on elapsed time (e.g., once per second)
             int lootRolls = (int) Math.floor(elapsedSeconds);
-            for (int i = 0; i < lootRolls; i++) {
-                executeLootTable(playerId, action.getLootTableId());
+            if (lootRolls > 0) {
+                lootEngine.rollAndGrant(playerId, action.getLootTableId(), lootRolls,
+                    rngService.forPlayer(playerId, RngService.STREAM_TICK));
             }
         }
     }
     
+    /**
+     * Advances an active action up to the given time without touching the database.
+     * Experience and loot are accumulated into a TickResult so the caller can persist many players at once.
+     * Fractional seconds and experience are carried over to the next tick instead of being lost.
+     * Loot is rolled from the player's own random stream for this tick, so it can be replayed.
+     * @param playerId The player ID
+     * @param actionState The player's active action
+     * @param now The current time in milliseconds
+     * @param tick The tick number being simulated
+     * @return The TickResult for this player (possibly empty)
+     */
+    public TickResult simulateActionTick(String playerId, ActionState actionState, long now, long tick) {
+        Action action = StaticActionData.getAction(actionState.actionId);
+        TickResult result = new TickResult(playerId, action.getSkillId());
+        
+        // Finite actions stop accruing at their end time
+        long until = actionState.endTime > 0 ? Math.min(now, actionState.endTime) : now;
+        double elapsedSeconds = Math.max(0, until - actionState.lastTickTime) / 1000.0;
+        actionState.lastTickTime = Math.max(actionState.lastTickTime, until);
+        
+        // Grant experience, keeping the fractional remainder for the next tick
+        actionState.pendingExperience += action.getExperiencePerSecond() * elapsedSeconds;
+        long experienceGained = (long) actionState.pendingExperience;
+        actionState.pendingExperience -= experienceGained;
+        result.experience = experienceGained;
+        
+        // Roll for loot once per whole second of action time
+        if (action.getLootTableId() != null && !action.getLootTableId().isBlank()) {
+            actionState.pendingSeconds += elapsedSeconds;
+            int lootRolls = (int) Math.floor(actionState.pendingSeconds);
+            actionState.pendingSeconds -= lootRolls;
+            if (lootRolls > 0) {
+                result.loot = lootEngine.roll(action.getLootTableId(), lootRolls,
+                    rngService.forPlayer(playerId, tick, RngService.STREAM_TICK));
+            }
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Persists tick results for a batch of players in a single transaction.
+     * A batch may hold several ticks for the same player (when the writer falls behind); loot is summed.
+     * Level-ups are recorded on the results (TickResult.levelUp) for the broadcast.
+     * @param results The simulated tick results
+     */
+    @Transactional
+    public void applyTickResults(List<TickResult> results) {
+        Map<String, LootSummary> lootByPlayer = new HashMap<>();
+        for (TickResult result : results) {
+            if (!result.loot.isEmpty()) {
+                lootByPlayer.merge(result.playerId, result.loot, LootSummary::merge);
+            }
+        }
+        
+        playerService.addExperienceBatch(results);
+        inventoryService.addItemsBatch(lootByPlayer);
+    }
+    
+    /**
+     * Advances the timer wheel and hands out up to maxBatch due action timers.
+     * Timers that do not fit in the batch are returned by the next call.
+     * @param now The current time in milliseconds
+     * @param maxBatch The maximum number of timers to return
+     * @return The due timers, in expiry order
+     */
+    public List<ActionTimer> drainExpiredTimers(long now, int maxBatch) {
+        timers.advance(now);
+        List<ActionTimer> due = new ArrayList<>();
+        timers.drainExpired(due, maxBatch);
+        return due;
+    }
+    
+    /**
+     * Completes a finite action whose completion timer fired: credits the last partial tick and removes it.
+     * @param timer The COMPLETE timer
+     * @param tick The tick number being simulated
+     * @return The final TickResult, or null if the action is no longer active
+     */
+    public TickResult completeAction(ActionTimer timer, long tick) {
+        if (!activeShard(timer.playerId).remove(timer.playerId, timer.actionState)) {
+            return null; // Stopped or replaced in the meantime
+        }
+        journal.actionEnded(timer.playerId);
+        TickResult result = simulateActionTick(timer.playerId, timer.actionState, timer.actionState.endTime, tick);
+        result.message = "Action complete: " + StaticActionData.getAction(timer.actionState.actionId).getName();
+        return result;
+    }
+    
+    /**
+     * Discards a suspended action whose retention period ran out.
+     * @param timer The SUSPEND_TIMEOUT timer
+     */
+    public void expireSuspendedAction(ActionTimer timer) {
+        if (suspendedActions.remove(timer.playerId, timer.actionState)) {
+            journal.actionEnded(timer.playerId);
+        }
+    }
+    
+    /**
+     * Gets the number of pending action timers (completions and suspend timeouts).
+     * @return The number of pending timers
+     */
+    public int getPendingTimerCount() {
+        return timers.size();
+    }
+    
+    /**
+     * Reproduces the loot a player rolled in a given tick, for investigating reports.
+     * Requires the same server seed (game.rng.seed) as when the rolls happened.
+     * @param playerId The player ID
+     * @param lootTableId The loot table ID
+     * @param epoch The RNG epoch of the run the rolls happened in (see RngService.getEpoch)
+     * @param tick The tick number
+     * @param stream The stream ID (see RngService)
+     * @param rolls The number of rolls made in that tick
+     * @return The LootSummary the player received
+     */
+    public LootSummary replayLoot(String playerId, String lootTableId, long epoch, long tick, int stream, long rolls) {
+        RandomGenerator random = rngService.forPlayer(playerId, epoch, tick, stream);
+        if (stream == RngService.STREAM_CATCH_UP) {
+            return lootEngine.rollAggregate(lootTableId, rolls, random);
+        }
+        return lootEngine.roll(lootTableId, (int) rolls, random);
+    }
+    
     /**
      * Stops an active action for a player.
      * @param playerId The player ID
      */
     public void stopAction(String playerId) {
-        activeActions.remove(playerId);
+        ActionState active = activeShard(playerId).remove(playerId);
+        if (active != null) {
+            timers.cancel(active.timer);
+        }
+        ActionState suspended = suspendedActions.remove(playerId);
+        if (suspended != null) {
+            timers.cancel(suspended.timer);
+        }
+        if (active != null || suspended != null) {
+            journal.actionEnded(playerId);
+        }
+    }
+    
+    /**
+     * Parks a player's active action when they disconnect so it keeps "running" while offline.
+     * The tick loop no longer advances it; the elapsed time is credited by resumeAction.
+     * @param playerId The player ID
+     */
+    public void suspendAction(String playerId) {
+        ActionState actionState = activeShard(playerId).remove(playerId);
+        if (actionState != null) {
+            // Completion is handled by catch-up on reconnect; drop the state if they never come back
+            timers.cancel(actionState.timer);
+            long retentionMillis = (long) (suspendRetentionHours * 3600 * 1000);
+            actionState.timer = timers.schedule(
+                new ActionTimer(playerId, ActionTimer.Kind.SUSPEND_TIMEOUT, actionState),
+                System.currentTimeMillis() + retentionMillis);
+            suspendedActions.put(playerId, actionState);
+            journal.actionState(playerId, actionState);
+        }
+    }
+    
+    /**
+     * Resumes a suspended action on reconnect and credits the offline progress in one transaction.
+     * The cost is constant regardless of how long the player was away: experience is computed
+     * analytically and each drop's total is sampled from the binomial distribution, followed by
+     * a single inventory write per item.
+     * @param playerId The player ID
+     * @return The TickResult with the offline gains, or null if there was no suspended action
+     */
+    @Transactional
+    public TickResult resumeAction(String playerId) {
+        ActionState actionState = suspendedActions.remove(playerId);
+        if (actionState == null) {
+            return null;
+        }
+        timers.cancel(actionState.timer);
+        actionState.timer = null;
+        
+        long now = System.currentTimeMillis();
+        TickResult result = catchUpAction(playerId, actionState, now);
+        applyTickResults(List.of(result));
+        
+        if (actionState.endTime > 0 && now >= actionState.endTime) {
+            // Finished while the player was away
+            journal.actionEnded(playerId);
+            result.message = "Action completed while you were away";
+            return result;
+        }
+        if (actionState.endTime > 0) {
+            actionState.timer = timers.schedule(
+                new ActionTimer(playerId, ActionTimer.Kind.COMPLETE, actionState), actionState.endTime);
+        }
+        activeShard(playerId).putIfAbsent(playerId, actionState);
+        journal.actionState(playerId, actionState);
+        return result;
+    }
+    
+    /**
+     * Puts back an action recovered after a restart (from a snapshot or the journal) as suspended,
+     * so the time since it was last advanced is credited when the player reconnects.
+     * Actions whose suspend retention has already run out are dropped.
+     * @param playerId The player ID
+     * @param actionState The recovered action
+     * @return true if the action was restored
+     */
+    public boolean restoreSuspendedAction(String playerId, ActionState actionState) {
+        long expiresAt = actionState.lastTickTime + (long) (suspendRetentionHours * 3600 * 1000);
+        if (expiresAt <= System.currentTimeMillis() || activeShard(playerId).containsKey(playerId)) {
+            return false;
+        }
+        actionState.timer = timers.schedule(
+            new ActionTimer(playerId, ActionTimer.Kind.SUSPEND_TIMEOUT, actionState), expiresAt);
+        ActionState previous = suspendedActions.put(playerId, actionState);
+        if (previous != null) {
+            timers.cancel(previous.timer);
+        }
+        return true;
+    }
+    
+    /**
+     * Gets every active and suspended action, for checkpoints.
+     * @return Map of player ID to ActionState (the live objects; a snapshot of the membership only)
+     */
+    public Map<String, ActionState> getAllActions() {
+        Map<String, ActionState> all = new HashMap<>(suspendedActions);
+        for (Map<String, ActionState> shard : activeShards) {
+            all.putAll(shard);
+        }
+        return all;
+    }
+    
+    /**
+     * Computes the outcome of an action over a long period in closed form, without touching the database.
+     * @param playerId The player ID
+     * @param actionState The action to advance
+     * @param now The current time in milliseconds
+     * @return The TickResult covering the whole period
+     */
+    public TickResult catchUpAction(String playerId, ActionState actionState, long now) {
+        Action action = StaticActionData.getAction(actionState.actionId);
+        TickResult result = new TickResult(playerId, action.getSkillId());
+        
+        long maxCatchUpMillis = (long) (maxCatchUpHours * 3600 * 1000);
+        long until = actionState.endTime > 0 ? Math.min(now, actionState.endTime) : now;
+        long elapsedMillis = Math.min(Math.max(0, until - actionState.lastTickTime), maxCatchUpMillis);
+        double elapsedSeconds = elapsedMillis / 1000.0;
+        actionState.lastTickTime = Math.max(actionState.lastTickTime, until);
+        
+        // Experience is linear in time
+        actionState.pendingExperience += action.getExperiencePerSecond() * elapsedSeconds;
+        long experienceGained = (long) actionState.pendingExperience;
+        actionState.pendingExperience -= experienceGained;
+        result.experience = experienceGained;
+        
+        // Loot: one roll per whole second, resolved per drop as a binomial count
+        if (action.getLootTableId() != null && !action.getLootTableId().isBlank()) {
+            actionState.pendingSeconds += elapsedSeconds;
+            long lootRolls = (long) Math.floor(actionState.pendingSeconds);
+            actionState.pendingSeconds -= lootRolls;
+            long tick = rngService.getCurrentTick();
+            result.loot = lootEngine.rollAggregate(action.getLootTableId(), lootRolls,
+                rngService.forPlayer(playerId, tick, RngService.STREAM_CATCH_UP));
+        }
+        
+        return result;
     }
     
     /**
@@ -112,36 +435,39 @@ public class ActionService {
      * @return The ActionState, or null if no action is active
      */
     public ActionState getActiveAction(String playerId) {
-        return activeActions.get(playerId);
+        return activeShard(playerId).get(playerId);
+    }
+    
+    /**
+     * Gets the active action shards, for the game tick loop.
+     * @return Unmodifiable live views of the shards (playerId -> ActionState)
+     */
+    public List<Map<String, ActionState>> getActiveActionShards() {
+        return Collections.unmodifiableList(activeShardViews);
+    }
+    
+    /**
+     * Gets the number of currently active actions.
+     * @return The active action count
+     */
+    public int getActiveActionCount() {
+        int count = 0;
+        for (Map<String, ActionState> shard : activeShards) {
+            count += shard.size();
+        }
+        return count;
     }
     
     /**
      * Executes a loot table roll and adds items to player inventory.
      * @param playerId The player ID
      * @param lootTableId The loot table ID
-     * @return List of items that were dropped
+     * @return Summary of the items that were dropped
      */
     @Transactional
-    public List<Item> executeLootTable(String playerId, String lootTableId) {
-        LootTable lootTable = staticDataService.getLootTable(lootTableId);
-        List<Item> droppedItems = new ArrayList<>();
-        
-        for (LootDrop drop : lootTable.getDrops()) {
-            if (random.nextDouble() < drop.getChance()) {
-                // Roll successful, determine quantity
-                int quantity = drop.getMinQuantity() + 
-                    random.nextInt(drop.getMaxQuantity() - drop.getMinQuantity() + 1);
-                
-                // Add item to inventory
-                inventoryService.addItem(playerId, drop.getItemId(), quantity);
-                
-                // Add to return list
-                Item item = staticDataService.getItem(drop.getItemId());
-                droppedItems.add(item);
-            }
-        }
-        
-        return droppedItems;
+    public LootSummary executeLootTable(String playerId, String lootTableId) {
+        return lootEngine.rollAndGrant(playerId, lootTableId, 1,
+            rngService.forPlayer(playerId, RngService.STREAM_ACTION));
     }
     
     /**
@@ -149,12 +475,12 @@ public class ActionService {
      * @param playerId The player ID
      * @param locationId The location/mine ID
      * @param lootTableId The loot table for this location
-     * @return List of items obtained
+     * @return Summary of the items obtained
      */
     @Transactional
-    public List<Item> executeMiningAction(String playerId, String locationId, String lootTableId) {
+    public LootSummary executeMiningAction(String playerId, String locationId, String lootTableId) {
         // Execute the loot table
-        List<Item> items = executeLootTable(playerId, lootTableId);
+        LootSummary items = executeLootTable(playerId, lootTableId);
         
         // Grant experience (simplified - in real game, use skill-specific experience)
         playerService.addExperience(playerId, "mining", 10);
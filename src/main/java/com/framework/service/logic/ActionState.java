@@ -1,5 +1,7 @@
 package com.framework.service.logic;
 
+import com.framework.service.core.TimingWheel;
+
 /**
  * Represents the state of an active action for a player.
  */
@@ -7,10 +9,23 @@ public class ActionState {
     public final String actionId;
     public final String instanceId;
     public final long startTime;
-    
+    public long endTime; // When a finite action completes, 0 for continuous actions
+    public TimingWheel.Timeout<ActionTimer> timer; // Pending completion or suspend timeout, if any
+
+    // Tick bookkeeping (only touched by the game tick thread)
+    public long lastTickTime; // When this action was last advanced by a tick
+    public double pendingSeconds; // Fractional seconds not yet turned into loot rolls
+    public double pendingExperience; // Fractional experience not yet granted
+
     public ActionState(String actionId, String instanceId) {
+        this(actionId, instanceId, System.currentTimeMillis());
+    }
+
+    // Restores an action that started earlier (journal replay, snapshots)
+    public ActionState(String actionId, String instanceId, long startTime) {
         this.actionId = actionId;
         this.instanceId = instanceId;
-        this.startTime = System.currentTimeMillis();
+        this.startTime = startTime;
+        this.lastTickTime = startTime;
     }
 }
@@ -0,0 +1,22 @@
+package com.framework.service.logic;
+
+/**
+ * A timed event for a player's action, held in ActionService's timing wheel.
+ */
+public class ActionTimer {
+    
+    public enum Kind {
+        COMPLETE, // A finite action reached its duration
+        SUSPEND_TIMEOUT // A disconnected player's suspended action is discarded
+    }
+    
+    public final String playerId;
+    public final Kind kind;
+    public final ActionState actionState; // The action this timer belongs to
+    
+    public ActionTimer(String playerId, Kind kind, ActionState actionState) {
+        this.playerId = playerId;
+        this.kind = kind;
+        this.actionState = actionState;
+    }
+}
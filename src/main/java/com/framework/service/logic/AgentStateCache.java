@@ -0,0 +1,245 @@
+package com.framework.service.logic;
+
+import com.framework.data.entity.AgentStateEntity;
+import com.framework.service.repos.AgentStateRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Read-through cache of agent states (location, health, ...), which online players read far more
+ * often than they change. Entries are evicted least-recently-used once the cache is full, and
+ * expire after a TTL so changes made outside this service are picked up eventually.
+ * Writers keep it current: either by updating the cached copy after their write (update) or by
+ * dropping it (invalidate). The cache holds detached copies and hands out copies, so callers
+ * may modify what they get without affecting the cache or the database.
+ * The counters are published as metrics: game.agent.state.cache.gets (tagged result=hit/miss),
+ * game.agent.state.cache.evictions (tagged cause=size/expired) and the game.agent.state.cache.size gauge.
+ */
+@ApplicationScoped
+public class AgentStateCache {
+
+    @Inject
+    AgentStateRepository agentStateRepository;
+
+    @Inject
+    MeterRegistry registry;
+
+    // Max number of cached agent states; the least recently used one is evicted beyond this
+    @ConfigProperty(name = "game.agent-state-cache.max-size", defaultValue = "10000")
+    int maxSize;
+
+    // How long an entry is served before it is read again
+    @ConfigProperty(name = "game.agent-state-cache.ttl-seconds", defaultValue = "300")
+    long ttlSeconds;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private long writes; // Counts put/update/invalidate, so a load can tell a write raced with it (guarded by entries)
+
+    // Access-ordered, so the eldest entry is the least recently used (guarded by itself)
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() > maxSize) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    @PostConstruct
+    void registerMetrics() {
+        FunctionCounter.builder("game.agent.state.cache.gets", hits, LongAdder::sum)
+            .tag("result", "hit")
+            .description("Agent state reads served from the cache")
+            .register(registry);
+        FunctionCounter.builder("game.agent.state.cache.gets", misses, LongAdder::sum)
+            .tag("result", "miss")
+            .description("Agent state reads that went to the database")
+            .register(registry);
+        FunctionCounter.builder("game.agent.state.cache.evictions", evictions, LongAdder::sum)
+            .tag("cause", "size")
+            .description("Entries evicted as least recently used or expired")
+            .register(registry);
+        FunctionCounter.builder("game.agent.state.cache.evictions", expirations, LongAdder::sum)
+            .tag("cause", "expired")
+            .description("Entries evicted as least recently used or expired")
+            .register(registry);
+        Gauge.builder("game.agent.state.cache.size", this, AgentStateCache::size)
+            .description("Cached agent states")
+            .register(registry);
+    }
+
+    private static final class Entry {
+        final AgentStateEntity state;
+        final long expiresAt;
+
+        Entry(AgentStateEntity state, long expiresAt) {
+            this.state = state;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Gets a player's agent state, loading it on a miss.
+     * The loaded state is only cached if no entry appeared and no write went through the cache while it was
+     * read, since the read may predate that write.
+     * @param playerId The player ID
+     * @return A copy of the agent state, or null if the player has none
+     */
+    public AgentStateEntity get(String playerId) {
+        AgentStateEntity cached = getIfPresent(playerId);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        long writesBefore;
+        synchronized (entries) {
+            writesBefore = writes;
+        }
+        AgentStateEntity loaded = QuarkusTransaction.joiningExisting().call(() -> agentStateRepository.findById(playerId));
+        if (loaded == null) {
+            return null; // Absence is not cached; the state is created on first use
+        }
+        AgentStateEntity copy = copyOf(loaded);
+        synchronized (entries) {
+            Entry existing = entries.get(playerId);
+            if (existing != null && !isExpired(existing)) {
+                return copyOf(existing.state); // Written through (or filled) meanwhile, so newer than this read
+            }
+            if (writes == writesBefore) {
+                entries.put(playerId, newEntry(copy));
+            }
+        }
+        return copyOf(copy);
+    }
+
+    /**
+     * Stores an agent state that was just read or written, unless one is cached already
+     * (an entry written through by a newer change must not be replaced by an older read).
+     * @param agentState The agent state (copied)
+     */
+    public void fill(AgentStateEntity agentState) {
+        AgentStateEntity copy = copyOf(agentState);
+        synchronized (entries) {
+            Entry existing = entries.get(agentState.id);
+            if (existing == null || isExpired(existing)) {
+                entries.put(agentState.id, newEntry(copy));
+            }
+        }
+    }
+
+    /**
+     * Stores an agent state after the caller has written it, replacing any cached entry.
+     * @param agentState The agent state as written (copied)
+     */
+    public void put(AgentStateEntity agentState) {
+        AgentStateEntity copy = copyOf(agentState);
+        synchronized (entries) {
+            writes++;
+            entries.put(agentState.id, newEntry(copy));
+        }
+    }
+
+    /**
+     * Applies a change the caller has written to the database to the cached entry, if there is one.
+     * @param playerId The player ID
+     * @param change Modifies the cached agent state
+     */
+    public void update(String playerId, Consumer<AgentStateEntity> change) {
+        synchronized (entries) {
+            writes++;
+            Entry entry = entries.get(playerId);
+            if (entry != null) {
+                change.accept(entry.state);
+            }
+        }
+    }
+
+    /**
+     * Drops a player's cached agent state, e.g. after a write whose result is not known.
+     * @param playerId The player ID
+     */
+    public void invalidate(String playerId) {
+        synchronized (entries) {
+            writes++;
+            entries.remove(playerId);
+        }
+    }
+
+    /**
+     * Gets the hit/miss/eviction counters.
+     * @return Map of metric name to value
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        stats.put("size", size());
+        stats.put("maxSize", maxSize);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("evictions", evictions.sum());
+        stats.put("expirations", expirations.sum());
+        return stats;
+    }
+
+    /**
+     * Gets the number of cached agent states (including expired ones not yet removed).
+     * @return The cache size
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private AgentStateEntity getIfPresent(String playerId) {
+        synchronized (entries) {
+            Entry entry = entries.get(playerId);
+            if (entry == null) {
+                return null;
+            }
+            if (isExpired(entry)) {
+                entries.remove(playerId);
+                expirations.increment();
+                return null;
+            }
+            return copyOf(entry.state);
+        }
+    }
+
+    private Entry newEntry(AgentStateEntity state) {
+        return new Entry(state, System.nanoTime() + TimeUnit.SECONDS.toNanos(ttlSeconds));
+    }
+
+    private static boolean isExpired(Entry entry) {
+        return System.nanoTime() - entry.expiresAt > 0;
+    }
+
+    private static AgentStateEntity copyOf(AgentStateEntity source) {
+        AgentStateEntity copy = new AgentStateEntity(source.id, source.agentType, source.currentLocation);
+        copy.health = source.health;
+        copy.maxHealth = source.maxHealth;
+        copy.mana = source.mana;
+        copy.maxMana = source.maxMana;
+        copy.stateData = source.stateData == null ? null : source.stateData.clone();
+        return copy;
+    }
+}
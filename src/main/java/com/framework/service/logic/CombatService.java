@@ -3,7 +3,6 @@ package com.framework.service.logic;
 import com.framework.data.entity.PlayerEntity;
 import com.framework.data.model.Item;
 import com.framework.service.core.StaticDataService;
-import com.framework.service.repos.PlayerItemRepository;
 import com.framework.service.repos.PlayerRepository;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -20,7 +19,7 @@ public class CombatService {
     PlayerRepository playerRepository;
     
     @Inject
-    PlayerItemRepository playerItemRepository;
+    InventoryService inventoryService;
     
     @Inject
     StaticDataService staticDataService;
@@ -32,7 +31,7 @@ public class CombatService {
      */
     public int calculateAttackBonus(String playerId) {
         List<com.framework.data.entity.PlayerItemEntity> equipped = 
-            playerItemRepository.findEquippedByOwnerId(playerId);
+            inventoryService.getEquippedItems(playerId);
         
         int totalAttack = 0;
         for (com.framework.data.entity.PlayerItemEntity itemEntity : equipped) {
@@ -59,7 +58,7 @@ public class CombatService {
      */
     public int calculateDefenseBonus(String playerId) {
         List<com.framework.data.entity.PlayerItemEntity> equipped = 
-            playerItemRepository.findEquippedByOwnerId(playerId);
+            inventoryService.getEquippedItems(playerId);
         
         int totalDefense = 0;
         for (com.framework.data.entity.PlayerItemEntity itemEntity : equipped) {
@@ -0,0 +1,60 @@
+package com.framework.service.logic;
+
+import com.framework.service.core.DbCostTracker;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.Optional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Publishes the per-message and per-tick-phase database cost collected by DbCostTracker as metrics,
+ * tagged with the scope name (e.g. scope="ws.START_ACTION"):
+ * game.db.invocations, game.db.statements, game.db.rows, game.db.time (seconds spent in JDBC)
+ * and game.db.over.budget.
+ */
+@ApplicationScoped
+public class DbCostMetrics {
+
+    @Inject
+    MeterRegistry registry;
+
+    // Statement budgets per scope, e.g. "ws.START_ACTION=4,tick.PERSIST=20"; invocations over budget are counted
+    @ConfigProperty(name = "game.db-cost.budgets")
+    Optional<String> budgets;
+
+    /**
+     * Applies the configured budgets and registers the metrics of every scope, including ones seen later.
+     * @throws IllegalArgumentException If the budget list is malformed
+     */
+    public void start() {
+        DbCostTracker.setBudgets(budgets.orElse(null));
+        DbCostTracker.onNewStats(this::register);
+    }
+
+    private void register(DbCostTracker.Stats stats) {
+        String scope = stats.getName();
+        FunctionCounter.builder("game.db.invocations", stats, DbCostTracker.Stats::getInvocations)
+            .tag("scope", scope)
+            .description("Units of work (messages, tick phases) that ran")
+            .register(registry);
+        FunctionCounter.builder("game.db.statements", stats, DbCostTracker.Stats::getStatements)
+            .tag("scope", scope)
+            .description("JDBC statements executed (a batch counts once)")
+            .register(registry);
+        FunctionCounter.builder("game.db.rows", stats, DbCostTracker.Stats::getRows)
+            .tag("scope", scope)
+            .description("Rows fetched from result sets")
+            .register(registry);
+        FunctionCounter.builder("game.db.time", stats, DbCostTracker.Stats::getJdbcSeconds)
+            .tag("scope", scope)
+            .baseUnit("seconds")
+            .description("Time spent executing statements and fetching rows")
+            .register(registry);
+        FunctionCounter.builder("game.db.over.budget", stats, DbCostTracker.Stats::getOverBudget)
+            .tag("scope", scope)
+            .description("Units of work that executed more statements than their budget")
+            .register(registry);
+    }
+}
@@ -0,0 +1,422 @@
+package com.framework.service.logic;
+
+import com.framework.data.entity.PlayerItemEntity;
+import com.framework.service.core.Journal;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Journal of the game state that lives only in memory: running actions, cached experience and
+ * loaded inventories. Every change is appended as a record holding the resulting absolute state
+ * (not a delta), so replaying a record that was already checkpointed is harmless. Inventories record
+ * only the items that changed (each with its absolute state); the first record of an inventory after
+ * each checkpoint rotation is a full image, so the older segments can be deleted.
+ * Appends are cheap (a copy into a memory-mapped segment); records become durable with the next
+ * group commit, which sync() and syncOwn() wait for. See GameStateCheckpointer for replay and checkpoints.
+ * When game.journal.enabled is false every method does nothing.
+ */
+@ApplicationScoped
+public class GameJournal {
+    private static final byte ACTION_STATE = 1;
+    private static final byte ACTION_ENDED = 2;
+    private static final byte EXPERIENCE = 3;
+    private static final byte INVENTORY = 4; // Full image without journal keys (written by earlier versions)
+    private static final byte INVENTORY_RELEASED = 5;
+    private static final byte INVENTORY_IMAGE = 6;
+    private static final byte INVENTORY_CHANGES = 7;
+
+    @ConfigProperty(name = "game.journal.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "game.journal.directory", defaultValue = "data/journal")
+    String directory;
+
+    @ConfigProperty(name = "game.journal.segment-size-mb", defaultValue = "64")
+    int segmentSizeMb;
+
+    // Max time a record waits for its fsync; one fsync covers everything appended in between
+    @ConfigProperty(name = "game.journal.commit-interval-millis", defaultValue = "10")
+    long commitIntervalMillis;
+
+    private final ThreadLocal<ByteBuffer> buffers = ThreadLocal.withInitial(() -> ByteBuffer.allocate(4096));
+    private volatile Journal journal; // Set once open() has run
+    private final AtomicLong lastLsn = new AtomicLong(); // End of the latest record appended by any thread
+    private final ThreadLocal<long[]> threadLsn = ThreadLocal.withInitial(() -> new long[1]); // Same, per thread
+    private volatile long epoch; // Incremented by every rotate()
+
+    /**
+     * Receives the records of a replay, oldest first.
+     */
+    public interface Replayer {
+        void actionState(String playerId, ActionState state);
+        void actionEnded(String playerId);
+        void experience(String playerId, long timestamp, String skillId, long skillExperience, long totalExperience);
+        /** A full image of an inventory: items by journal key. */
+        void inventory(String playerId, long timestamp, Map<Integer, PlayerItemEntity> items);
+        /** Items changed (by journal key) and removed since the previous inventory record of the player. */
+        void inventoryChanged(String playerId, long timestamp, Map<Integer, PlayerItemEntity> changed, List<Integer> removedKeys);
+        void inventoryReleased(String playerId);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Replays the existing journal segments. Must be called before open().
+     * @param replayer Receives the records
+     * @return The number of records replayed
+     */
+    public int replay(Replayer replayer) {
+        if (!enabled) {
+            return 0;
+        }
+        int[] count = new int[1];
+        try {
+            createJournal().replay(record -> {
+                decode(record, replayer);
+                count[0]++;
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to replay journal", e);
+        }
+        return count[0];
+    }
+
+    /**
+     * Opens a fresh segment for appending.
+     */
+    public synchronized void open() {
+        if (!enabled || journal != null) {
+            return;
+        }
+        Journal opened = createJournal();
+        try {
+            opened.open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open journal in " + directory, e);
+        }
+        journal = opened;
+        System.out.println("Journal opened in " + Path.of(directory).toAbsolutePath());
+    }
+
+    /**
+     * Records a started, resumed or suspended action (its full state).
+     * @param playerId The player ID
+     * @param state The action state
+     */
+    public void actionState(String playerId, ActionState state) {
+        if (journal == null) {
+            return;
+        }
+        ByteBuffer buffer = begin(ACTION_STATE, playerId, 64);
+        buffer = putString(buffer, state.actionId);
+        buffer = putString(buffer, state.instanceId);
+        buffer = ensure(buffer, 48);
+        buffer.putLong(state.startTime);
+        buffer.putLong(state.endTime);
+        buffer.putLong(state.lastTickTime);
+        buffer.putDouble(state.pendingSeconds);
+        buffer.putDouble(state.pendingExperience);
+        append(buffer);
+    }
+
+    /**
+     * Records that a player no longer has an action (stopped, completed or expired).
+     * @param playerId The player ID
+     */
+    public void actionEnded(String playerId) {
+        if (journal == null) {
+            return;
+        }
+        append(begin(ACTION_ENDED, playerId, 0));
+    }
+
+    /**
+     * Records a player's experience after a gain.
+     * @param playerId The player ID
+     * @param skillId The skill that gained experience (may be null)
+     * @param skillExperience The player's total experience in that skill
+     * @param totalExperience The player's total experience over all skills
+     */
+    public void experience(String playerId, String skillId, long skillExperience, long totalExperience) {
+        if (journal == null) {
+            return;
+        }
+        ByteBuffer buffer = begin(EXPERIENCE, playerId, 32);
+        buffer.putLong(System.currentTimeMillis());
+        buffer = putString(buffer, skillId);
+        buffer = ensure(buffer, 16);
+        buffer.putLong(skillExperience);
+        buffer.putLong(totalExperience);
+        append(buffer);
+    }
+
+    /**
+     * Records the items of a loaded inventory that changed since its previous record (a full image the
+     * first time in each epoch). Call after the change, without holding the inventory's lock: the changed
+     * items are copied under it, but encoded outside it.
+     * @param inventory The inventory (items not written yet are recorded without an ID)
+     */
+    public void inventory(PlayerInventory inventory) {
+        if (journal == null) {
+            return;
+        }
+        synchronized (inventory.journalLock) {
+            PlayerInventory.JournalChanges changes = inventory.takeJournalChanges(epoch);
+            if (changes == null) {
+                return;
+            }
+            ByteBuffer buffer = begin(changes.full ? INVENTORY_IMAGE : INVENTORY_CHANGES, inventory.getPlayerId(), 16);
+            buffer.putLong(System.currentTimeMillis());
+            buffer.putInt(changes.items.size());
+            for (int i = 0; i < changes.items.size(); i++) {
+                PlayerItemEntity item = changes.items.get(i);
+                buffer = ensure(buffer, 12);
+                buffer.putInt(changes.keys.get(i));
+                buffer.putLong(item.id == null ? -1 : item.id);
+                buffer = putString(buffer, item.itemId);
+                buffer = putString(buffer, item.slot);
+                buffer = ensure(buffer, 9);
+                buffer.putInt(item.quantity);
+                buffer.putFloat(item.currentDurability == null ? Float.NaN : item.currentDurability);
+                buffer.put((byte) (item.stackable ? 1 : 0));
+            }
+            buffer = ensure(buffer, 4 + 4 * changes.removedKeys.size());
+            buffer.putInt(changes.removedKeys.size());
+            for (int key : changes.removedKeys) {
+                buffer.putInt(key);
+            }
+            append(buffer);
+        }
+    }
+
+    /**
+     * Records that an inventory was written to the database and unloaded, so earlier records must not
+     * be replayed over later database changes. Call after closing the inventory.
+     * @param inventory The unloaded inventory
+     */
+    public void inventoryReleased(PlayerInventory inventory) {
+        if (journal == null) {
+            return;
+        }
+        // Under the journal lock, so no record of the inventory taken before the release is appended after it
+        synchronized (inventory.journalLock) {
+            append(begin(INVENTORY_RELEASED, inventory.getPlayerId(), 0));
+        }
+    }
+
+    /**
+     * Waits until every record appended so far (by any thread) is on disk.
+     */
+    public void sync() {
+        await(lastLsn.get());
+    }
+
+    /**
+     * Waits until every record appended so far by the current thread is on disk, e.g. before replying
+     * to the command that made the changes. Returns at once if the thread appended nothing new.
+     */
+    public void syncOwn() {
+        await(threadLsn.get()[0]);
+    }
+
+    /**
+     * Starts a new segment and a new epoch; records in the older segments can be deleted once checkpointed.
+     * @return The index of the new segment, or -1 if the journal is not open
+     */
+    public long rotate() {
+        Journal current = journal;
+        if (current == null) {
+            return -1;
+        }
+        epoch++; // Only the checkpointer rotates
+        return current.rotate();
+    }
+
+    /**
+     * Deletes the segments older than the given one.
+     * @param firstKept The segment index returned by rotate()
+     */
+    public void deleteSegmentsBefore(long firstKept) {
+        Journal current = journal;
+        if (current != null && firstKept >= 0) {
+            current.deleteSegmentsBefore(firstKept);
+        }
+    }
+
+    /**
+     * Forces everything to disk and closes the journal.
+     */
+    public synchronized void close() {
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+    }
+
+    private Journal createJournal() {
+        return new Journal(Path.of(directory), segmentSizeMb * 1024 * 1024, commitIntervalMillis);
+    }
+
+    private void await(long lsn) {
+        Journal current = journal;
+        if (current == null || lsn == 0) {
+            return;
+        }
+        try {
+            current.awaitDurable(lsn);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void append(ByteBuffer buffer) {
+        Journal current = journal;
+        if (current != null) {
+            buffer.flip();
+            long lsn = current.append(buffer);
+            lastLsn.accumulateAndGet(lsn, Math::max);
+            threadLsn.get()[0] = lsn;
+        }
+    }
+
+    private ByteBuffer begin(byte type, String playerId, int bodyBytes) {
+        ByteBuffer buffer = buffers.get();
+        buffer.clear();
+        buffer.put(type);
+        buffer = putString(buffer, playerId);
+        return ensure(buffer, bodyBytes);
+    }
+
+    // Grows the thread's buffer if fewer than the given number of bytes are left
+    private ByteBuffer ensure(ByteBuffer buffer, int bytes) {
+        if (buffer.remaining() >= bytes) {
+            return buffer;
+        }
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+        buffer.flip();
+        larger.put(buffer);
+        buffers.set(larger);
+        return larger;
+    }
+
+    // Encodes UTF-8 straight into the buffer, so records on the tick path do not allocate
+    private ByteBuffer putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer = ensure(buffer, 2);
+            buffer.putShort((short) -1);
+            return buffer;
+        }
+        buffer = ensure(buffer, 2 + 3 * value.length()); // At most 3 bytes per UTF-16 char
+        int lengthAt = buffer.position();
+        buffer.putShort((short) 0);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | c >> 6));
+                buffer.put((byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer.put((byte) (0xF0 | codePoint >> 18));
+                buffer.put((byte) (0x80 | codePoint >> 12 & 0x3F));
+                buffer.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+                buffer.put((byte) (0x80 | codePoint & 0x3F));
+            } else {
+                buffer.put((byte) (0xE0 | c >> 12));
+                buffer.put((byte) (0x80 | c >> 6 & 0x3F));
+                buffer.put((byte) (0x80 | c & 0x3F));
+            }
+        }
+        buffer.putShort(lengthAt, (short) (buffer.position() - lengthAt - 2));
+        return buffer;
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static PlayerItemEntity getItem(ByteBuffer record, String playerId) {
+        long id = record.getLong();
+        String itemId = getString(record);
+        String slot = getString(record);
+        PlayerItemEntity item = new PlayerItemEntity(playerId, itemId, record.getInt());
+        item.id = id < 0 ? null : id;
+        item.slot = slot;
+        float durability = record.getFloat();
+        item.currentDurability = Float.isNaN(durability) ? null : durability;
+        item.stackable = record.get() == 1;
+        return item;
+    }
+
+    private static void decode(ByteBuffer record, Replayer replayer) {
+        byte type = record.get();
+        String playerId = getString(record);
+        switch (type) {
+            case ACTION_STATE -> {
+                String actionId = getString(record);
+                String instanceId = getString(record);
+                ActionState state = new ActionState(actionId, instanceId, record.getLong());
+                state.endTime = record.getLong();
+                state.lastTickTime = record.getLong();
+                state.pendingSeconds = record.getDouble();
+                state.pendingExperience = record.getDouble();
+                replayer.actionState(playerId, state);
+            }
+            case ACTION_ENDED -> replayer.actionEnded(playerId);
+            case EXPERIENCE -> {
+                long timestamp = record.getLong();
+                String skillId = getString(record);
+                replayer.experience(playerId, timestamp, skillId, record.getLong(), record.getLong());
+            }
+            case INVENTORY -> {
+                long timestamp = record.getLong();
+                int count = record.getInt();
+                Map<Integer, PlayerItemEntity> items = new LinkedHashMap<>();
+                for (int i = 0; i < count; i++) {
+                    items.put(i, getItem(record, playerId));
+                }
+                replayer.inventory(playerId, timestamp, items);
+            }
+            case INVENTORY_IMAGE, INVENTORY_CHANGES -> {
+                long timestamp = record.getLong();
+                int count = record.getInt();
+                Map<Integer, PlayerItemEntity> items = new LinkedHashMap<>();
+                for (int i = 0; i < count; i++) {
+                    int key = record.getInt();
+                    items.put(key, getItem(record, playerId));
+                }
+                int removedCount = record.getInt();
+                List<Integer> removedKeys = new ArrayList<>(removedCount);
+                for (int i = 0; i < removedCount; i++) {
+                    removedKeys.add(record.getInt());
+                }
+                if (type == INVENTORY_IMAGE) {
+                    replayer.inventory(playerId, timestamp, items);
+                } else {
+                    replayer.inventoryChanged(playerId, timestamp, items, removedKeys);
+                }
+            }
+            case INVENTORY_RELEASED -> replayer.inventoryReleased(playerId);
+            default -> System.err.println("Journal: skipping record of unknown type " + type);
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.framework.service.logic;
+
+import com.framework.data.entity.PlayerItemEntity;
+import com.framework.service.core.StateDataCodec;
+import com.framework.service.repos.AgentStateRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Recovers the in-memory game state after a restart and keeps the journal short.
+ *
+ * A checkpoint starts a new journal segment, writes everything the caches hold (experience and
+ * inventories) and a snapshot of every running action into AgentStateEntity.stateData, and then
+ * deletes the older segments. Recovery loads the last action snapshot, replays the journal on top
+ * (every record holds absolute state, so records that were already checkpointed replay harmlessly),
+ * puts the result back and takes a checkpoint.
+ * Recovered actions are restored as suspended: the players are offline after a restart, and the
+ * time since the action was last advanced is credited when they reconnect.
+ */
+@ApplicationScoped
+public class GameStateCheckpointer {
+
+    @Inject
+    GameJournal journal;
+
+    @Inject
+    ActionService actionService;
+
+    @Inject
+    PlayerExperienceCache experienceCache;
+
+    @Inject
+    PlayerInventoryCache inventoryCache;
+
+    @Inject
+    AgentStateRepository agentStateRepository;
+    
+    @Inject
+    AgentStateCache agentStateCache;
+
+    // How often the caches are written and the journal is truncated
+    @ConfigProperty(name = "game.journal.checkpoint-interval-seconds", defaultValue = "60")
+    long checkpointIntervalSeconds;
+
+    private final ScheduledExecutorService checkpointer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "journal-checkpoint");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Object checkpointLock = new Object();
+    private Set<String> snapshotPlayers = new HashSet<>(); // Players with an action in the last snapshot
+
+    /**
+     * Recovers the state left by the previous run, opens the journal and starts periodic checkpoints.
+     * Must run at startup before the game loop and before any player connects.
+     */
+    public void recover() {
+        if (!journal.isEnabled()) {
+            return;
+        }
+        Recovery recovery = new Recovery();
+        Map<String, byte[]> stateData = agentStateRepository.findAllStateData();
+        for (Map.Entry<String, byte[]> agent : stateData.entrySet()) {
+            ActionState action = readAction(agent.getValue());
+            if (action != null) {
+                recovery.actions.put(agent.getKey(), action);
+            }
+        }
+        snapshotPlayers = new HashSet<>(recovery.actions.keySet());
+        int records = journal.replay(recovery);
+
+        int actions = 0;
+        for (Map.Entry<String, ActionState> action : recovery.actions.entrySet()) {
+            ActionState state = action.getValue();
+            if (state == null) {
+                continue;
+            }
+            // Experience journaled after the action's last record was already credited (ticks do not journal
+            // the action itself), so do not credit that time again on reconnect
+            state.lastTickTime = Math.max(state.lastTickTime, recovery.lastActivity.getOrDefault(action.getKey(), 0L));
+            if (actionService.restoreSuspendedAction(action.getKey(), state)) {
+                actions++;
+            }
+        }
+        experienceCache.restore(recovery.totalExperience, recovery.skillExperience);
+        Map<String, List<PlayerItemEntity>> inventories = new HashMap<>();
+        recovery.inventories.forEach((playerId, items) -> {
+            if (items != null) {
+                inventories.put(playerId, new ArrayList<>(items.values()));
+            }
+        });
+        inventoryCache.restore(inventories);
+        System.out.println("Recovered game state: " + records + " journal records, " + actions + " actions, "
+            + recovery.totalExperience.size() + " players' experience, " + inventories.size() + " inventories");
+
+        journal.open();
+        checkpoint();
+        checkpointer.scheduleWithFixedDelay(() -> {
+            try {
+                checkpoint();
+            } catch (Exception e) {
+                System.err.println("Error taking checkpoint: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }, checkpointIntervalSeconds, checkpointIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Writes everything the journal protects and deletes the journal segments that are no longer needed.
+     * If any write fails the old segments are kept and the next checkpoint tries again.
+     */
+    public void checkpoint() {
+        if (!journal.isEnabled()) {
+            return;
+        }
+        synchronized (checkpointLock) {
+            long firstKept = journal.rotate();
+            // Everything journaled before the rotation is in memory now, so these writes cover it
+            experienceCache.flush();
+            inventoryCache.flush();
+            writeActionSnapshot();
+            journal.deleteSegmentsBefore(firstKept);
+        }
+    }
+
+    /**
+     * Stops periodic checkpoints, takes a final one and closes the journal (called on shutdown).
+     */
+    public void shutdown() {
+        checkpointer.shutdown();
+        try {
+            checkpoint();
+        } finally {
+            journal.close();
+        }
+    }
+
+    @Transactional
+    void writeActionSnapshot() {
+        Map<String, ActionState> actions = actionService.getAllActions();
+        Map<String, byte[]> stateData = new HashMap<>();
+        for (Map.Entry<String, ActionState> action : actions.entrySet()) {
+            stateData.put(action.getKey(), writeAction(action.getValue()));
+        }
+        for (String playerId : snapshotPlayers) {
+            if (!actions.containsKey(playerId)) {
+                stateData.put(playerId, null); // Action ended since the last snapshot
+            }
+        }
+        agentStateRepository.saveStateDataBatch(stateData);
+        stateData.forEach((playerId, data) -> agentStateCache.update(playerId, agentState -> agentState.stateData = data));
+        snapshotPlayers = new HashSet<>(actions.keySet());
+    }
+
+    private byte[] writeAction(ActionState state) {
+        return new StateDataCodec.Writer()
+            .beginObject("action")
+            .putString("actionId", state.actionId)
+            .putString("instanceId", state.instanceId)
+            .putLong("startTime", state.startTime)
+            .putLong("endTime", state.endTime)
+            .putLong("lastTickTime", state.lastTickTime)
+            .putDouble("pendingSeconds", state.pendingSeconds)
+            .putDouble("pendingExperience", state.pendingExperience)
+            .endObject()
+            .toByteArray();
+    }
+
+    // Only the action is decoded; other state (buffs, cooldowns) is skipped over
+    @SuppressWarnings("unchecked")
+    private ActionState readAction(byte[] stateData) {
+        try {
+            Map<String, Object> action = (Map<String, Object>) StateDataCodec.find(stateData, "action");
+            if (action == null) {
+                return null;
+            }
+            ActionState state = new ActionState((String) action.get("actionId"), (String) action.get("instanceId"),
+                (Long) action.get("startTime"));
+            state.endTime = (Long) action.get("endTime");
+            state.lastTickTime = (Long) action.get("lastTickTime");
+            state.pendingSeconds = (Double) action.get("pendingSeconds");
+            state.pendingExperience = (Double) action.get("pendingExperience");
+            return state;
+        } catch (Exception e) {
+            System.err.println("Skipping unreadable action snapshot: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Folds the replayed records into the latest state per player (a null value means removed)
+    private static final class Recovery implements GameJournal.Replayer {
+        final Map<String, ActionState> actions = new HashMap<>();
+        final Map<String, Long> lastActivity = new HashMap<>(); // Time of the last experience gain
+        final Map<String, Long> totalExperience = new HashMap<>();
+        final Map<String, Map<String, Long>> skillExperience = new HashMap<>();
+        final Map<String, Map<Integer, PlayerItemEntity>> inventories = new HashMap<>(); // Items by journal key
+
+        @Override
+        public void actionState(String playerId, ActionState state) {
+            actions.put(playerId, state);
+        }
+
+        @Override
+        public void actionEnded(String playerId) {
+            actions.put(playerId, null);
+        }
+
+        @Override
+        public void experience(String playerId, long timestamp, String skillId, long skillExperience, long totalExperience) {
+            lastActivity.merge(playerId, timestamp, Math::max);
+            this.totalExperience.merge(playerId, totalExperience, Math::max);
+            if (skillId != null) {
+                this.skillExperience.computeIfAbsent(playerId, id -> new HashMap<>()).merge(skillId, skillExperience, Math::max);
+            }
+        }
+
+        @Override
+        public void inventory(String playerId, long timestamp, Map<Integer, PlayerItemEntity> items) {
+            inventories.put(playerId, new LinkedHashMap<>(items));
+        }
+
+        @Override
+        public void inventoryChanged(String playerId, long timestamp, Map<Integer, PlayerItemEntity> changed,
+                                     List<Integer> removedKeys) {
+            Map<Integer, PlayerItemEntity> items = inventories.get(playerId);
+            if (items == null) {
+                // No image before it: the image was in a segment deleted by a checkpoint, which wrote these
+                // changes to the database as well (or the inventory was released since)
+                return;
+            }
+            items.putAll(changed);
+            removedKeys.forEach(items::remove);
+        }
+
+        @Override
+        public void inventoryReleased(String playerId) {
+            inventories.put(playerId, null);
+        }
+    }
+}
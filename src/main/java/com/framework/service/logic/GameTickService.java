@@ -1,143 +1,457 @@
 package com.framework.service.logic;
 
 import com.framework.api.GameWebSocket;
-import com.framework.data.entity.PlayerEntity;
-import com.framework.data.entity.PlayerItemEntity;
+import com.framework.data.staticdata.StaticSkillData;
+import com.framework.service.core.DbCostTracker;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 /**
  * Service for managing game ticks and sending delta updates to players.
+ * Each tick runs as a three-stage pipeline connected by bounded queues: simulation on the simulation
+ * workers (sharded by player, with work stealing), batched database writes on the persist threads and
+ * STATE_DELTA fan-out on the broadcast threads.
+ * A slow database or a slow client therefore only backs up its own stage, not the tick.
  */
 @ApplicationScoped
 public class GameTickService {
     
+    // Players simulated by one task before it stops splitting; small enough that heavy players get stolen
+    private static final int SIMULATION_LEAF_SIZE = 64;
+    
     @Inject
     ActionService actionService;
     
     @Inject
-    PlayerService playerService;
+    GameWebSocket gameWebSocket;
     
     @Inject
-    InventoryService inventoryService;
+    RngService rngService;
     
     @Inject
-    GameWebSocket gameWebSocket;
+    GameJournal journal;
+    
+    // Max number of players persisted per transaction during a tick
+    @ConfigProperty(name = "game.tick.batch-size", defaultValue = "500")
+    int batchSize;
+    
+    // Max number of action timers (completions, timeouts) handled per tick
+    @ConfigProperty(name = "game.timers.drain-batch-size", defaultValue = "10000")
+    int timerBatchSize;
+    
+    // Threads writing tick results to the database (results are partitioned by player)
+    @ConfigProperty(name = "game.tick.persist-threads", defaultValue = "1")
+    int persistThreads;
+    
+    // Ticks each writer may have queued before the simulation starts merging ticks
+    @ConfigProperty(name = "game.tick.persist-queue-depth", defaultValue = "4")
+    int persistQueueDepth;
+    
+    // Attempts to persist a player's tick result before it is dropped (and logged)
+    @ConfigProperty(name = "game.tick.persist-max-attempts", defaultValue = "5")
+    int persistMaxAttempts;
+    
+    // Threads sending STATE_DELTA messages
+    @ConfigProperty(name = "game.tick.broadcast-threads", defaultValue = "4")
+    int broadcastThreads;
+    
+    // Deltas each broadcaster may have queued before new ones are dropped
+    @ConfigProperty(name = "game.tick.broadcast-queue-depth", defaultValue = "10000")
+    int broadcastQueueDepth;
+    
+    // Target time between ticks
+    @ConfigProperty(name = "game.tick.interval-millis", defaultValue = "1000")
+    long tickIntervalMillis;
+    
+    // Widen the tick interval when ticks run close to their budget, narrow it again once they recover
+    @ConfigProperty(name = "game.tick.adaptive", defaultValue = "true")
+    boolean adaptive;
+    
+    // Upper bound for the adaptive tick interval
+    @ConfigProperty(name = "game.tick.max-interval-millis", defaultValue = "5000")
+    long maxTickIntervalMillis;
+    
+    // Threads simulating the active action shards (0 = one per available core)
+    @ConfigProperty(name = "game.tick.workers", defaultValue = "0")
+    int simulationWorkers;
     
     private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
-    private final Map<String, Map<String, Integer>> lastXpState = new HashMap<>(); // playerId -> skillId -> xp
-    private final Map<String, Map<String, Integer>> lastInventoryState = new HashMap<>(); // playerId -> itemId -> quantity
+    private final TickStats tickStats = new TickStats();
+    // Bumped after every persisted batch, so STATE_INITs can tell which deltas their snapshot already includes
+    private final AtomicLong persistSequence = new AtomicLong();
+    
+    // Only touched by the tick thread
+    private long currentIntervalMillis;
+    private long nextTickAt; // Start of the slot the next tick belongs to
+    
+    // Stage 1 (simulate) is driven by the scheduler and fans out over the simulator's workers
+    private ParallelTickSimulator simulator;
+    
+    // Stage 2 (persist) and stage 3 (broadcast) of the tick pipeline
+    private PipelineStage<List<TickResult>> persistStage;
+    private PipelineStage<TickResult> broadcastStage;
+    
+    // Results per persist partition that did not fit into the writer's queue yet (guarded by this)
+    private List<List<TickResult>> unsubmitted;
     
     /**
-     * Starts the game tick scheduler.
+     * Starts the game tick scheduler and the persist and broadcast stages.
      */
-    public void start() {
-        // Run game tick every second
-        scheduler.scheduleAtFixedRate(this::processGameTick, 1, 1, TimeUnit.SECONDS);
+    public synchronized void start() {
+        int workers = simulationWorkers > 0 ? simulationWorkers : Runtime.getRuntime().availableProcessors();
+        simulator = new ParallelTickSimulator(workers, SIMULATION_LEAF_SIZE);
+        persistStage = new PipelineStage<>("tick-persist", persistThreads, persistQueueDepth,
+            Integer.MAX_VALUE, queued -> {
+                try (DbCostTracker.Scope dbScope = DbCostTracker.begin("tick.PERSIST")) {
+                    persistResults(queued);
+                }
+            });
+        broadcastStage = new PipelineStage<>("tick-broadcast", broadcastThreads, broadcastQueueDepth,
+            broadcastQueueDepth, results -> {
+                try (DbCostTracker.Scope dbScope = DbCostTracker.begin("tick.BROADCAST")) {
+                    broadcastResults(results);
+                }
+            });
+        unsubmitted = new ArrayList<>();
+        for (int i = 0; i < persistStage.partitions(); i++) {
+            unsubmitted.add(new ArrayList<>());
+        }
+        persistStage.start();
+        broadcastStage.start();
+        
+        // Each tick schedules the next one, so a slow tick delays its successor instead of bunching them up
+        currentIntervalMillis = tickIntervalMillis;
+        tickStats.setIntervalMillis(currentIntervalMillis);
+        nextTickAt = System.currentTimeMillis() + currentIntervalMillis;
+        scheduler.schedule(this::runTick, currentIntervalMillis, TimeUnit.MILLISECONDS);
     }
     
     /**
-     * Stops the game tick scheduler.
+     * Stops the game tick scheduler, then lets the writers finish so no simulated progress is lost.
      */
-    public void stop() {
+    public synchronized void stop() {
         scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (persistStage == null) {
+            return;
+        }
+        persistStage.stop(10_000);
+        // Anything the writers had no room for is written directly
+        for (int partition = 0; partition < unsubmitted.size(); partition++) {
+            List<TickResult> pending = unsubmitted.set(partition, new ArrayList<>());
+            if (!pending.isEmpty()) {
+                persistResults(List.of(pending));
+            }
+        }
+        int unsaved = unsubmitted.stream().mapToInt(List::size).sum();
+        if (unsaved > 0) {
+            System.err.println("Shutting down with " + unsaved + " tick results that failed to persist");
+        }
+        broadcastStage.stop(1_000);
+        simulator.shutdown();
     }
     
-    private void processGameTick() {
-        // Get all active actions and process them
-        // Note: This is a simplified implementation
-        // In a real game, you'd track all active players and their actions
-        
-        // For now, we'll process ticks when players send processActionTick messages
-        // This method can be extended to automatically process all active actions
+    /**
+     * Runs one tick, accounts for its duration and schedules the next one.
+     * Slots that already passed while the tick was running are skipped and counted as missed; the
+     * simulation works off wall clock time, so the next tick simply covers the longer elapsed time.
+     */
+    private void runTick() {
+        long startedAt = System.currentTimeMillis();
+        try {
+            processGameTick(startedAt);
+        } finally {
+            long finishedAt = System.currentTimeMillis();
+            long duration = finishedAt - startedAt;
+            boolean overran = tickStats.recordTick(rngService.getCurrentTick(), startedAt, duration,
+                currentIntervalMillis, Math.max(0, startedAt - nextTickAt));
+            if (adaptive) {
+                adaptInterval(duration);
+            } else if (overran) {
+                System.err.println("Tick overran its budget: " + duration + " ms (budget " + currentIntervalMillis + " ms)");
+            }
+            
+            nextTickAt += currentIntervalMillis;
+            if (finishedAt > nextTickAt) {
+                long skipped = (finishedAt - nextTickAt) / currentIntervalMillis + 1;
+                tickStats.recordMissed(skipped);
+                nextTickAt += skipped * currentIntervalMillis;
+            }
+            try {
+                scheduler.schedule(this::runTick, nextTickAt - finishedAt, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // Shutting down
+            }
+        }
+    }
+    
+    // Widens the interval when a tick uses more than 80% of it, narrows it back once ticks use less than half
+    private void adaptInterval(long durationMillis) {
+        long interval = currentIntervalMillis;
+        if (durationMillis > interval * 0.8) {
+            interval = Math.min(maxTickIntervalMillis, Math.max(interval * 3 / 2, durationMillis * 5 / 4));
+        } else if (durationMillis < interval * 0.5 && interval > tickIntervalMillis) {
+            interval = Math.max(tickIntervalMillis, interval * 9 / 10);
+        }
+        if (interval != currentIntervalMillis) {
+            System.out.println("Tick took " + durationMillis + " ms, tick interval " + currentIntervalMillis
+                + " ms -> " + interval + " ms");
+            currentIntervalMillis = interval;
+            tickStats.setIntervalMillis(interval);
+        }
     }
     
     /**
-     * Processes a game tick for a specific player and sends delta update.
+     * Stage 1 of the tick pipeline: advances every active action in memory.
+     * Due action timers are fired first, then all active action shards are simulated in parallel. The results are
+     * handed to the persist stage; the tick thread itself never touches the database or a socket.
+     */
+    private void processGameTick(long now) {
+        try {
+            long tick = rngService.advanceTick();
+            long phaseStart = System.nanoTime();
+            
+            List<TickResult> results = new ArrayList<>();
+            // SIMULATE and SUBMIT stay in memory; only the timer phase is charged for database work here
+            try (DbCostTracker.Scope dbScope = DbCostTracker.begin("tick.TIMERS")) {
+                for (ActionTimer timer : actionService.drainExpiredTimers(now, timerBatchSize)) {
+                    try {
+                        if (timer.kind == ActionTimer.Kind.COMPLETE) {
+                            TickResult result = actionService.completeAction(timer, tick);
+                            if (result != null) {
+                                results.add(result);
+                            }
+                        } else {
+                            actionService.expireSuspendedAction(timer);
+                        }
+                    } catch (Exception e) {
+                        System.err.println("Error firing " + timer.kind + " timer for player " + timer.playerId + ": " + e.getMessage());
+                    }
+                }
+            }
+            phaseStart = recordPhase(TickStats.Phase.TIMERS, phaseStart);
+            
+            results.addAll(simulator.simulate(actionService.getActiveActionShards(), (playerId, actionState) -> {
+                TickResult result = actionService.simulateActionTick(playerId, actionState, now, tick);
+                return result.isEmpty() ? null : result;
+            }));
+            
+            phaseStart = recordPhase(TickStats.Phase.SIMULATE, phaseStart);
+            
+            submitResults(results);
+            recordPhase(TickStats.Phase.SUBMIT, phaseStart);
+        } catch (Exception e) {
+            // Never let an exception escape, it would cancel the scheduled tick
+            System.err.println("Error processing game tick: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+    
+    /**
+     * Advances a single player's action by the given time and sends the result through the
+     * persist and broadcast stages, like a regular tick. Runs on the tick thread (between ticks),
+     * since action states are only ever mutated there.
      * @param playerId The player ID
      * @param elapsedSeconds The elapsed time since last tick
      */
     public void processPlayerTick(String playerId, double elapsedSeconds) {
-        com.framework.service.logic.ActionState actionState = actionService.getActiveAction(playerId);
-        if (actionState == null) {
-            return; // No active action
+        scheduler.execute(() -> {
+            ActionState actionState = actionService.getActiveAction(playerId);
+            if (actionState == null) {
+                return; // No active action
+            }
+            
+            long until = actionState.lastTickTime + (long) (elapsedSeconds * 1000);
+            TickResult result = actionService.simulateActionTick(playerId, actionState, until, rngService.getCurrentTick());
+            if (!result.isEmpty()) {
+                submitResults(List.of(result));
+            }
+        });
+    }
+    
+    /**
+     * Gets the tick budget accounting (phase timings, overruns, missed ticks).
+     * @return The tick statistics
+     */
+    public TickStats getTickStats() {
+        return tickStats;
+    }
+    
+    /**
+     * Gets the persist sequence: the number of tick result batches written so far. Every delta stamped with
+     * a value up to the one read before a snapshot is included in that snapshot.
+     * @return The persist sequence
+     */
+    public long getPersistSequence() {
+        return persistSequence.get();
+    }
+    
+    /**
+     * Gets the number of tick batches waiting for a database writer.
+     * @return The persist queue depth
+     */
+    public int getPersistQueueDepth() {
+        return persistStage == null ? 0 : persistStage.getQueueDepth();
+    }
+    
+    /**
+     * Gets the number of deltas waiting to be sent.
+     * @return The broadcast queue depth
+     */
+    public int getBroadcastQueueDepth() {
+        return broadcastStage == null ? 0 : broadcastStage.getQueueDepth();
+    }
+    
+    /**
+     * Gets the number of deltas dropped because a broadcaster was backed up.
+     * @return The dropped delta count
+     */
+    public long getDroppedDeltaCount() {
+        return broadcastStage == null ? 0 : broadcastStage.getRejectedCount();
+    }
+    
+    // Hands results to the writers without blocking. Simulated progress must never be dropped, so a
+    // partition whose writer is backed up keeps its results and retries with the next tick's results
+    // added (the writer then persists both ticks in one go).
+    private synchronized void submitResults(List<TickResult> results) {
+        if (persistStage == null) {
+            return;
+        }
+        for (TickResult result : results) {
+            unsubmitted.get(persistStage.partitionFor(result.playerId)).add(result);
+        }
+        for (int partition = 0; partition < unsubmitted.size(); partition++) {
+            List<TickResult> pending = unsubmitted.get(partition);
+            if (!pending.isEmpty() && persistStage.submit(partition, pending)) {
+                unsubmitted.set(partition, new ArrayList<>());
+            }
         }
-        
-        // Process the action tick
-        actionService.processActionTick(playerId, actionState.actionId, elapsedSeconds);
-        
-        // Calculate deltas
-        PlayerEntity player = playerService.getPlayer(playerId);
-        Map<String, Integer> xpDelta = calculateXpDelta(playerId, player);
-        Map<String, Integer> inventoryDelta = calculateInventoryDelta(playerId);
-        
-        // Get agent state for health
-        int health = 100; // Default, should come from AgentStateEntity
-        
-        // Send delta update
-        gameWebSocket.sendStateDelta(playerId, xpDelta, inventoryDelta, health, null);
-        
-        // Update last known state
-        updateLastState(playerId, player, inventoryDelta);
     }
     
-    private Map<String, Integer> calculateXpDelta(String playerId, PlayerEntity player) {
-        Map<String, Integer> delta = new HashMap<>();
-        
-        // Simplified: track total XP changes
-        // In a real game, you'd track per-skill XP
-        @SuppressWarnings("unused")
-        Map<String, Integer> lastXp = lastXpState.getOrDefault(playerId, new HashMap<>());
-        
-        // For now, we'll return empty delta as XP tracking per skill needs more implementation
-        // This is a placeholder that can be extended
-        
-        return delta;
+    // Puts results that failed to persist back in front of their partition's unsubmitted results
+    private synchronized void requeue(List<TickResult> batch) {
+        List<TickResult> reversed = new ArrayList<>(batch);
+        Collections.reverse(reversed);
+        for (TickResult result : reversed) {
+            unsubmitted.get(persistStage.partitionFor(result.playerId)).add(0, result);
+        }
     }
     
-    private Map<String, Integer> calculateInventoryDelta(String playerId) {
-        Map<String, Integer> delta = new HashMap<>();
-        
-        List<PlayerItemEntity> currentInventory = inventoryService.getInventory(playerId);
-        Map<String, Integer> lastInventory = lastInventoryState.getOrDefault(playerId, new HashMap<>());
-        
-        // Calculate changes
-        for (PlayerItemEntity item : currentInventory) {
-            int lastQuantity = lastInventory.getOrDefault(item.itemId, 0);
-            int currentQuantity = item.quantity;
-            int change = currentQuantity - lastQuantity;
-            if (change != 0) {
-                delta.put(item.itemId, change);
+    /**
+     * Stage 2 of the tick pipeline: writes queued results in bulk, one transaction per batch of
+     * players, then passes them to the broadcasters.
+     * A batch that fails is retried player by player, so one player's bad data cannot hold back the others.
+     */
+    private void persistResults(List<List<TickResult>> queued) {
+        long phaseStart = System.nanoTime();
+        List<TickResult> results = new ArrayList<>();
+        for (List<TickResult> part : queued) {
+            results.addAll(part);
+        }
+        for (int from = 0; from < results.size(); from += batchSize) {
+            List<TickResult> batch = results.subList(from, Math.min(from + batchSize, results.size()));
+            try {
+                actionService.applyTickResults(batch);
+            } catch (Exception e) {
+                tickStats.recordPersistFailure();
+                System.err.println("Error persisting tick batch of " + batch.size() + " results, retrying per player: " + e.getMessage());
+                persistPerPlayer(batch);
+                continue;
             }
+            publish(batch);
         }
-        
-        // Check for removed items
-        for (Map.Entry<String, Integer> entry : lastInventory.entrySet()) {
-            if (!delta.containsKey(entry.getKey())) {
-                boolean stillExists = currentInventory.stream()
-                    .anyMatch(item -> item.itemId.equals(entry.getKey()));
-                if (!stillExists) {
-                    delta.put(entry.getKey(), -entry.getValue());
+        recordPhase(TickStats.Phase.PERSIST, phaseStart);
+    }
+    
+    // Writes each player's results of a failed batch in its own transaction
+    private void persistPerPlayer(List<TickResult> batch) {
+        Map<String, List<TickResult>> byPlayer = new LinkedHashMap<>();
+        for (TickResult result : batch) {
+            byPlayer.computeIfAbsent(result.playerId, id -> new ArrayList<>()).add(result);
+        }
+        List<TickResult> retry = new ArrayList<>();
+        for (Map.Entry<String, List<TickResult>> entry : byPlayer.entrySet()) {
+            List<TickResult> playerResults = entry.getValue();
+            try {
+                actionService.applyTickResults(playerResults);
+            } catch (Exception e) {
+                tickStats.recordPersistFailure();
+                System.err.println("Error persisting tick results of player " + entry.getKey() + ": " + e.getMessage());
+                e.printStackTrace();
+                for (TickResult result : playerResults) {
+                    if (++result.persistAttempts < persistMaxAttempts) {
+                        retry.add(result);
+                    } else {
+                        // Logged in full so the progress can be credited by hand
+                        tickStats.recordDroppedResults(1);
+                        System.err.println("Dropping tick result for player " + result.playerId + " after "
+                            + result.persistAttempts + " failed attempts (skill " + result.skillId + ", experience "
+                            + result.experience + ", loot " + result.loot.toMap() + ")");
+                    }
                 }
+                continue;
             }
+            publish(playerResults);
+        }
+        if (!retry.isEmpty()) {
+            // Not broadcast: the players would see progress that is not saved. Retried with the next tick.
+            requeue(retry);
+        }
+    }
+    
+    // Makes persisted results durable and hands them to the broadcasters
+    private void publish(List<TickResult> persisted) {
+        long sequence = persistSequence.incrementAndGet();
+        // Group commit: one fsync makes the whole batch's journal records durable before players see it
+        journal.sync();
+        for (TickResult result : persisted) {
+            result.persistSequence = sequence;
+            // A backed-up broadcaster drops the delta; the client catches up on its next STATE_INIT
+            broadcastStage.submit(broadcastStage.partitionFor(result.playerId), result);
         }
-        
-        return delta;
     }
     
-    private void updateLastState(String playerId, PlayerEntity player, Map<String, Integer> inventoryDelta) {
-        // Update inventory state
-        List<PlayerItemEntity> currentInventory = inventoryService.getInventory(playerId);
-        Map<String, Integer> inventoryState = new HashMap<>();
-        for (PlayerItemEntity item : currentInventory) {
-            inventoryState.put(item.itemId, item.quantity);
+    /**
+     * Stage 3 of the tick pipeline: sends each player its STATE_DELTA straight from the simulated
+     * loot summary (no re-reads).
+     */
+    private void broadcastResults(List<TickResult> results) {
+        long phaseStart = System.nanoTime();
+        for (TickResult result : results) {
+            Map<String, Integer> xpDelta = new HashMap<>();
+            if (result.experience > 0 && result.skillId != null) {
+                xpDelta.put(result.skillId, (int) result.experience);
+            }
+            String message = result.message;
+            if (message == null && result.levelUp > 0) {
+                message = "Level up! " + StaticSkillData.getSkill(result.skillId).getName() + " is now level " + result.levelUp;
+            }
+            int health = 100; // Default, should come from AgentStateEntity
+            gameWebSocket.sendStateDelta(result.playerId, xpDelta, result.loot, health, message, result.persistSequence);
         }
-        lastInventoryState.put(playerId, inventoryState);
+        recordPhase(TickStats.Phase.BROADCAST, phaseStart);
+    }
+    
+    // Records the time since phaseStart and returns the start of the next phase
+    private long recordPhase(TickStats.Phase phase, long phaseStart) {
+        long now = System.nanoTime();
+        tickStats.recordPhase(phase, now - phaseStart);
+        return now;
     }
 }
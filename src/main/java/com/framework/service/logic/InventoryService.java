@@ -7,10 +7,15 @@ import com.framework.service.repos.PlayerItemRepository;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Service for managing player inventory.
+ * Online players' inventories live in memory (PlayerInventoryCache) and are served and changed there
+ * without touching the database; everyone else is read and written through PlayerItemRepository.
  */
 @ApplicationScoped
 public class InventoryService {
@@ -21,6 +26,36 @@ public class InventoryService {
     @Inject
     StaticDataService staticDataService;
     
+    @Inject
+    PlayerInventoryCache inventoryCache;
+    
+    @Inject
+    GameJournal journal;
+    
+    /**
+     * Loads a player's inventory into memory, e.g. when they connect.
+     * @param playerId The player ID
+     */
+    public void loadInventory(String playerId) {
+        inventoryCache.load(playerId);
+    }
+    
+    /**
+     * Writes a player's pending inventory changes and drops it from memory, e.g. when they disconnect.
+     * @param playerId The player ID
+     */
+    public void unloadInventory(String playerId) {
+        inventoryCache.unload(playerId);
+    }
+    
+    /**
+     * Writes a player's pending inventory changes now, so newly added items get their IDs.
+     * @param playerId The player ID
+     */
+    public void flushInventory(String playerId) {
+        inventoryCache.flushPlayer(playerId);
+    }
+    
     /**
      * Adds an item to a player's inventory. Adds or stacks an item, creates a new PlayerItemEntity if needed.
      * @param playerId The player ID
@@ -37,27 +72,109 @@ public class InventoryService {
         // Validate item exists
         Item item = staticDataService.getItem(itemId);
         
-        // Check if player already has this item (and it's stackable) in inventory
-        PlayerItemEntity existing = playerItemRepository.findByOwnerIdAndItemId(playerId, itemId);
+        PlayerInventory inventory = inventoryCache.get(playerId);
+        if (inventory != null) {
+            PlayerItemEntity added = null;
+            synchronized (inventory) {
+                if (!inventory.isClosed()) {
+                    added = inventory.add(item, quantity);
+                }
+            }
+            if (added != null) {
+                journal.inventory(inventory); // Encoded outside the inventory lock
+                return added;
+            }
+        }
+        
+        // Stackables: one atomic upsert onto the INVENTORY stack, safe against concurrent adds
+        if (item.isStackable()) {
+            return playerItemRepository.addToStack(playerId, itemId, quantity);
+        }
+        
+        // Create new item instance
+        PlayerItemEntity newItem = newInstance(playerId, item, quantity);
+        playerItemRepository.persist(newItem);
+        return newItem;
+    }
+    
+    // A new non-stacked item instance, with initial durability for equipment
+    private static PlayerItemEntity newInstance(String playerId, Item item, int quantity) {
+        PlayerItemEntity newItem = new PlayerItemEntity(playerId, item.getId(), quantity);
+        newItem.stackable = item.isStackable();
+        if (item.isEquipable() && item.getEquipmentDetails() != null) {
+            newItem.currentDurability = (float) item.getEquipmentDetails().getDurabilityMax();
+        }
+        return newItem;
+    }
+    
+    /**
+     * Adds a batch of rolled loot to a player's inventory with a single lookup of existing stacks.
+     * @param playerId The player ID
+     * @param loot The summed drops to add
+     */
+    @Transactional
+    public void addItems(String playerId, LootSummary loot) {
+        if (!loot.isEmpty()) {
+            addItemsBatch(Map.of(playerId, loot));
+        }
+    }
+    
+    /**
+     * Adds items to many players' inventories at once. Loaded inventories are updated in memory; for
+     * the other players stackables go out as one JDBC batch of atomic upserts and non-stackable
+     * instances are persisted in the same transaction.
+     * @param itemsByPlayer Map of player ID to the summed drops to add
+     */
+    @Transactional
+    public void addItemsBatch(Map<String, LootSummary> itemsByPlayer) {
+        Map<String, LootSummary> notLoaded = new HashMap<>();
+        for (Map.Entry<String, LootSummary> playerEntry : itemsByPlayer.entrySet()) {
+            if (!addToLoadedInventory(playerEntry.getKey(), playerEntry.getValue())) {
+                notLoaded.put(playerEntry.getKey(), playerEntry.getValue());
+            }
+        }
+        if (notLoaded.isEmpty()) {
+            return;
+        }
         
-        // Only stack if item is in inventory (not equipped) and is stackable
-        if (existing != null && "INVENTORY".equals(existing.slot) && item.isStackable()) {
-            // Stack with existing item
-            existing.quantity += quantity;
-            playerItemRepository.persist(existing);
-            return existing;
-        } else {
-            // Create new item instance
-            PlayerItemEntity newItem = new PlayerItemEntity(playerId, itemId, quantity);
-            
-            // Set initial durability for equipment
-            if (item.isEquipable() && item.getEquipmentDetails() != null) {
-                newItem.currentDurability = (float) item.getEquipmentDetails().getDurabilityMax();
+        List<PlayerItemEntity> stackAdditions = new ArrayList<>();
+        for (Map.Entry<String, LootSummary> playerEntry : notLoaded.entrySet()) {
+            String playerId = playerEntry.getKey();
+            LootSummary loot = playerEntry.getValue();
+            for (int i = 0; i < loot.size(); i++) {
+                int quantity = loot.getQuantity(i);
+                if (quantity <= 0) {
+                    continue;
+                }
+                Item item = staticDataService.getItem(loot.getItemId(i));
+                if (item.isStackable()) {
+                    stackAdditions.add(new PlayerItemEntity(playerId, item.getId(), quantity));
+                } else {
+                    playerItemRepository.persist(newInstance(playerId, item, quantity));
+                }
             }
-            
-            playerItemRepository.persist(newItem);
-            return newItem;
         }
+        playerItemRepository.addToStacksBatch(stackAdditions);
+    }
+    
+    // Returns false if the player's inventory is not loaded
+    private boolean addToLoadedInventory(String playerId, LootSummary loot) {
+        PlayerInventory inventory = inventoryCache.get(playerId);
+        if (inventory == null) {
+            return false;
+        }
+        synchronized (inventory) {
+            if (inventory.isClosed()) {
+                return false;
+            }
+            for (int i = 0; i < loot.size(); i++) {
+                if (loot.getQuantity(i) > 0) {
+                    inventory.add(staticDataService.getItem(loot.getItemId(i)), loot.getQuantity(i));
+                }
+            }
+        }
+        journal.inventory(inventory); // Encoded outside the inventory lock
+        return true;
     }
     
     /**
@@ -69,22 +186,24 @@ public class InventoryService {
      */
     @Transactional
     public boolean removeItem(String playerId, String itemId, int quantity) {
-        PlayerItemEntity item = playerItemRepository.findByOwnerIdAndItemId(playerId, itemId);
-        if (item == null) {
-            return false;
-        }
-        
-        if (item.quantity < quantity) {
-            return false; // Insufficient quantity
+        PlayerInventory inventory = inventoryCache.get(playerId);
+        if (inventory != null) {
+            Boolean removed = null;
+            synchronized (inventory) {
+                if (!inventory.isClosed()) {
+                    removed = inventory.remove(itemId, quantity);
+                }
+            }
+            if (removed != null) {
+                if (removed) {
+                    journal.inventory(inventory); // Encoded outside the inventory lock
+                }
+                return removed;
+            }
         }
         
-        item.quantity -= quantity;
-        if (item.quantity <= 0) {
-            playerItemRepository.delete(item);
-        } else {
-            playerItemRepository.persist(item);
-        }
-        return true;
+        // Guarded decrement: fails instead of going negative when removals race
+        return playerItemRepository.removeQuantity(playerId, itemId, quantity);
     }
     
     /**
@@ -93,9 +212,34 @@ public class InventoryService {
      * @return List of PlayerItemEntity objects
      */
     public List<PlayerItemEntity> getInventory(String playerId) {
+        PlayerInventory inventory = inventoryCache.get(playerId);
+        if (inventory != null) {
+            synchronized (inventory) {
+                if (!inventory.isClosed()) {
+                    return inventory.getItems();
+                }
+            }
+        }
         return playerItemRepository.findByOwnerId(playerId);
     }
     
+    /**
+     * Gets a player's items from memory, without falling back to the database.
+     * @param playerId The player ID
+     * @return List of item copies, or null if the player's inventory is not loaded
+     */
+    public List<PlayerItemEntity> getLoadedInventory(String playerId) {
+        PlayerInventory inventory = inventoryCache.get(playerId);
+        if (inventory != null) {
+            synchronized (inventory) {
+                if (!inventory.isClosed()) {
+                    return inventory.getItems();
+                }
+            }
+        }
+        return null;
+    }
+    
     /**
      * Checks if a player has a sufficient quantity of an item.
      * @param playerId The player ID
@@ -104,6 +248,14 @@ public class InventoryService {
      * @return true if the player has at least the required quantity
      */
     public boolean hasItem(String playerId, String itemId, int requiredQuantity) {
+        PlayerInventory inventory = inventoryCache.get(playerId);
+        if (inventory != null) {
+            synchronized (inventory) {
+                if (!inventory.isClosed()) {
+                    return inventory.has(itemId, requiredQuantity);
+                }
+            }
+        }
         PlayerItemEntity item = playerItemRepository.findByOwnerIdAndItemId(playerId, itemId);
         return item != null && item.quantity >= requiredQuantity;
     }
@@ -117,7 +269,46 @@ public class InventoryService {
      */
     @Transactional
     public PlayerItemEntity equipItem(String playerId, Long playerItemId, String slot) {
+        PlayerInventory inventory = inventoryCache.get(playerId);
+        if (inventory != null) {
+            boolean loaded = false;
+            PlayerItemEntity equipped = null;
+            synchronized (inventory) {
+                if (!inventory.isClosed()) {
+                    loaded = true;
+                    PlayerItemEntity item = null;
+                    for (PlayerItemEntity candidate : inventory.getItems()) {
+                        if (playerItemId.equals(candidate.id)) {
+                            item = candidate;
+                            break;
+                        }
+                    }
+                    validateEquip(playerId, item, slot);
+                    equipped = inventory.equip(playerItemId, slot);
+                }
+            }
+            if (loaded) {
+                journal.inventory(inventory); // Encoded outside the inventory lock
+                return equipped;
+            }
+        }
+        
         PlayerItemEntity item = playerItemRepository.findById(playerItemId);
+        validateEquip(playerId, item, slot);
+        
+        // Unequip whatever is in the slot and equip the new item in one statement
+        if (!playerItemRepository.equipSwap(playerId, playerItemId, slot).contains(playerItemId)) {
+            // Equipped or removed concurrently; throwing rolls back the unequip as well
+            throw new IllegalStateException("Item is no longer in the inventory: " + playerItemId);
+        }
+        
+        // Return a copy: the loaded entity must stay untouched so Hibernate does not write it again
+        PlayerItemEntity equipped = PlayerInventory.copyOf(item);
+        equipped.slot = slot;
+        return equipped;
+    }
+    
+    private void validateEquip(String playerId, PlayerItemEntity item, String slot) {
         if (item == null || !item.ownerId.equals(playerId)) {
             throw new IllegalArgumentException("Item not found or not owned by player");
         }
@@ -136,20 +327,6 @@ public class InventoryService {
         if (!itemSlot.equals(slot)) {
             throw new IllegalArgumentException("Item slot mismatch: item is " + itemSlot + ", requested " + slot);
         }
-        
-        // Unequip any item in the same slot
-        List<PlayerItemEntity> equippedInSlot = playerItemRepository.find("ownerId = ?1 and slot = ?2", 
-            playerId, slot).list();
-        for (PlayerItemEntity equipped : equippedInSlot) {
-            equipped.slot = "INVENTORY";
-            playerItemRepository.persist(equipped);
-        }
-        
-        // Equip the new item
-        item.slot = slot;
-        playerItemRepository.persist(item);
-        
-        return item;
     }
     
     /**
@@ -158,6 +335,14 @@ public class InventoryService {
      * @return List of equipped PlayerItemEntity objects
      */
     public List<PlayerItemEntity> getEquippedItems(String playerId) {
+        PlayerInventory inventory = inventoryCache.get(playerId);
+        if (inventory != null) {
+            synchronized (inventory) {
+                if (!inventory.isClosed()) {
+                    return inventory.getEquipped();
+                }
+            }
+        }
         return playerItemRepository.findEquippedByOwnerId(playerId);
     }
 }
@@ -4,12 +4,15 @@ import com.framework.data.entity.AgentStateEntity;
 import com.framework.data.model.Location;
 import com.framework.data.staticdata.StaticLocationData;
 import com.framework.service.repos.AgentStateRepository;
+import com.framework.service.repos.ReactivePlayerStore;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
+import java.util.concurrent.CompletionStage;
 
 /**
  * Service for managing player locations.
+ * Agent states are read through AgentStateCache; every write here updates the cached copy.
  */
 @ApplicationScoped
 public class LocationService {
@@ -17,13 +20,27 @@ public class LocationService {
     @Inject
     AgentStateRepository agentStateRepository;
     
+    @Inject
+    ReactivePlayerStore reactivePlayerStore;
+    
+    @Inject
+    AgentStateCache agentStateCache;
+    
     /**
      * Gets the current location for a player.
      * @param playerId The player ID
      * @return The Location object, or null if not found
      */
     public Location getCurrentLocation(String playerId) {
-        AgentStateEntity agentState = agentStateRepository.findById(playerId);
+        return getLocation(agentStateCache.get(playerId));
+    }
+    
+    /**
+     * Gets the location an already loaded agent state points at.
+     * @param agentState The agent state (may be null)
+     * @return The Location object, or null if none or unknown
+     */
+    public Location getLocation(AgentStateEntity agentState) {
         if (agentState == null || agentState.currentLocation == null) {
             return null;
         }
@@ -45,30 +62,47 @@ public class LocationService {
         // Validate location exists
         Location location = StaticLocationData.getLocation(targetLocationId);
         
-        // Get or create agent state
-        AgentStateEntity agentState = agentStateRepository.findById(playerId);
-        if (agentState == null) {
-            agentState = new AgentStateEntity(playerId, "player", targetLocationId);
-            agentStateRepository.persist(agentState);
-        } else {
-            agentState.currentLocation = targetLocationId;
-            agentStateRepository.persist(agentState);
-        }
+        // Get or create agent state, without reading it first
+        agentStateRepository.upsertLocation(playerId, targetLocationId);
+        agentStateCache.update(playerId, agentState -> agentState.currentLocation = targetLocationId);
         
         return location;
     }
     
+    /**
+     * Same as moveToLocation, but writes on the reactive client without blocking the caller.
+     * @param playerId The player ID
+     * @param targetLocationId The destination location ID
+     * @return The new Location object, once the move is committed
+     * @throws IllegalArgumentException If the location does not exist
+     */
+    public CompletionStage<Location> moveToLocationAsync(String playerId, String targetLocationId) {
+        Location location = StaticLocationData.getLocation(targetLocationId);
+        return reactivePlayerStore.moveToLocation(playerId, targetLocationId)
+            .map(ignored -> {
+                agentStateCache.update(playerId, agentState -> agentState.currentLocation = targetLocationId);
+                return location;
+            })
+            .subscribeAsCompletionStage()
+            .whenComplete((moved, failure) -> {
+                if (failure != null) {
+                    agentStateCache.invalidate(playerId);
+                }
+            });
+    }
+    
     /**
      * Gets or creates agent state for a player.
      * @param playerId The player ID
-     * @return The AgentStateEntity
+     * @return The AgentStateEntity (a copy: changes to it are not saved)
      */
     @Transactional
     public AgentStateEntity getOrCreateAgentState(String playerId) {
-        AgentStateEntity agentState = agentStateRepository.findById(playerId);
+        AgentStateEntity agentState = agentStateCache.get(playerId);
         if (agentState == null) {
             agentState = new AgentStateEntity(playerId, "player", "starting_location");
             agentStateRepository.persist(agentState);
+            agentStateCache.put(agentState);
         }
         return agentState;
     }
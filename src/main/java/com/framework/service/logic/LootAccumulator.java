@@ -0,0 +1,73 @@
+package com.framework.service.logic;
+
+import com.framework.data.staticdata.StaticItemData;
+
+/**
+ * Mutable, reusable accumulator that sums dropped quantities per item.
+ * Backed by primitive arrays indexed by StaticItemData's dense item index, so adding a drop
+ * allocates nothing. Not thread-safe: use one accumulator per thread.
+ */
+public class LootAccumulator {
+    private final long[] quantities; // itemIndex -> quantity
+    private final int[] touched; // item indices with a non-zero quantity, in first-drop order
+    private int touchedCount;
+
+    public LootAccumulator() {
+        int itemCount = StaticItemData.getItemCount();
+        this.quantities = new long[itemCount];
+        this.touched = new int[itemCount];
+    }
+
+    /**
+     * Adds a dropped quantity of an item.
+     * @param itemIndex The dense item index (see StaticItemData.getItemIndex)
+     * @param quantity The quantity to add
+     */
+    public void add(int itemIndex, long quantity) {
+        if (quantity <= 0) {
+            return;
+        }
+        if (quantities[itemIndex] == 0) {
+            touched[touchedCount++] = itemIndex;
+        }
+        quantities[itemIndex] += quantity;
+    }
+
+    /**
+     * Checks whether anything has been accumulated since the last reset.
+     * @return true if no drops were added
+     */
+    public boolean isEmpty() {
+        return touchedCount == 0;
+    }
+
+    /**
+     * Copies the accumulated drops into an immutable summary and resets this accumulator.
+     * @return The LootSummary (LootSummary.EMPTY if nothing dropped)
+     */
+    public LootSummary drain() {
+        if (touchedCount == 0) {
+            return LootSummary.EMPTY;
+        }
+        String[] itemIds = new String[touchedCount];
+        int[] amounts = new int[touchedCount];
+        for (int i = 0; i < touchedCount; i++) {
+            int itemIndex = touched[i];
+            itemIds[i] = StaticItemData.getItemIdByIndex(itemIndex);
+            amounts[i] = (int) Math.min(Integer.MAX_VALUE, quantities[itemIndex]);
+            quantities[itemIndex] = 0;
+        }
+        touchedCount = 0;
+        return new LootSummary(itemIds, amounts);
+    }
+
+    /**
+     * Discards everything accumulated since the last drain.
+     */
+    public void reset() {
+        for (int i = 0; i < touchedCount; i++) {
+            quantities[touched[i]] = 0;
+        }
+        touchedCount = 0;
+    }
+}
@@ -0,0 +1,161 @@
+package com.framework.service.logic;
+
+import com.framework.data.model.CompiledLootTable;
+import com.framework.service.core.StaticDataService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import java.util.random.RandomGenerator;
+
+/**
+ * Rolls loot tables any number of times and sums the drops per item.
+ * Rolling never touches the database; granting the result is a single batched inventory update.
+ */
+@ApplicationScoped
+public class LootEngine {
+    
+    // Group hits up to this count are sampled one by one in aggregate mode
+    private static final long AGGREGATE_GROUP_EXACT_LIMIT = 32;
+    
+    @Inject
+    StaticDataService staticDataService;
+    
+    @Inject
+    InventoryService inventoryService;
+    
+    // One reusable accumulator per thread, so rolling does not allocate per drop
+    private final ThreadLocal<LootAccumulator> accumulators = ThreadLocal.withInitial(LootAccumulator::new);
+    
+    /**
+     * Rolls a compiled loot table K times. Every independent drop is rolled each time
+     * against its precomputed threshold; every group picks at most one entry in O(1).
+     * @param lootTable The compiled loot table
+     * @param rolls The number of rolls (K)
+     * @param random The random generator
+     * @param accumulator The accumulator to add drops to
+     */
+    public void roll(CompiledLootTable lootTable, int rolls, RandomGenerator random, LootAccumulator accumulator) {
+        long[] thresholds = lootTable.dropThresholds;
+        for (int d = 0; d < thresholds.length; d++) {
+            long threshold = thresholds[d];
+            int min = lootTable.dropMinQuantities[d];
+            int range = lootTable.dropMaxQuantities[d] - min + 1;
+            boolean guaranteed = lootTable.isGuaranteed(d);
+            
+            long total = 0;
+            for (int i = 0; i < rolls; i++) {
+                if (guaranteed || (random.nextLong() >>> 11) < threshold) {
+                    total += range == 1 ? min : min + random.nextInt(range);
+                }
+            }
+            accumulator.add(lootTable.dropItemIndexes[d], total);
+        }
+        
+        for (CompiledLootTable.Group group : lootTable.groups) {
+            for (int i = 0; i < rolls; i++) {
+                if ((random.nextLong() >>> 11) < group.threshold) {
+                    int entry = group.aliasTable.sample(random);
+                    int min = group.minQuantities[entry];
+                    int range = group.maxQuantities[entry] - min + 1;
+                    accumulator.add(group.itemIndexes[entry], range == 1 ? min : min + random.nextInt(range));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Resolves K rolls of a compiled loot table in closed form: each drop's hit count is sampled
+     * from the binomial distribution (and each group's hits are split across its entries the same way),
+     * so the cost does not depend on K.
+     * @param lootTable The compiled loot table
+     * @param rolls The number of rolls (K)
+     * @param random The random generator
+     * @param accumulator The accumulator to add drops to
+     */
+    public void rollAggregate(CompiledLootTable lootTable, long rolls, RandomGenerator random, LootAccumulator accumulator) {
+        for (int d = 0; d < lootTable.dropThresholds.length; d++) {
+            long hits = LootSampling.binomial(random, rolls, lootTable.dropChances[d]);
+            long quantity = LootSampling.uniformSum(random, hits,
+                lootTable.dropMinQuantities[d], lootTable.dropMaxQuantities[d]);
+            accumulator.add(lootTable.dropItemIndexes[d], quantity);
+        }
+        
+        for (CompiledLootTable.Group group : lootTable.groups) {
+            long hits = LootSampling.binomial(random, rolls, group.chance);
+            if (hits <= AGGREGATE_GROUP_EXACT_LIMIT) {
+                // Few hits: sample each one from the alias table
+                for (long i = 0; i < hits; i++) {
+                    int entry = group.aliasTable.sample(random);
+                    int min = group.minQuantities[entry];
+                    accumulator.add(group.itemIndexes[entry], min + random.nextInt(group.maxQuantities[entry] - min + 1));
+                }
+                continue;
+            }
+            
+            // Many hits: split them across entries with conditional binomials (a multinomial sample).
+            // The last weighted entry takes the rest, so zero-weight entries after it never get hits
+            long remaining = hits;
+            double remainingProbability = 1.0;
+            for (int entry = 0; entry <= group.lastWeighted && remaining > 0; entry++) {
+                long entryHits;
+                if (entry == group.lastWeighted) {
+                    entryHits = remaining;
+                } else if (group.probabilities[entry] <= 0.0) {
+                    entryHits = 0;
+                } else {
+                    // Rounding can leave remainingProbability at or below 0; the entry then takes everything
+                    double p = remainingProbability > 0.0
+                        ? Math.min(1.0, group.probabilities[entry] / remainingProbability) : 1.0;
+                    entryHits = LootSampling.binomial(random, remaining, p);
+                }
+                remaining -= entryHits;
+                remainingProbability -= group.probabilities[entry];
+                
+                long quantity = LootSampling.uniformSum(random, entryHits,
+                    group.minQuantities[entry], group.maxQuantities[entry]);
+                accumulator.add(group.itemIndexes[entry], quantity);
+            }
+        }
+    }
+    
+    /**
+     * Rolls a loot table K times and returns the summed drops.
+     * @param lootTableId The loot table ID
+     * @param rolls The number of rolls
+     * @param random The random generator
+     * @return The LootSummary of all drops
+     */
+    public LootSummary roll(String lootTableId, int rolls, RandomGenerator random) {
+        LootAccumulator accumulator = accumulators.get();
+        roll(staticDataService.getCompiledLootTable(lootTableId), rolls, random, accumulator);
+        return accumulator.drain();
+    }
+    
+    /**
+     * Resolves K rolls of a loot table in closed form and returns the summed drops.
+     * @param lootTableId The loot table ID
+     * @param rolls The number of rolls
+     * @param random The random generator
+     * @return The LootSummary of all drops
+     */
+    public LootSummary rollAggregate(String lootTableId, long rolls, RandomGenerator random) {
+        LootAccumulator accumulator = accumulators.get();
+        rollAggregate(staticDataService.getCompiledLootTable(lootTableId), rolls, random, accumulator);
+        return accumulator.drain();
+    }
+    
+    /**
+     * Rolls a loot table K times and adds the result to a player's inventory with one batched update.
+     * @param playerId The player ID
+     * @param lootTableId The loot table ID
+     * @param rolls The number of rolls
+     * @param random The random generator
+     * @return The LootSummary of all drops
+     */
+    @Transactional
+    public LootSummary rollAndGrant(String playerId, String lootTableId, int rolls, RandomGenerator random) {
+        LootSummary loot = roll(lootTableId, rolls, random);
+        inventoryService.addItems(playerId, loot);
+        return loot;
+    }
+}
@@ -0,0 +1,103 @@
+package com.framework.service.logic;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Sampling helpers for resolving many loot rolls at once.
+ * Used by offline catch-up so the cost does not grow with the time a player was away.
+ */
+public final class LootSampling {
+
+    // Below this many trials it is cheaper (and exact) to simulate every trial
+    private static final int EXACT_TRIALS_LIMIT = 32;
+
+    // Below this mean, inversion is used; above it the normal approximation is accurate enough
+    private static final double INVERSION_MEAN_LIMIT = 10.0;
+
+    private LootSampling() {}
+
+    /**
+     * Samples the number of successes in n independent trials with success chance p.
+     * Exact for small n or small n*p; uses a normal approximation with continuity correction
+     * for large means, which keeps the cost bounded regardless of n.
+     * @param random The random generator
+     * @param n The number of trials
+     * @param p The success chance of each trial (0.0 to 1.0)
+     * @return The number of successes, between 0 and n
+     */
+    public static long binomial(RandomGenerator random, long n, double p) {
+        if (n <= 0 || p <= 0.0) {
+            return 0;
+        }
+        if (p >= 1.0) {
+            return n;
+        }
+        if (p > 0.5) {
+            // Sample the failures instead so the mean stays small for the inversion path
+            return n - binomial(random, n, 1.0 - p);
+        }
+
+        if (n <= EXACT_TRIALS_LIMIT) {
+            long successes = 0;
+            for (long i = 0; i < n; i++) {
+                if (random.nextDouble() < p) {
+                    successes++;
+                }
+            }
+            return successes;
+        }
+
+        double q = 1.0 - p;
+        double mean = n * p;
+        if (mean < INVERSION_MEAN_LIMIT) {
+            // Sequential search of the CDF, expected O(mean) steps
+            double s = p / q;
+            double a = (n + 1) * s;
+            double r = Math.pow(q, n);
+            double u = random.nextDouble();
+            long x = 0;
+            while (u > r && x < n) {
+                u -= r;
+                x++;
+                r *= (a / x) - s;
+            }
+            return x;
+        }
+
+        double stdDev = Math.sqrt(mean * q);
+        long x = Math.round(mean + stdDev * random.nextGaussian());
+        return Math.max(0, Math.min(n, x));
+    }
+
+    /**
+     * Samples the sum of count independent uniform integers in [min, max].
+     * Exact for small counts; uses a normal approximation for large counts.
+     * @param random The random generator
+     * @param count The number of values to sum
+     * @param min The minimum of each value
+     * @param max The maximum of each value (inclusive)
+     * @return The sum, between count * min and count * max
+     */
+    public static long uniformSum(RandomGenerator random, long count, int min, int max) {
+        if (count <= 0) {
+            return 0;
+        }
+        if (min == max) {
+            return count * min;
+        }
+
+        int range = max - min + 1;
+        if (count <= EXACT_TRIALS_LIMIT) {
+            long sum = 0;
+            for (long i = 0; i < count; i++) {
+                sum += min + random.nextInt(range);
+            }
+            return sum;
+        }
+
+        double mean = count * (min + max) / 2.0;
+        double variance = count * ((double) range * range - 1.0) / 12.0;
+        long sum = Math.round(mean + Math.sqrt(variance) * random.nextGaussian());
+        return Math.max(count * min, Math.min(count * max, sum));
+    }
+}
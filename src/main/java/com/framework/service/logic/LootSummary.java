@@ -0,0 +1,90 @@
+package com.framework.service.logic;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compact, immutable result of one or more loot rolls: parallel arrays of item IDs and summed quantities.
+ * Each item ID appears at most once.
+ */
+public final class LootSummary {
+    public static final LootSummary EMPTY = new LootSummary(new String[0], new int[0]);
+
+    private final String[] itemIds;
+    private final int[] quantities;
+
+    LootSummary(String[] itemIds, int[] quantities) {
+        this.itemIds = itemIds;
+        this.quantities = quantities;
+    }
+
+    /**
+     * Gets the number of distinct items dropped.
+     * @return The number of entries
+     */
+    public int size() {
+        return itemIds.length;
+    }
+
+    public boolean isEmpty() {
+        return itemIds.length == 0;
+    }
+
+    /**
+     * Gets the item ID of an entry.
+     * @param i The entry index (0 to size() - 1)
+     * @return The item blueprint ID
+     */
+    public String getItemId(int i) {
+        return itemIds[i];
+    }
+
+    /**
+     * Gets the total quantity of an entry.
+     * @param i The entry index (0 to size() - 1)
+     * @return The quantity dropped
+     */
+    public int getQuantity(int i) {
+        return quantities[i];
+    }
+
+    /**
+     * Combines this summary with another one, summing the quantities of items present in both.
+     * @param other The other summary
+     * @return A new summary (or one of the inputs if the other is empty)
+     */
+    public LootSummary merge(LootSummary other) {
+        if (other.isEmpty()) {
+            return this;
+        }
+        if (isEmpty()) {
+            return other;
+        }
+        Map<String, Integer> combined = new LinkedHashMap<>(toMap());
+        for (int i = 0; i < other.itemIds.length; i++) {
+            combined.merge(other.itemIds[i], other.quantities[i], Integer::sum);
+        }
+        String[] mergedIds = new String[combined.size()];
+        int[] mergedQuantities = new int[combined.size()];
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : combined.entrySet()) {
+            mergedIds[i] = entry.getKey();
+            mergedQuantities[i] = entry.getValue();
+            i++;
+        }
+        return new LootSummary(mergedIds, mergedQuantities);
+    }
+
+    /**
+     * Converts this summary into a map (for callers that need one).
+     * @return A new map of itemId -> quantity
+     */
+    public Map<String, Integer> toMap() {
+        Map<String, Integer> map = new HashMap<>();
+        for (int i = 0; i < itemIds.length; i++) {
+            map.put(itemIds[i], quantities[i]);
+        }
+        return map;
+    }
+}
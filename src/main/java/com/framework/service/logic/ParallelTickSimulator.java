@@ -0,0 +1,160 @@
+package com.framework.service.logic;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Simulates the active action shards of a tick on a ForkJoinPool.
+ * Every shard becomes a task that splits its players in halves until a range is at most leafSize
+ * players. Idle workers steal pending halves, so a shard full of heavy players (large loot tables,
+ * many rolls) is spread over all cores instead of holding up the tick on one.
+ * Each player is simulated by exactly one worker, so ActionState needs no locking.
+ */
+public class ParallelTickSimulator {
+    private final ForkJoinPool pool;
+    private final int leafSize;
+
+    /**
+     * Advances one player's action.
+     */
+    @FunctionalInterface
+    public interface Simulation {
+        /**
+         * @param playerId The player ID
+         * @param actionState The player's active action
+         * @return The result, or null if there is nothing to persist or send
+         */
+        TickResult simulate(String playerId, ActionState actionState);
+    }
+
+    /**
+     * Creates a simulator.
+     * @param parallelism The number of worker threads
+     * @param leafSize The largest range of players simulated without splitting further
+     */
+    public ParallelTickSimulator(int parallelism, int leafSize) {
+        if (parallelism < 1 || leafSize < 1) {
+            throw new IllegalArgumentException("Parallelism and leaf size must be positive");
+        }
+        this.pool = new ForkJoinPool(parallelism, pool -> {
+            var worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            worker.setName("tick-simulate-" + worker.getPoolIndex());
+            worker.setDaemon(true);
+            return worker;
+        }, null, false);
+        this.leafSize = leafSize;
+    }
+
+    /**
+     * Simulates every player in the given shards and waits for all of them.
+     * @param shards The active action shards (playerId -> ActionState)
+     * @param simulation The per-player simulation
+     * @return The non-null results, grouped by shard
+     */
+    public List<TickResult> simulate(List<? extends Map<String, ActionState>> shards, Simulation simulation) {
+        List<ShardTask> tasks = new ArrayList<>(shards.size());
+        for (Map<String, ActionState> shard : shards) {
+            if (!shard.isEmpty()) {
+                tasks.add(new ShardTask(shard, simulation));
+            }
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                ForkJoinTask.invokeAll(tasks);
+            }
+        });
+
+        List<TickResult> results = new ArrayList<>();
+        for (ShardTask task : tasks) {
+            for (TickResult result : task.results) {
+                if (result != null) {
+                    results.add(result);
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Gets the number of worker threads.
+     * @return The parallelism
+     */
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Gets the number of tasks stolen by idle workers so far (a rough measure of load balancing).
+     * @return The steal count
+     */
+    public long getStealCount() {
+        return pool.getStealCount();
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    // Snapshots a shard and simulates it as a range task
+    private final class ShardTask extends RecursiveAction {
+        private final Map<String, ActionState> shard;
+        private final Simulation simulation;
+        private TickResult[] results = new TickResult[0];
+
+        ShardTask(Map<String, ActionState> shard, Simulation simulation) {
+            this.shard = shard;
+            this.simulation = simulation;
+        }
+
+        @Override
+        protected void compute() {
+            // The shard may change while the tick runs; players added after the snapshot wait for the next tick
+            @SuppressWarnings("unchecked")
+            Map.Entry<String, ActionState>[] entries = shard.entrySet().toArray(new Map.Entry[0]);
+            results = new TickResult[entries.length];
+            new RangeTask(entries, results, 0, entries.length, simulation).compute();
+        }
+    }
+
+    // Simulates entries[from, to), forking the first half and working on the second
+    private final class RangeTask extends RecursiveAction {
+        private final Map.Entry<String, ActionState>[] entries;
+        private final TickResult[] results;
+        private final int from;
+        private final int to;
+        private final Simulation simulation;
+
+        RangeTask(Map.Entry<String, ActionState>[] entries, TickResult[] results, int from, int to, Simulation simulation) {
+            this.entries = entries;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.simulation = simulation;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= leafSize) {
+                for (int i = from; i < to; i++) {
+                    String playerId = entries[i].getKey();
+                    try {
+                        results[i] = simulation.simulate(playerId, entries[i].getValue());
+                    } catch (Exception e) {
+                        System.err.println("Error simulating tick for player " + playerId + ": " + e.getMessage());
+                    }
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            RangeTask left = new RangeTask(entries, results, from, mid, simulation);
+            left.fork();
+            new RangeTask(entries, results, mid, to, simulation).compute();
+            left.join();
+        }
+    }
+}
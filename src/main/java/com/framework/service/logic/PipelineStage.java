@@ -0,0 +1,153 @@
+package com.framework.service.logic;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * One stage of the tick pipeline: a fixed set of worker threads, each with its own bounded queue.
+ * Items are routed to a worker by partition (e.g. a hash of the player ID), so items of the same
+ * partition are handled in order. Each worker drains everything queued so far and hands it to
+ * the handler as one batch.
+ * Submitting never blocks: when a worker's queue is full the item is rejected and the caller decides
+ * whether to retry later or drop it.
+ *
+ * @param <T> The item type
+ */
+public class PipelineStage<T> {
+    private final String name;
+    private final int maxBatch;
+    private final Consumer<List<T>> handler;
+    private final List<BlockingQueue<T>> queues = new ArrayList<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private final AtomicLong rejected = new AtomicLong();
+    private volatile boolean running;
+
+    /**
+     * Creates a stage.
+     * @param name The stage name (used for thread names)
+     * @param threads The number of worker threads (partitions)
+     * @param queueCapacity The capacity of each worker's queue
+     * @param maxBatch The maximum number of items handed to the handler at once
+     * @param handler Handles a batch of items on a worker thread
+     */
+    public PipelineStage(String name, int threads, int queueCapacity, int maxBatch, Consumer<List<T>> handler) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Pipeline stage needs at least one thread: " + name);
+        }
+        this.name = name;
+        this.maxBatch = maxBatch;
+        this.handler = handler;
+        for (int i = 0; i < threads; i++) {
+            queues.add(new ArrayBlockingQueue<>(queueCapacity));
+        }
+    }
+
+    /**
+     * Starts the worker threads.
+     */
+    public void start() {
+        running = true;
+        for (int i = 0; i < queues.size(); i++) {
+            BlockingQueue<T> queue = queues.get(i);
+            Thread worker = new Thread(() -> work(queue), name + "-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    /**
+     * Stops the workers after they have handled everything already queued.
+     * @param timeoutMillis How long to wait for each worker to finish
+     */
+    public void stop(long timeoutMillis) {
+        running = false;
+        for (Thread worker : workers) {
+            try {
+                worker.join(timeoutMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of partitions (worker threads).
+     * @return The number of partitions
+     */
+    public int partitions() {
+        return queues.size();
+    }
+
+    /**
+     * Gets the partition for a key, so related items always go to the same worker.
+     * @param key The partition key (e.g. a player ID)
+     * @return The partition index
+     */
+    public int partitionFor(String key) {
+        return Math.floorMod(key.hashCode(), queues.size());
+    }
+
+    /**
+     * Queues an item for a partition without blocking.
+     * @param partition The partition index
+     * @param item The item
+     * @return false if the partition's queue is full and the item was rejected
+     */
+    public boolean submit(int partition, T item) {
+        if (queues.get(partition).offer(item)) {
+            return true;
+        }
+        rejected.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Gets the number of items waiting across all partitions.
+     * @return The total queue depth
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (BlockingQueue<T> queue : queues) {
+            depth += queue.size();
+        }
+        return depth;
+    }
+
+    /**
+     * Gets the number of items rejected because a queue was full.
+     * @return The rejected count
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    private void work(BlockingQueue<T> queue) {
+        List<T> batch = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                T first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+                handler.accept(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                System.err.println("Error in pipeline stage " + name + ": " + e.getMessage());
+                e.printStackTrace();
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+}
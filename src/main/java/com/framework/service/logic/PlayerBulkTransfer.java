@@ -0,0 +1,204 @@
+package com.framework.service.logic;
+
+import com.framework.data.staticdata.StaticItemData;
+import com.framework.data.staticdata.StaticSkillData;
+import com.framework.service.core.CsvRecordReader;
+import com.framework.service.repos.BulkCopyRepository;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Bulk export and import of players (player, agent_state, player_skill and player_item) as one
+ * CSV file per table, over the Postgres COPY protocol.
+ *
+ * Export streams each table straight from COPY into its file. Import streams each file in chunks:
+ * every chunk is validated (item and skill IDs against the static data, stackable taken from the item)
+ * and loaded with one COPY in its own transaction, together with the import's progress. Running the same
+ * import ID again after a failure skips the rows already committed. player_item IDs are not exported;
+ * imported rows draw new ones from player_item_seq.
+ * Import players that are not online: the in-memory caches are not updated.
+ */
+@ApplicationScoped
+public class PlayerBulkTransfer {
+
+    // In import order: the other tables refer to player rows
+    private static final Table[] TABLES = {
+        new Table("player", "id,name,level,experience"),
+        new Table("agent_state", "id,agent_type,current_location,health,max_health,mana,max_mana,state_data"),
+        new Table("player_skill", "player_id,skill_id,experience,level"),
+        new Table("player_item", "owner_id,item_id,quantity,slot,current_durability")
+    };
+
+    @Inject
+    BulkCopyRepository bulkCopyRepository;
+
+    @Inject
+    PlayerExperienceCache experienceCache;
+
+    @Inject
+    PlayerInventoryCache inventoryCache;
+
+    // Rows per COPY/transaction during import; also the most rows held in memory at once
+    @ConfigProperty(name = "game.bulk.import-chunk-rows", defaultValue = "10000")
+    int chunkRows;
+
+    // Exports and imports only read and write below this directory
+    @ConfigProperty(name = "game.bulk.base-directory", defaultValue = "data/bulk")
+    String baseDirectory;
+
+    private static final class Table {
+        final String name;
+        final String columns;
+
+        Table(String name, String columns) {
+            this.name = name;
+            this.columns = columns;
+        }
+
+        Path file(Path directory) {
+            return directory.resolve(name + ".csv");
+        }
+    }
+
+    /**
+     * Resolves a directory name given by an admin against the configured base directory.
+     * @param directory The directory, relative to the base directory
+     * @return The absolute, normalized directory
+     * @throws IllegalArgumentException If the directory is absolute or resolves outside the base directory
+     */
+    public Path resolveDirectory(String directory) {
+        Path base = Path.of(baseDirectory).toAbsolutePath().normalize();
+        Path requested = Path.of(directory);
+        Path resolved = base.resolve(requested).normalize();
+        if (requested.isAbsolute() || !resolved.startsWith(base)) {
+            throw new IllegalArgumentException("Directory must be relative to and inside " + base + ": " + directory);
+        }
+        return resolved;
+    }
+
+    /**
+     * Writes every player to one CSV file per table (after writing out the cached experience and inventories).
+     * @param directory The directory to write into (created if missing; existing files are replaced)
+     * @return Map of table name to number of rows exported
+     */
+    public Map<String, Long> exportTo(Path directory) {
+        experienceCache.flush();
+        inventoryCache.flush();
+        Map<String, Long> counts = new LinkedHashMap<>();
+        try {
+            Files.createDirectories(directory);
+            for (Table table : TABLES) {
+                try (OutputStream out = Files.newOutputStream(table.file(directory))) {
+                    long rows = QuarkusTransaction.requiringNew().call(
+                        () -> bulkCopyRepository.copyOut(table.name, table.columns, out));
+                    counts.put(table.name, rows);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to export players to " + directory, e);
+        }
+        System.out.println("Exported players to " + directory.toAbsolutePath() + ": " + counts);
+        return counts;
+    }
+
+    /**
+     * Imports the CSV files written by exportTo. Missing files are skipped.
+     * @param directory The directory holding the files
+     * @param importId Identifies this import; run again with the same ID to resume after a failure
+     * @return Map of table name to number of rows committed for this import (including earlier runs)
+     * @throws IllegalArgumentException If a file has unexpected columns or a row refers to an unknown item or skill
+     *         (the rows before the failing chunk stay committed)
+     */
+    public Map<String, Long> importFrom(Path directory, String importId) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Table table : TABLES) {
+            Path file = table.file(directory);
+            if (!Files.exists(file)) {
+                continue;
+            }
+            try {
+                counts.put(table.name, importTable(table, file, importId));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read " + file, e);
+            }
+        }
+        System.out.println("Imported players from " + directory.toAbsolutePath() + " (" + importId + "): " + counts);
+        return counts;
+    }
+
+    private long importTable(Table table, Path file, String importId) throws IOException {
+        long done = QuarkusTransaction.requiringNew().call(() -> bulkCopyRepository.findImportProgress(importId, table.name));
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            CsvRecordReader records = new CsvRecordReader(reader);
+            String header = records.next();
+            if (header == null) {
+                return done;
+            }
+            if (!header.replace(" ", "").equals(table.columns)) {
+                throw new IllegalArgumentException(file.getFileName() + " has columns " + header + ", expected " + table.columns);
+            }
+            // Skip the rows committed by an earlier run of this import
+            for (long row = 0; row < done; row++) {
+                if (records.next() == null) {
+                    return done;
+                }
+            }
+            String columns = "player_item".equals(table.name) ? table.columns + ",stackable" : table.columns;
+            ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+            int chunkSize = 0;
+            String record;
+            while ((record = records.next()) != null) {
+                long row = records.getRecordNumber() - 1; // The header is record 1
+                chunk.write(validate(table, record, row).getBytes(StandardCharsets.UTF_8));
+                chunk.write('\n');
+                if (++chunkSize == chunkRows) {
+                    done = commitChunk(table, columns, chunk.toByteArray(), importId, done + chunkSize);
+                    chunk.reset();
+                    chunkSize = 0;
+                }
+            }
+            if (chunkSize > 0) {
+                done = commitChunk(table, columns, chunk.toByteArray(), importId, done + chunkSize);
+            }
+        }
+        return done;
+    }
+
+    private long commitChunk(Table table, String columns, byte[] csv, String importId, long doneAfter) {
+        QuarkusTransaction.requiringNew().run(() -> {
+            bulkCopyRepository.copyIn(table.name, columns, csv);
+            bulkCopyRepository.saveImportProgress(importId, table.name, doneAfter);
+        });
+        return doneAfter;
+    }
+
+    // Checks a record's static data references; player_item records get their stackable flag appended
+    private static String validate(Table table, String record, long row) {
+        if ("player_item".equals(table.name)) {
+            String itemId = CsvRecordReader.field(record, 1);
+            if (itemId == null || !StaticItemData.hasItem(itemId)) {
+                throw new IllegalArgumentException("Unknown itemId '" + itemId + "' in player_item.csv row " + row);
+            }
+            return record + (StaticItemData.getItem(itemId).isStackable() ? ",t" : ",f");
+        }
+        if ("player_skill".equals(table.name)) {
+            String skillId = CsvRecordReader.field(record, 1);
+            if (skillId == null || !StaticSkillData.hasSkill(skillId)) {
+                throw new IllegalArgumentException("Unknown skillId '" + skillId + "' in player_skill.csv row " + row);
+            }
+        }
+        return record;
+    }
+}
@@ -0,0 +1,442 @@
+package com.framework.service.logic;
+
+import com.framework.data.entity.PlayerEntity;
+import com.framework.data.entity.PlayerSkillEntity;
+import com.framework.data.staticdata.StaticSkillData;
+import com.framework.service.repos.PlayerRepository;
+import com.framework.service.repos.PlayerSkillRepository;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Write-behind cache for player experience and levels, per skill.
+ * Experience is added in memory; dirty players are written every flush interval, or sooner once
+ * enough players are dirty, as one JDBC batch of player UPDATEs plus one batch of player_skill
+ * upserts. This turns one UPDATE per player per tick into one per player per flush interval.
+ * A player's entry is loaded on first use and holds their absolute experience, so the cache
+ * must be the only writer of player.experience/level and of player_skill.
+ * Per-skill values live in primitive arrays indexed by StaticSkillData's skill index, and levels come
+ * from each skill's compiled curve, so adding experience and detecting level-ups does not allocate.
+ */
+@ApplicationScoped
+public class PlayerExperienceCache {
+
+    @Inject
+    PlayerRepository playerRepository;
+
+    @Inject
+    PlayerSkillRepository playerSkillRepository;
+    
+    @Inject
+    GameJournal journal;
+
+    // Max time between flushes of dirty players
+    @ConfigProperty(name = "game.xp.flush-interval-millis", defaultValue = "5000")
+    long flushIntervalMillis;
+
+    // Flush early once this many players are dirty
+    @ConfigProperty(name = "game.xp.flush-dirty-threshold", defaultValue = "2000")
+    int flushDirtyThreshold;
+
+    // Players loaded per query when restoring (keeps the IN list well below the bind parameter limit)
+    private static final int RESTORE_LOAD_BATCH = 1000;
+    
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final Object flushLock = new Object();
+    // Counts evictions, so a load that raced with one can tell its rows may predate the evicted player's write
+    private final Object evictionLock = new Object();
+    private long evictionCount; // Guarded by evictionLock
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "xp-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile long lastFlushTime = System.currentTimeMillis();
+
+    // Cached experience of one player (guarded by the entry itself)
+    private static final class Entry {
+        long experience; // Total over all skills
+        int level; // Highest skill level
+        boolean evicted; // Removed from the cache; writers must reload
+        final long[] skillExperience = new long[StaticSkillData.getSkillCount()];
+        final int[] skillLevels = new int[StaticSkillData.getSkillCount()];
+        final boolean[] skillDirty = new boolean[StaticSkillData.getSkillCount()];
+
+        Entry(PlayerEntity player) {
+            this.experience = player.experience;
+            this.level = player.level;
+            Arrays.fill(skillLevels, 1);
+        }
+
+        void loadSkill(PlayerSkillEntity skill) {
+            int index = StaticSkillData.getSkillIndex(skill.skillId);
+            if (index >= 0) {
+                skillExperience[index] = skill.experience;
+                skillLevels[index] = StaticSkillData.getSkillByIndex(index).getLevel(skill.experience);
+            }
+        }
+    }
+
+    // What a flush writes for one player
+    private static final class Snapshot {
+        final PlayerEntity player = new PlayerEntity();
+        final List<PlayerSkillEntity> skills = new ArrayList<>();
+    }
+
+    @PostConstruct
+    void init() {
+        long checkMillis = Math.max(100, flushIntervalMillis / 4);
+        flusher.scheduleWithFixedDelay(() -> {
+            try {
+                flushIfDue();
+            } catch (Exception e) {
+                System.err.println("Error flushing player experience: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Adds the experience of a batch of tick results in memory and records level-ups on them.
+     * Players not cached yet are loaded with two queries for the whole batch; unknown players are skipped.
+     * @param results The tick results (levelUp is set on those that reached a new level)
+     */
+    public void addExperience(List<TickResult> results) {
+        List<String> missing = new ArrayList<>();
+        for (TickResult result : results) {
+            if (result.experience > 0 && !entries.containsKey(result.playerId)) {
+                missing.add(result.playerId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            load(missing);
+        }
+
+        for (TickResult result : results) {
+            if (result.experience > 0) {
+                int level = add(result.playerId, StaticSkillData.getSkillIndex(result.skillId), result.experience);
+                if (level > 0) {
+                    result.levelUp = level;
+                }
+            }
+        }
+
+        if (dirty.size() >= flushDirtyThreshold) {
+            flush();
+        }
+    }
+
+    /**
+     * Adds experience to one player in memory.
+     * @param playerId The player ID
+     * @param skillId The skill trained (may be null or unknown, then only the total is updated)
+     * @param experienceGained The experience gained
+     * @return The new level in the skill if it went up, otherwise 0
+     */
+    public int addExperience(String playerId, String skillId, long experienceGained) {
+        int level = add(playerId, StaticSkillData.getSkillIndex(skillId), experienceGained);
+        if (level < 0) {
+            throw new IllegalArgumentException("Player not found: " + playerId);
+        }
+        if (dirty.size() >= flushDirtyThreshold) {
+            flush();
+        }
+        return level;
+    }
+
+    /**
+     * Puts back experience recovered from the journal after a restart. Values only ever move up, so
+     * experience that was already written before the restart is left as it is.
+     * The restored players are dirty and written by the next flush.
+     * @param totalByPlayer Map of player ID to total experience
+     * @param skillsByPlayer Map of player ID to skill ID to experience in that skill
+     */
+    public void restore(Map<String, Long> totalByPlayer, Map<String, Map<String, Long>> skillsByPlayer) {
+        List<String> missing = new ArrayList<>();
+        for (String playerId : totalByPlayer.keySet()) {
+            if (!entries.containsKey(playerId)) {
+                missing.add(playerId);
+            }
+        }
+        for (int from = 0; from < missing.size(); from += RESTORE_LOAD_BATCH) {
+            load(missing.subList(from, Math.min(from + RESTORE_LOAD_BATCH, missing.size())));
+        }
+        
+        for (Map.Entry<String, Long> player : totalByPlayer.entrySet()) {
+            Entry entry = entries.get(player.getKey());
+            if (entry == null) {
+                continue; // Player deleted since
+            }
+            synchronized (entry) {
+                entry.experience = Math.max(entry.experience, player.getValue());
+                for (Map.Entry<String, Long> skill : skillsByPlayer.getOrDefault(player.getKey(), Map.of()).entrySet()) {
+                    int index = StaticSkillData.getSkillIndex(skill.getKey());
+                    if (index >= 0 && skill.getValue() > entry.skillExperience[index]) {
+                        entry.skillExperience[index] = skill.getValue();
+                        entry.skillLevels[index] = StaticSkillData.getSkillByIndex(index).getLevel(skill.getValue());
+                        entry.skillDirty[index] = true;
+                        entry.level = Math.max(entry.level, entry.skillLevels[index]);
+                    }
+                }
+            }
+            dirty.add(player.getKey());
+        }
+    }
+    
+    /**
+     * Copies the cached (not yet flushed) experience and level onto a player loaded from the database.
+     * @param player The player entity (may be null)
+     * @return The same player entity
+     */
+    public PlayerEntity overlay(PlayerEntity player) {
+        if (player == null) {
+            return null;
+        }
+        Entry entry = entries.get(player.id);
+        if (entry != null) {
+            synchronized (entry) {
+                player.experience = entry.experience;
+                player.level = entry.level;
+            }
+        }
+        return player;
+    }
+
+    /**
+     * Gets a player's experience and level in every skill they have trained.
+     * @param playerId The player ID
+     * @return List of PlayerSkillEntity objects (from the cache if the player is cached)
+     */
+    public List<PlayerSkillEntity> getSkills(String playerId) {
+        Entry entry = entries.get(playerId);
+        if (entry == null) {
+            return playerSkillRepository.findByPlayerId(playerId);
+        }
+        List<PlayerSkillEntity> skills = new ArrayList<>();
+        synchronized (entry) {
+            for (int i = 0; i < entry.skillExperience.length; i++) {
+                if (entry.skillExperience[i] > 0) {
+                    skills.add(new PlayerSkillEntity(playerId, StaticSkillData.getSkillByIndex(i).getId(),
+                        entry.skillExperience[i], entry.skillLevels[i]));
+                }
+            }
+        }
+        return skills;
+    }
+
+    /**
+     * Writes all dirty players if the flush interval has passed.
+     */
+    public void flushIfDue() {
+        if (!dirty.isEmpty() && System.currentTimeMillis() - lastFlushTime >= flushIntervalMillis) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes all dirty players in one JDBC batch (plus one batch of skill upserts), in a transaction of its own.
+     * Players whose write fails stay dirty.
+     * @return The number of players written
+     */
+    public int flush() {
+        synchronized (flushLock) {
+            lastFlushTime = System.currentTimeMillis();
+            List<String> playerIds = new ArrayList<>(dirty);
+            List<Snapshot> snapshots = new ArrayList<>(playerIds.size());
+            for (String playerId : playerIds) {
+                dirty.remove(playerId);
+                Entry entry = entries.get(playerId);
+                if (entry != null) {
+                    snapshots.add(snapshot(playerId, entry));
+                }
+            }
+            write(playerIds, snapshots);
+            return snapshots.size();
+        }
+    }
+
+    /**
+     * Writes one player (if dirty), in a transaction of its own, and drops them from the cache, e.g. when they disconnect.
+     * The player stays cached until the write has committed, so a concurrent load cannot read the old values back in.
+     * A player who gained experience while being written stays cached (and dirty) for the next flush.
+     * @param playerId The player ID
+     */
+    public void flushPlayer(String playerId) {
+        synchronized (flushLock) {
+            Entry entry = entries.get(playerId);
+            if (entry == null) {
+                return;
+            }
+            if (dirty.remove(playerId)) {
+                write(List.of(playerId), List.of(snapshot(playerId, entry))); // Dirty again if it fails
+            }
+            synchronized (entry) {
+                if (dirty.contains(playerId)) {
+                    return;
+                }
+                entry.evicted = true;
+                synchronized (evictionLock) {
+                    evictionCount++;
+                    entries.remove(playerId, entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops the background flusher and writes everything still dirty (called on shutdown).
+     */
+    public void shutdown() {
+        flusher.shutdown();
+        flush();
+    }
+
+    /**
+     * Gets the number of players with unflushed experience.
+     * @return The dirty player count
+     */
+    public int getDirtyCount() {
+        return dirty.size();
+    }
+
+    // Loads players and their skills with one query each, in a transaction of its own so the rows are read
+    // fresh rather than taken from the caller's persistence context. Reloads if a player was evicted meanwhile:
+    // the rows read may predate that player's final write, and an entry cached from them would lose experience.
+    private void load(List<String> playerIds) {
+        while (true) {
+            long evictionsBefore;
+            synchronized (evictionLock) {
+                evictionsBefore = evictionCount;
+            }
+            Map<String, Entry> loaded = QuarkusTransaction.requiringNew().call(() -> {
+                Map<String, Entry> read = new HashMap<>();
+                for (PlayerEntity player : playerRepository.findByIds(playerIds)) {
+                    read.put(player.id, new Entry(player));
+                }
+                if (!read.isEmpty()) {
+                    for (PlayerSkillEntity skill : playerSkillRepository.findByPlayerIds(read.keySet())) {
+                        read.get(skill.playerId).loadSkill(skill);
+                    }
+                }
+                return read;
+            });
+            if (loaded.isEmpty()) {
+                return;
+            }
+            synchronized (evictionLock) {
+                if (evictionCount != evictionsBefore) {
+                    continue;
+                }
+                for (Map.Entry<String, Entry> entry : loaded.entrySet()) {
+                    entries.putIfAbsent(entry.getKey(), entry.getValue());
+                }
+                return;
+            }
+        }
+    }
+
+    // Returns the new skill level if it went up, 0 if not, or -1 if the player does not exist
+    private int add(String playerId, int skillIndex, long experienceGained) {
+        while (true) {
+            Entry entry = entries.get(playerId);
+            if (entry == null) {
+                // Not loaded yet, or evicted since
+                load(List.of(playerId));
+                if (!entries.containsKey(playerId)) {
+                    return -1;
+                }
+                continue;
+            }
+            long totalExperience;
+            long skillExperience = 0;
+            int newLevel = 0;
+            synchronized (entry) {
+                if (entry.evicted) {
+                    continue;
+                }
+                totalExperience = entry.experience += experienceGained;
+                dirty.add(playerId);
+                if (skillIndex >= 0) {
+                    skillExperience = entry.skillExperience[skillIndex] += experienceGained;
+                    entry.skillDirty[skillIndex] = true;
+                    int level = StaticSkillData.getSkillByIndex(skillIndex).getLevel(skillExperience);
+                    if (level != entry.skillLevels[skillIndex]) {
+                        entry.skillLevels[skillIndex] = level;
+                        entry.level = Math.max(entry.level, level);
+                        newLevel = level;
+                    }
+                }
+            }
+            // Journaled outside the entry lock; replay keeps the highest value per player and skill, so
+            // records of concurrent gains may land in either order
+            journal.experience(playerId, skillIndex < 0 ? null : StaticSkillData.getSkillByIndex(skillIndex).getId(),
+                skillExperience, totalExperience);
+            return newLevel;
+        }
+    }
+
+    // Dirty skills stay dirty until the write has committed (see write)
+    private Snapshot snapshot(String playerId, Entry entry) {
+        Snapshot snapshot = new Snapshot();
+        snapshot.player.id = playerId;
+        synchronized (entry) {
+            snapshot.player.experience = entry.experience;
+            snapshot.player.level = entry.level;
+            for (int i = 0; i < entry.skillDirty.length; i++) {
+                if (entry.skillDirty[i]) {
+                    snapshot.skills.add(new PlayerSkillEntity(playerId, StaticSkillData.getSkillByIndex(i).getId(),
+                        entry.skillExperience[i], entry.skillLevels[i]));
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    private void write(List<String> playerIds, List<Snapshot> snapshots) {
+        List<PlayerEntity> players = new ArrayList<>(snapshots.size());
+        List<PlayerSkillEntity> skills = new ArrayList<>();
+        for (Snapshot snapshot : snapshots) {
+            players.add(snapshot.player);
+            skills.addAll(snapshot.skills);
+        }
+        try {
+            QuarkusTransaction.requiringNew().run(() -> {
+                playerRepository.updateExperienceBatch(players);
+                playerSkillRepository.upsertBatch(skills);
+            });
+        } catch (RuntimeException e) {
+            // Nothing was committed: the players are dirty again and their skills never stopped being dirty
+            dirty.addAll(playerIds);
+            throw e;
+        }
+        // Committed: a skill is clean unless it gained experience since the snapshot (experience only goes up)
+        for (Snapshot snapshot : snapshots) {
+            Entry entry = entries.get(snapshot.player.id);
+            if (entry == null) {
+                continue;
+            }
+            synchronized (entry) {
+                for (PlayerSkillEntity skill : snapshot.skills) {
+                    int index = StaticSkillData.getSkillIndex(skill.skillId);
+                    if (entry.skillExperience[index] == skill.experience) {
+                        entry.skillDirty[index] = false;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package com.framework.service.logic;
+
+import com.framework.data.entity.PlayerItemEntity;
+import com.framework.data.model.Item;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Authoritative in-memory inventory of one online player.
+ * Loaded once when the player connects; every change is applied here and recorded as dirty
+ * (new or changed stacks, removed instances) until PlayerInventoryCache writes it out in a batch.
+ * Items held here are never managed by Hibernate. Callers only ever receive copies.
+ * All methods are synchronized on the inventory. Once unloaded (closed) it rejects every call, so
+ * callers that may race with an unload check isClosed() while holding the inventory's lock.
+ * Changes are also tracked separately for the journal, per item under a journal key that stays the same
+ * for the item's lifetime in memory (database IDs are only assigned later).
+ */
+public class PlayerInventory {
+    private final String playerId;
+    private final List<PlayerItemEntity> items = new ArrayList<>();
+    private final Set<PlayerItemEntity> dirty = Collections.newSetFromMap(new IdentityHashMap<>()); // New (id == null) or changed
+    private final List<Long> removedIds = new ArrayList<>();
+    private boolean closed; // Unloaded: callers must fall back to the database
+    private final Map<PlayerItemEntity, Integer> journalKeys = new IdentityHashMap<>();
+    private final Set<PlayerItemEntity> journalDirty = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final List<Integer> journalRemovedKeys = new ArrayList<>();
+    private int nextJournalKey;
+    private long journalEpoch = -1; // GameJournal epoch of the last full image
+    // Orders the journal records of this inventory; GameJournal encodes them under it, outside the inventory lock
+    final Object journalLock = new Object();
+
+    /**
+     * Changes taken from an inventory for writing, with copies of the rows as they were at that moment.
+     */
+    static final class Changes {
+        final PlayerInventory inventory;
+        final List<PlayerItemEntity> inserted = new ArrayList<>(); // Originals, in the same order as insertRows
+        final List<PlayerItemEntity> insertRows = new ArrayList<>();
+        final List<PlayerItemEntity> updated = new ArrayList<>(); // Originals, in the same order as updateRows
+        final List<PlayerItemEntity> updateRows = new ArrayList<>();
+        final List<Long> deletedIds = new ArrayList<>();
+
+        Changes(PlayerInventory inventory) {
+            this.inventory = inventory;
+        }
+
+        boolean isEmpty() {
+            return insertRows.isEmpty() && updateRows.isEmpty() && deletedIds.isEmpty();
+        }
+    }
+
+    /**
+     * Changes taken from an inventory for the journal: copies of the changed items (or of all items for a
+     * full image) with their journal keys, and the keys of removed items.
+     */
+    static final class JournalChanges {
+        final boolean full;
+        final List<Integer> keys = new ArrayList<>();
+        final List<PlayerItemEntity> items = new ArrayList<>(); // In the same order as keys
+        final List<Integer> removedKeys = new ArrayList<>();
+
+        JournalChanges(boolean full) {
+            this.full = full;
+        }
+    }
+
+    PlayerInventory(String playerId, List<PlayerItemEntity> loaded) {
+        this.playerId = playerId;
+        for (PlayerItemEntity item : loaded) {
+            PlayerItemEntity copy = copyOf(item);
+            items.add(copy);
+            journalKeys.put(copy, nextJournalKey++);
+        }
+    }
+
+    public String getPlayerId() {
+        return playerId;
+    }
+
+    /**
+     * Adds an item, stacking onto an existing INVENTORY stack if the item is stackable.
+     * @param item The item blueprint
+     * @param quantity The quantity to add
+     * @return A copy of the created or updated item
+     */
+    public synchronized PlayerItemEntity add(Item item, int quantity) {
+        checkOpen();
+        if (item.isStackable()) {
+            PlayerItemEntity stack = findInInventory(item.getId());
+            if (stack != null) {
+                stack.quantity += quantity;
+                dirty.add(stack);
+                journalDirty.add(stack);
+                return copyOf(stack);
+            }
+        }
+        PlayerItemEntity newItem = new PlayerItemEntity(playerId, item.getId(), quantity);
+        newItem.stackable = item.isStackable();
+        if (item.isEquipable() && item.getEquipmentDetails() != null) {
+            newItem.currentDurability = (float) item.getEquipmentDetails().getDurabilityMax();
+        }
+        items.add(newItem);
+        dirty.add(newItem);
+        journalKeys.put(newItem, nextJournalKey++);
+        journalDirty.add(newItem);
+        return copyOf(newItem);
+    }
+
+    /**
+     * Removes a quantity of an item, deleting the instance once it reaches zero.
+     * @param itemId The item blueprint ID
+     * @param quantity The quantity to remove
+     * @return true if removed, false if not found or insufficient quantity
+     */
+    public synchronized boolean remove(String itemId, int quantity) {
+        checkOpen();
+        PlayerItemEntity item = find(itemId);
+        if (item == null || item.quantity < quantity) {
+            return false;
+        }
+        item.quantity -= quantity;
+        if (item.quantity > 0) {
+            dirty.add(item);
+            journalDirty.add(item);
+            return true;
+        }
+        items.remove(item);
+        dirty.remove(item);
+        journalDirty.remove(item);
+        journalRemovedKeys.add(journalKeys.remove(item));
+        if (item.id != null) {
+            removedIds.add(item.id);
+        }
+        // An item still being inserted is deleted once its ID is known (see completeChanges)
+        return true;
+    }
+
+    /**
+     * Checks if the inventory holds a sufficient quantity of an item.
+     * @param itemId The item blueprint ID
+     * @param requiredQuantity The required quantity
+     * @return true if the player has at least the required quantity
+     */
+    public synchronized boolean has(String itemId, int requiredQuantity) {
+        checkOpen();
+        PlayerItemEntity item = find(itemId);
+        return item != null && item.quantity >= requiredQuantity;
+    }
+
+    /**
+     * Moves an item from INVENTORY to a slot, moving whatever was in that slot back to INVENTORY.
+     * @param playerItemId The item instance ID
+     * @param slot The equipment slot
+     * @return A copy of the equipped item, or null if there is no such item
+     */
+    public synchronized PlayerItemEntity equip(Long playerItemId, String slot) {
+        checkOpen();
+        PlayerItemEntity target = null;
+        for (PlayerItemEntity item : items) {
+            if (playerItemId.equals(item.id)) {
+                target = item;
+                break;
+            }
+        }
+        if (target == null) {
+            return null;
+        }
+        for (PlayerItemEntity item : items) {
+            if (slot.equals(item.slot)) {
+                item.slot = "INVENTORY";
+                dirty.add(item);
+                journalDirty.add(item);
+            }
+        }
+        target.slot = slot;
+        dirty.add(target);
+        journalDirty.add(target);
+        return copyOf(target);
+    }
+
+    /**
+     * Gets a copy of every item instance (equipped or not).
+     * @return List of item copies
+     */
+    public synchronized List<PlayerItemEntity> getItems() {
+        checkOpen();
+        List<PlayerItemEntity> copies = new ArrayList<>(items.size());
+        for (PlayerItemEntity item : items) {
+            copies.add(copyOf(item));
+        }
+        return copies;
+    }
+
+    /**
+     * Gets a copy of every equipped item instance.
+     * @return List of item copies where slot is not INVENTORY
+     */
+    public synchronized List<PlayerItemEntity> getEquipped() {
+        checkOpen();
+        List<PlayerItemEntity> copies = new ArrayList<>();
+        for (PlayerItemEntity item : items) {
+            if (!"INVENTORY".equals(item.slot)) {
+                copies.add(copyOf(item));
+            }
+        }
+        return copies;
+    }
+
+    /**
+     * Looks up an item by its blueprint ID.
+     * @param itemId The item blueprint ID
+     * @return A copy of the first matching item, or null
+     */
+    public synchronized PlayerItemEntity getItem(String itemId) {
+        checkOpen();
+        PlayerItemEntity item = find(itemId);
+        return item == null ? null : copyOf(item);
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    synchronized boolean hasChanges() {
+        return !dirty.isEmpty() || !removedIds.isEmpty();
+    }
+
+    /**
+     * Takes all pending changes for writing. Items being inserted stay ID-less until completeChanges.
+     * @return The changes (possibly empty)
+     */
+    synchronized Changes takeChanges() {
+        Changes changes = new Changes(this);
+        for (PlayerItemEntity item : dirty) {
+            if (item.id == null) {
+                changes.inserted.add(item);
+                changes.insertRows.add(copyOf(item));
+            } else {
+                changes.updated.add(item);
+                changes.updateRows.add(copyOf(item));
+            }
+        }
+        changes.deletedIds.addAll(removedIds);
+        dirty.clear();
+        removedIds.clear();
+        return changes;
+    }
+
+    /**
+     * Takes the changes made since the last call, for the journal. Call with journalLock held, so the
+     * records of one inventory are appended in the order they were taken.
+     * @param epoch The journal's current epoch (GameJournal.getEpoch); the first call in a new epoch
+     *        takes a full image, since earlier records may be deleted by then
+     * @return The changes, or null if there are none or the inventory is unloaded
+     */
+    synchronized JournalChanges takeJournalChanges(long epoch) {
+        if (closed) {
+            return null; // Released: the database is authoritative and nothing more may be journaled
+        }
+        boolean full = epoch != journalEpoch;
+        if (!full && journalDirty.isEmpty() && journalRemovedKeys.isEmpty()) {
+            return null;
+        }
+        JournalChanges changes = new JournalChanges(full);
+        for (PlayerItemEntity item : full ? items : journalDirty) {
+            changes.keys.add(journalKeys.get(item));
+            changes.items.add(copyOf(item));
+        }
+        if (!full) {
+            changes.removedKeys.addAll(journalRemovedKeys);
+        }
+        journalEpoch = epoch;
+        journalDirty.clear();
+        journalRemovedKeys.clear();
+        return changes;
+    }
+
+    /**
+     * Applies the outcome of writing changes taken earlier.
+     * On success the inserted items receive their generated IDs; on failure everything is marked dirty again.
+     * @param changes The changes from takeChanges
+     * @param written Whether the write committed
+     */
+    synchronized void completeChanges(Changes changes, boolean written) {
+        if (written) {
+            for (int i = 0; i < changes.inserted.size(); i++) {
+                PlayerItemEntity item = changes.inserted.get(i);
+                item.id = changes.insertRows.get(i).id;
+                if (!items.contains(item)) {
+                    removedIds.add(item.id); // Removed while it was being inserted
+                }
+            }
+            return;
+        }
+        for (PlayerItemEntity item : changes.inserted) {
+            if (items.contains(item)) {
+                dirty.add(item);
+            }
+        }
+        for (PlayerItemEntity item : changes.updated) {
+            if (items.contains(item)) {
+                dirty.add(item);
+            }
+        }
+        removedIds.addAll(changes.deletedIds);
+    }
+
+    // Called with the inventory lock held by PlayerInventoryCache.unload
+    void close() {
+        closed = true;
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Inventory is no longer loaded for player: " + playerId);
+        }
+    }
+
+    private PlayerItemEntity find(String itemId) {
+        for (PlayerItemEntity item : items) {
+            if (item.itemId.equals(itemId)) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    private PlayerItemEntity findInInventory(String itemId) {
+        for (PlayerItemEntity item : items) {
+            if (item.itemId.equals(itemId) && "INVENTORY".equals(item.slot)) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    static PlayerItemEntity copyOf(PlayerItemEntity item) {
+        PlayerItemEntity copy = new PlayerItemEntity(item.ownerId, item.itemId, item.quantity);
+        copy.id = item.id;
+        copy.slot = item.slot;
+        copy.currentDurability = item.currentDurability;
+        copy.stackable = item.stackable;
+        return copy;
+    }
+}
@@ -0,0 +1,212 @@
+package com.framework.service.logic;
+
+import com.framework.data.entity.PlayerItemEntity;
+import com.framework.service.repos.PlayerItemRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Holds the in-memory inventories of online players and writes their changes behind in batches.
+ * An inventory is loaded when the player connects and unloaded (after a final write) when they
+ * disconnect. Players that are not loaded keep going straight to the database.
+ * Each flush writes the changes of all dirty inventories in one transaction: inserts for new
+ * items, one JDBC batch of updates and one DELETE for removed instances.
+ */
+@ApplicationScoped
+public class PlayerInventoryCache {
+
+    @Inject
+    PlayerItemRepository playerItemRepository;
+    
+    @Inject
+    GameJournal journal;
+
+    // Max time between writes of changed inventories
+    @ConfigProperty(name = "game.inventory.flush-interval-millis", defaultValue = "5000")
+    long flushIntervalMillis;
+
+    private final Map<String, PlayerInventory> inventories = new ConcurrentHashMap<>();
+    private final Object flushLock = new Object();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "inventory-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    void init() {
+        flusher.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (Exception e) {
+                System.err.println("Error flushing inventories: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Loads a player's inventory into memory (one query), unless it is loaded already.
+     * @param playerId The player ID
+     * @return The player's inventory
+     */
+    @Transactional
+    public PlayerInventory load(String playerId) {
+        while (true) {
+            PlayerInventory existing = inventories.get(playerId);
+            if (existing != null) {
+                // Blocks while an unload is writing, then the closed inventory is replaced
+                if (!existing.isClosed()) {
+                    return existing;
+                }
+                inventories.remove(playerId, existing);
+                continue;
+            }
+            PlayerInventory loaded = new PlayerInventory(playerId, playerItemRepository.findByOwnerId(playerId));
+            if (inventories.putIfAbsent(playerId, loaded) == null) {
+                return loaded;
+            }
+        }
+    }
+
+    /**
+     * Gets a player's in-memory inventory.
+     * @param playerId The player ID
+     * @return The inventory, or null if the player's inventory is not loaded
+     */
+    public PlayerInventory get(String playerId) {
+        return inventories.get(playerId);
+    }
+
+    /**
+     * Writes the pending changes of every loaded inventory in one transaction.
+     * Changes whose write fails stay pending for the next flush.
+     * @return The number of inventories written
+     */
+    public int flush() {
+        synchronized (flushLock) {
+            List<PlayerInventory.Changes> pending = new ArrayList<>();
+            for (PlayerInventory inventory : inventories.values()) {
+                if (inventory.hasChanges()) {
+                    pending.add(inventory.takeChanges());
+                }
+            }
+            write(pending);
+            return pending.size();
+        }
+    }
+
+    /**
+     * Writes one player's pending changes now, keeping the inventory loaded.
+     * New items have no ID until written, so this is used before referring to an item by ID.
+     * @param playerId The player ID
+     */
+    public void flushPlayer(String playerId) {
+        synchronized (flushLock) {
+            PlayerInventory inventory = inventories.get(playerId);
+            if (inventory != null && inventory.hasChanges()) {
+                write(List.of(inventory.takeChanges()));
+            }
+        }
+    }
+
+    /**
+     * Writes a player's pending changes and drops their inventory from memory.
+     * The inventory stays locked until the write has committed, so a caller racing with the unload
+     * only falls back to the database once the database is up to date.
+     * If the write fails the inventory stays loaded and is retried by the next flush.
+     * @param playerId The player ID
+     */
+    public void unload(String playerId) {
+        synchronized (flushLock) {
+            PlayerInventory inventory = inventories.get(playerId);
+            if (inventory == null) {
+                return;
+            }
+            synchronized (inventory) {
+                write(List.of(inventory.takeChanges()));
+                inventory.close();
+                inventories.remove(playerId, inventory);
+            }
+            // The database is now authoritative again; journaled records must not overwrite it
+            journal.inventoryReleased(inventory);
+        }
+    }
+
+    /**
+     * Writes inventories recovered from the journal after a restart over the database rows
+     * (must run before any of these players is loaded).
+     * @param inventoriesByPlayer Map of player ID to the full recovered inventory
+     */
+    @Transactional
+    public void restore(Map<String, List<PlayerItemEntity>> inventoriesByPlayer) {
+        for (Map.Entry<String, List<PlayerItemEntity>> inventory : inventoriesByPlayer.entrySet()) {
+            playerItemRepository.replaceByOwnerId(inventory.getKey(), inventory.getValue());
+        }
+    }
+    
+    /**
+     * Stops the background flusher and writes everything still pending (called on shutdown).
+     */
+    public void shutdown() {
+        flusher.shutdown();
+        flush();
+    }
+
+    /**
+     * Gets the number of inventories held in memory.
+     * @return The loaded inventory count
+     */
+    public int getLoadedCount() {
+        return inventories.size();
+    }
+
+    // Writes and completes the changes; throws (after putting them back) if the write fails
+    private void write(List<PlayerInventory.Changes> pending) {
+        pending.removeIf(PlayerInventory.Changes::isEmpty);
+        if (pending.isEmpty()) {
+            return;
+        }
+        boolean written = false;
+        try {
+            writeChanges(pending);
+            written = true;
+        } finally {
+            for (PlayerInventory.Changes changes : pending) {
+                changes.inventory.completeChanges(changes, written);
+            }
+        }
+    }
+
+    /**
+     * Writes inventory changes in a transaction of its own, so they are committed when this returns.
+     * @param pending The changes taken from the inventories
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public void writeChanges(List<PlayerInventory.Changes> pending) {
+        List<PlayerItemEntity> updates = new ArrayList<>();
+        Map<String, List<Long>> deletes = new HashMap<>();
+        for (PlayerInventory.Changes changes : pending) {
+            for (PlayerItemEntity row : changes.insertRows) {
+                playerItemRepository.persist(row); // Assigns the ID handed back by completeChanges
+            }
+            updates.addAll(changes.updateRows);
+            if (!changes.deletedIds.isEmpty()) {
+                deletes.computeIfAbsent(changes.inventory.getPlayerId(), k -> new ArrayList<>()).addAll(changes.deletedIds);
+            }
+        }
+        playerItemRepository.updateBatch(updates);
+        playerItemRepository.deleteByIds(deletes);
+    }
+}
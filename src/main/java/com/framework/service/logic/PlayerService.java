@@ -1,11 +1,17 @@
 package com.framework.service.logic;
 
 import com.framework.data.entity.PlayerEntity;
+import com.framework.data.entity.PlayerItemEntity;
+import com.framework.data.entity.PlayerSkillEntity;
+import com.framework.data.model.PlayerSnapshot;
 import com.framework.service.core.StaticDataService;
 import com.framework.service.repos.PlayerRepository;
+import com.framework.service.repos.ReactivePlayerStore;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
 
 /**
  * Service for managing player-related business logic.
@@ -22,6 +28,15 @@ public class PlayerService {
     @Inject
     InventoryService inventoryService;
     
+    @Inject
+    PlayerExperienceCache experienceCache;
+    
+    @Inject
+    ReactivePlayerStore reactivePlayerStore;
+    
+    @Inject
+    AgentStateCache agentStateCache;
+    
     /**
      * Gets or creates a player. The single entry point for player login.
      * @param id The unique player ID
@@ -35,7 +50,7 @@ public class PlayerService {
             player = new PlayerEntity(id, "Player_" + id);
             playerRepository.persist(player);
         }
-        return player;
+        return experienceCache.overlay(player);
     }
     
     /**
@@ -45,6 +60,8 @@ public class PlayerService {
      */
     @Transactional
     public PlayerEntity savePlayer(PlayerEntity player) {
+        // Never write back a stale experience value over the cached one
+        experienceCache.overlay(player);
         playerRepository.persist(player);
         return player;
     }
@@ -68,7 +85,7 @@ public class PlayerService {
      * @return The PlayerEntity, or null if not found
      */
     public PlayerEntity getPlayer(String id) {
-        return playerRepository.findById(id);
+        return experienceCache.overlay(playerRepository.findById(id));
     }
     
     /**
@@ -77,37 +94,77 @@ public class PlayerService {
      * @return The PlayerEntity, or null if not found
      */
     public PlayerEntity getPlayerByName(String name) {
-        return playerRepository.findByName(name);
+        return experienceCache.overlay(playerRepository.findByName(name));
     }
     
     /**
      * Updates player experience and level.
+     * The change is kept in the write-behind cache and written to the database on the next flush.
      * @param playerId The player ID
      * @param skillId The skill ID
      * @param experienceGained The experience gained
      * @return The updated PlayerEntity
      */
-    @Transactional
     public PlayerEntity addExperience(String playerId, String skillId, long experienceGained) {
-        PlayerEntity player = playerRepository.findById(playerId);
-        if (player == null) {
-            throw new IllegalArgumentException("Player not found: " + playerId);
+        experienceCache.addExperience(playerId, skillId, experienceGained);
+        return getPlayer(playerId);
+    }
+    
+    /**
+     * Loads everything STATE_INIT shows about a player in one round trip: the player, their agent state
+     * and their items. Items come from memory instead while the player's inventory is loaded.
+     * @param playerId The player ID
+     * @return The snapshot, or null if the player does not exist
+     */
+    public PlayerSnapshot getSnapshot(String playerId) {
+        List<PlayerItemEntity> loadedItems = inventoryService.getLoadedInventory(playerId);
+        PlayerSnapshot snapshot = playerRepository.findSnapshot(playerId, loadedItems == null);
+        if (snapshot == null) {
+            return null;
         }
-        
-        // Update total experience (simplified - in real game, track per-skill)
-        player.experience += experienceGained;
-        
-        // Calculate level based on experience (simplified)
-        // In a real game, you'd check against skill-specific experience curves
-        player.level = calculateLevel(player.experience);
-        
-        playerRepository.persist(player);
-        return player;
+        return completeSnapshot(snapshot, loadedItems);
     }
     
-    private int calculateLevel(long totalExperience) {
-        // Simplified level calculation
-        // In a real game, use skill-specific experience curves
-        return (int) Math.min(100, Math.floor(Math.sqrt(totalExperience / 100.0)) + 1);
+    /**
+     * Same as getSnapshot, but runs the query on the reactive client without blocking the caller.
+     * @param playerId The player ID
+     * @return The snapshot (null if the player does not exist), completed on a Vert.x event loop thread
+     */
+    public CompletionStage<PlayerSnapshot> getSnapshotAsync(String playerId) {
+        List<PlayerItemEntity> loadedItems = inventoryService.getLoadedInventory(playerId);
+        return reactivePlayerStore.findSnapshot(playerId, loadedItems == null)
+            .map(snapshot -> snapshot == null ? null : completeSnapshot(snapshot, loadedItems))
+            .subscribeAsCompletionStage();
+    }
+    
+    // Applies the cached experience and the in-memory items (if loaded) to a snapshot read from the database
+    private PlayerSnapshot completeSnapshot(PlayerSnapshot snapshot, List<PlayerItemEntity> loadedItems) {
+        experienceCache.overlay(snapshot.getPlayer());
+        if (snapshot.getAgentState() != null) {
+            // Came with the same query, so later location lookups need none
+            agentStateCache.fill(snapshot.getAgentState());
+        }
+        if (loadedItems != null) {
+            snapshot = new PlayerSnapshot(snapshot.getPlayer(), snapshot.getAgentState(), loadedItems);
+        }
+        return snapshot;
+    }
+    
+    /**
+     * Adds the experience of a batch of tick results through the write-behind cache.
+     * Players not cached yet are loaded in bulk; unknown players are skipped.
+     * @param results The tick results (levelUp is set on those that reached a new level)
+     */
+    public void addExperienceBatch(List<TickResult> results) {
+        experienceCache.addExperience(results);
+    }
+    
+    /**
+     * Gets a player's experience and level in every skill they have trained.
+     * @param playerId The player ID
+     * @return List of PlayerSkillEntity objects
+     */
+    public List<PlayerSkillEntity> getSkills(String playerId) {
+        return experienceCache.getSkills(playerId);
     }
 }
@@ -0,0 +1,141 @@
+package com.framework.service.logic;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.security.SecureRandom;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Hands out independent, deterministic random streams for game simulation.
+ * Each stream is a fresh SplittableRandom seeded from (server seed, boot epoch, player ID, tick number, stream),
+ * so no state is shared between threads and any player's rolls can be reproduced exactly
+ * from those five values. Tick numbers restart at 0 on every boot; the epoch (logged at startup) tells the
+ * runs apart, so a fixed seed does not repeat the same rolls after a restart.
+ */
+@ApplicationScoped
+public class RngService {
+    
+    // Stream IDs keep different uses of randomness in the same tick independent
+    public static final int STREAM_TICK = 0; // Regular tick loot
+    public static final int STREAM_CATCH_UP = 1; // Offline catch-up on reconnect
+    public static final int STREAM_ACTION = 2; // Directly invoked actions (mining, crafting, ...)
+    public static final int STREAM_COMBAT = 3; // Combat rolls
+    
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    
+    // Fixed seed for reproducible runs; a random seed is generated if unset (never logged or exposed:
+    // with it, every future roll could be predicted)
+    @ConfigProperty(name = "game.rng.seed")
+    Optional<Long> configuredSeed;
+    
+    // Distinguishes the runs of one server seed; defaults to the boot time. Set it to replay a past run
+    @ConfigProperty(name = "game.rng.epoch")
+    Optional<Long> configuredEpoch;
+    
+    private long serverSeed;
+    private long epoch;
+    
+    // The tick currently being simulated, advanced by GameTickService
+    private volatile long currentTick;
+    
+    @PostConstruct
+    void init() {
+        serverSeed = configuredSeed.orElseGet(() -> new SecureRandom().nextLong());
+        epoch = configuredEpoch.orElseGet(System::currentTimeMillis);
+        // Safe to log: without the seed it predicts nothing, and replays of this run need it
+        System.out.println("RNG epoch: " + epoch);
+    }
+    
+    /**
+     * Gets the epoch of this run, needed together with a tick number to replay its rolls.
+     * @return The epoch
+     */
+    public long getEpoch() {
+        return epoch;
+    }
+    
+    /**
+     * Gets the tick number currently being simulated.
+     * @return The current tick number
+     */
+    public long getCurrentTick() {
+        return currentTick;
+    }
+    
+    /**
+     * Advances to the next tick number. Called once per game tick.
+     * @return The new tick number
+     */
+    public long advanceTick() {
+        return ++currentTick;
+    }
+    
+    /**
+     * Creates the random stream for a player in a given tick.
+     * The same arguments (with the same server seed) always produce the same sequence.
+     * @param playerId The player ID
+     * @param tick The tick number
+     * @param stream The stream ID (one of the STREAM_ constants)
+     * @return A new, unshared RandomGenerator
+     */
+    public RandomGenerator forPlayer(String playerId, long tick, int stream) {
+        return forPlayer(playerId, epoch, tick, stream);
+    }
+    
+    /**
+     * Creates the random stream for a player in a given tick of a given run (see getEpoch).
+     * @param playerId The player ID
+     * @param epoch The epoch of the run
+     * @param tick The tick number
+     * @param stream The stream ID (one of the STREAM_ constants)
+     * @return A new, unshared RandomGenerator
+     */
+    public RandomGenerator forPlayer(String playerId, long epoch, long tick, int stream) {
+        return new SplittableRandom(seedFor(playerId, epoch, tick, stream));
+    }
+    
+    /**
+     * Creates the random stream for a player in the current tick.
+     * @param playerId The player ID
+     * @param stream The stream ID (one of the STREAM_ constants)
+     * @return A new, unshared RandomGenerator
+     */
+    public RandomGenerator forPlayer(String playerId, int stream) {
+        return forPlayer(playerId, currentTick, stream);
+    }
+    
+    /**
+     * Derives the seed for a player, run, tick and stream.
+     * @param playerId The player ID
+     * @param epoch The epoch of the run
+     * @param tick The tick number
+     * @param stream The stream ID
+     * @return The 64-bit seed
+     */
+    public long seedFor(String playerId, long epoch, long tick, int stream) {
+        long seed = mix64(serverSeed ^ hashPlayerId(playerId));
+        seed = mix64(seed + epoch * GOLDEN_GAMMA);
+        seed = mix64(seed + tick * GOLDEN_GAMMA);
+        return mix64(seed + stream * GOLDEN_GAMMA);
+    }
+    
+    // 64-bit FNV-1a, stable across JVMs (unlike identity hashes)
+    private static long hashPlayerId(String playerId) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < playerId.length(); i++) {
+            hash ^= playerId.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        return hash;
+    }
+    
+    // SplitMix64 finalizer
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
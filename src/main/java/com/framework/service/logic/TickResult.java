@@ -0,0 +1,29 @@
+package com.framework.service.logic;
+
+/**
+ * The outcome of advancing one player's action by one game tick.
+ * Produced in memory by the simulation pass and written to the database in bulk afterwards.
+ */
+public class TickResult {
+    public final String playerId;
+    public final String skillId; // The skill trained by the action (may be null)
+    public long experience; // Whole experience points gained this tick
+    public LootSummary loot = LootSummary.EMPTY; // Items gained this tick
+    public String message; // Optional message for the player (e.g. action complete)
+    public int levelUp; // New level in skillId reached when this tick was persisted, 0 if none
+    public int persistAttempts; // Failed attempts to write this result (only touched by the persist stage)
+    public long persistSequence; // GameTickService persist sequence once written, 0 before
+
+    public TickResult(String playerId, String skillId) {
+        this.playerId = playerId;
+        this.skillId = skillId;
+    }
+
+    /**
+     * Checks whether this tick produced anything worth persisting or broadcasting.
+     * @return true if no experience, no loot and no message
+     */
+    public boolean isEmpty() {
+        return experience <= 0 && loot.isEmpty() && message == null;
+    }
+}
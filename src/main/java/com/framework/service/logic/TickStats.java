@@ -0,0 +1,167 @@
+package com.framework.service.logic;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tick budget accounting: per-phase timings, overrun and missed-tick counters and a short history
+ * of recent overruns. Written by the tick and pipeline threads, read by the debug endpoint.
+ */
+public class TickStats {
+    /**
+     * The timed phases of a tick. TIMERS, SIMULATE and SUBMIT run on the tick thread and count
+     * against the tick budget; PERSIST and BROADCAST run on their own stage threads.
+     */
+    public enum Phase { TIMERS, SIMULATE, SUBMIT, PERSIST, BROADCAST }
+
+    private static final int OVERRUN_HISTORY = 32;
+
+    private final long[] lastNanos = new long[Phase.values().length];
+    private final long[] maxNanos = new long[Phase.values().length];
+    private final long[] totalNanos = new long[Phase.values().length];
+    private final long[] samples = new long[Phase.values().length];
+    private final ArrayDeque<Overrun> recentOverruns = new ArrayDeque<>();
+
+    private long ticks;
+    private long overruns;
+    private long missedTicks;
+    private long persistFailures;
+    private long droppedResults;
+    private long lastTickMillis;
+    private long maxTickMillis;
+    private long intervalMillis;
+
+    /**
+     * A tick that took longer than its budget.
+     */
+    public static class Overrun {
+        public final long tick;
+        public final long startedAt; // Wall clock time the tick started
+        public final long durationMillis;
+        public final long budgetMillis; // The tick interval in effect
+        public final long lateMillis; // How late the tick started compared to its slot
+
+        Overrun(long tick, long startedAt, long durationMillis, long budgetMillis, long lateMillis) {
+            this.tick = tick;
+            this.startedAt = startedAt;
+            this.durationMillis = durationMillis;
+            this.budgetMillis = budgetMillis;
+            this.lateMillis = lateMillis;
+        }
+    }
+
+    /**
+     * Records the duration of one phase.
+     * @param phase The phase
+     * @param nanos The time spent in nanoseconds
+     */
+    public synchronized void recordPhase(Phase phase, long nanos) {
+        int i = phase.ordinal();
+        lastNanos[i] = nanos;
+        maxNanos[i] = Math.max(maxNanos[i], nanos);
+        totalNanos[i] += nanos;
+        samples[i]++;
+    }
+
+    /**
+     * Records a completed tick and whether it overran its budget.
+     * @param tick The tick number
+     * @param startedAt The wall clock time the tick started
+     * @param durationMillis How long the tick took on the tick thread
+     * @param budgetMillis The tick interval in effect
+     * @param lateMillis How late the tick started compared to its slot
+     * @return true if the tick overran its budget
+     */
+    public synchronized boolean recordTick(long tick, long startedAt, long durationMillis, long budgetMillis, long lateMillis) {
+        ticks++;
+        lastTickMillis = durationMillis;
+        maxTickMillis = Math.max(maxTickMillis, durationMillis);
+        if (durationMillis <= budgetMillis) {
+            return false;
+        }
+        overruns++;
+        if (recentOverruns.size() == OVERRUN_HISTORY) {
+            recentOverruns.removeFirst();
+        }
+        recentOverruns.addLast(new Overrun(tick, startedAt, durationMillis, budgetMillis, lateMillis));
+        return true;
+    }
+
+    /**
+     * Records tick slots that were skipped because the previous tick ran past them.
+     * @param count The number of skipped slots
+     */
+    public synchronized void recordMissed(long count) {
+        missedTicks += count;
+    }
+
+    /**
+     * Records a failed attempt to persist tick results (a whole batch or one player's results).
+     */
+    public synchronized void recordPersistFailure() {
+        persistFailures++;
+    }
+
+    /**
+     * Records tick results given up on after failing to persist too often.
+     * @param count The number of dropped results
+     */
+    public synchronized void recordDroppedResults(int count) {
+        droppedResults += count;
+    }
+
+    public synchronized void setIntervalMillis(long intervalMillis) {
+        this.intervalMillis = intervalMillis;
+    }
+
+    public synchronized long getOverrunCount() {
+        return overruns;
+    }
+
+    public synchronized long getMissedTickCount() {
+        return missedTicks;
+    }
+
+    /**
+     * Takes a snapshot of all counters (for the debug endpoint).
+     * @return A new map of counter name -> value
+     */
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("ticks", ticks);
+        result.put("intervalMillis", intervalMillis);
+        result.put("lastTickMillis", lastTickMillis);
+        result.put("maxTickMillis", maxTickMillis);
+        result.put("overruns", overruns);
+        result.put("missedTicks", missedTicks);
+        result.put("persistFailures", persistFailures);
+        result.put("droppedResults", droppedResults);
+
+        Map<String, Object> phases = new LinkedHashMap<>();
+        for (Phase phase : Phase.values()) {
+            int i = phase.ordinal();
+            Map<String, Object> timing = new LinkedHashMap<>();
+            timing.put("lastMillis", lastNanos[i] / 1_000_000.0);
+            timing.put("maxMillis", maxNanos[i] / 1_000_000.0);
+            timing.put("avgMillis", samples[i] == 0 ? 0.0 : totalNanos[i] / (double) samples[i] / 1_000_000.0);
+            phases.put(phase.name().toLowerCase(), timing);
+        }
+        result.put("phases", phases);
+
+        List<Map<String, Object>> overrunList = new ArrayList<>();
+        for (Overrun overrun : recentOverruns) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("tick", overrun.tick);
+            entry.put("startedAt", overrun.startedAt);
+            entry.put("durationMillis", overrun.durationMillis);
+            entry.put("budgetMillis", overrun.budgetMillis);
+            entry.put("lateMillis", overrun.lateMillis);
+            overrunList.add(entry);
+        }
+        result.put("recentOverruns", overrunList);
+        return result;
+    }
+}
@@ -3,6 +3,11 @@ package com.framework.service.repos;
 import com.framework.data.entity.AgentStateEntity;
 import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
 import jakarta.enterprise.context.ApplicationScoped;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.Map;
+import org.hibernate.Session;
 
 /**
  * Repository for AgentStateEntity.
@@ -10,4 +15,65 @@ import jakarta.enterprise.context.ApplicationScoped;
 @ApplicationScoped
 public class AgentStateRepository implements PanacheRepositoryBase<AgentStateEntity, String> {
     // Panache provides methods like persist(), findById(), findAll(), etc., automatically.
+
+    /**
+     * Loads the state data of every agent that has any, without loading the entities.
+     * @return Map of agent ID to state data (see StateDataCodec)
+     */
+    public Map<String, byte[]> findAllStateData() {
+        return getEntityManager().unwrap(Session.class).doReturningWork(connection -> {
+            Map<String, byte[]> stateData = new HashMap<>();
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT id, state_data FROM agent_state WHERE state_data IS NOT NULL");
+                 ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    stateData.put(rows.getString(1), rows.getBytes(2));
+                }
+            }
+            return stateData;
+        });
+    }
+
+    /**
+     * Sets a player's location in one statement, creating their agent state (with default stats)
+     * if there is none yet. Must be called inside a transaction.
+     * @param playerId The player ID
+     * @param locationId The location ID
+     */
+    public void upsertLocation(String playerId, String locationId) {
+        getEntityManager().unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO agent_state (id, agent_type, current_location, health, max_health, mana, max_mana) " +
+                    "VALUES (?, 'player', ?, 100, 100, 0, 0) " +
+                    "ON CONFLICT (id) DO UPDATE SET current_location = EXCLUDED.current_location")) {
+                statement.setString(1, playerId);
+                statement.setString(2, locationId);
+                statement.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * Writes the state data of many players as one JDBC batch, creating their agent state
+     * (at the starting location) where there is none yet. Must be called inside a transaction.
+     * @param stateDataByPlayer Map of player ID to state data (null clears it)
+     */
+    public void saveStateDataBatch(Map<String, byte[]> stateDataByPlayer) {
+        if (stateDataByPlayer.isEmpty()) {
+            return;
+        }
+        getEntityManager().unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO agent_state (id, agent_type, current_location, health, max_health, mana, max_mana, state_data) " +
+                    "VALUES (?, 'player', 'starting_location', 100, 100, 0, 0, ?) " +
+                    "ON CONFLICT (id) DO UPDATE SET state_data = EXCLUDED.state_data")) {
+                for (Map.Entry<String, byte[]> player : stateDataByPlayer.entrySet()) {
+                    statement.setString(1, player.getKey());
+                    statement.setBytes(2, player.getValue());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+    }
 }
@@ -0,0 +1,99 @@
+package com.framework.service.repos;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import org.hibernate.Session;
+import org.postgresql.PGConnection;
+
+/**
+ * Bulk table transfer over the Postgres COPY protocol, plus the progress records that make imports resumable.
+ * Used by PlayerBulkTransfer; methods must be called inside a transaction.
+ */
+@ApplicationScoped
+public class BulkCopyRepository {
+
+    @Inject
+    EntityManager entityManager;
+
+    /**
+     * Streams a table out as CSV with a header row. Copies from a query, since COPY cannot read a partitioned
+     * table (player_item) directly.
+     * @param table The table name
+     * @param columns The comma-separated column list
+     * @param out Receives the CSV (not closed)
+     * @return The number of rows written
+     */
+    public long copyOut(String table, String columns, OutputStream out) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try {
+                return connection.unwrap(PGConnection.class).getCopyAPI().copyOut(
+                    "COPY (SELECT " + columns + " FROM " + table + ") TO STDOUT WITH (FORMAT csv, HEADER)", out);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to export " + table, e);
+            }
+        });
+    }
+
+    /**
+     * Loads CSV rows (no header) into a table.
+     * @param table The table name
+     * @param columns The comma-separated column list, in the order of the CSV fields
+     * @param csv The rows
+     * @return The number of rows loaded
+     */
+    public long copyIn(String table, String columns, byte[] csv) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try {
+                return connection.unwrap(PGConnection.class).getCopyAPI().copyIn(
+                    "COPY " + table + " (" + columns + ") FROM STDIN WITH (FORMAT csv)", new ByteArrayInputStream(csv));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to import into " + table, e);
+            }
+        });
+    }
+
+    /**
+     * Gets how many rows of a file an import has committed.
+     * @param importId The import ID
+     * @param table The table the file belongs to
+     * @return The number of rows committed (0 if the import has not started on this table)
+     */
+    public long findImportProgress(String importId, String table) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT rows_done FROM bulk_import_progress WHERE import_id = ? AND table_name = ?")) {
+                statement.setString(1, importId);
+                statement.setString(2, table);
+                try (ResultSet rows = statement.executeQuery()) {
+                    return rows.next() ? rows.getLong(1) : 0L;
+                }
+            }
+        });
+    }
+
+    /**
+     * Records import progress; call in the same transaction as the COPY it accounts for.
+     * @param importId The import ID
+     * @param table The table the file belongs to
+     * @param rowsDone The number of rows committed so far
+     */
+    public void saveImportProgress(String importId, String table, long rowsDone) {
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO bulk_import_progress (import_id, table_name, rows_done) VALUES (?, ?, ?) " +
+                    "ON CONFLICT (import_id, table_name) DO UPDATE SET rows_done = EXCLUDED.rows_done")) {
+                statement.setString(1, importId);
+                statement.setString(2, table);
+                statement.setLong(3, rowsDone);
+                statement.executeUpdate();
+            }
+        });
+    }
+}
@@ -3,7 +3,14 @@ package com.framework.service.repos;
 import com.framework.data.entity.PlayerItemEntity;
 import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
 import jakarta.enterprise.context.ApplicationScoped;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import org.hibernate.Session;
 
 /**
  * Repository for PlayerItemEntity.
@@ -12,6 +19,29 @@ import java.util.List;
 @ApplicationScoped
 public class PlayerItemRepository implements PanacheRepositoryBase<PlayerItemEntity, Long> {
     
+    // Creates the stack or adds to it in one atomic statement (relies on the partial unique index
+    // uq_player_item_inventory_stack); the id comes from the column default (player_item_seq)
+    private static final String ADD_TO_STACK_SQL =
+        "INSERT INTO player_item (owner_id, item_id, quantity, slot, stackable) VALUES (?, ?, ?, 'INVENTORY', TRUE) " +
+        "ON CONFLICT (owner_id, item_id) WHERE slot = 'INVENTORY' AND stackable " +
+        "DO UPDATE SET quantity = player_item.quantity + EXCLUDED.quantity " +
+        "RETURNING id, quantity";
+    
+    // Decrements only if enough is left, so concurrent removals can never take a stack below zero;
+    // only INVENTORY rows, equipped items are never removed this way
+    private static final String REMOVE_QUANTITY_SQL =
+        "UPDATE player_item SET quantity = quantity - ? WHERE owner_id = ? AND id = (" +
+        "SELECT id FROM player_item WHERE owner_id = ? AND item_id = ? AND slot = 'INVENTORY' AND quantity >= ? " +
+        "ORDER BY id LIMIT 1 FOR UPDATE) AND quantity >= ? " +
+        "RETURNING id, quantity";
+    
+    // Moves the item into the slot and whatever was in the slot back to INVENTORY in one statement
+    private static final String EQUIP_SWAP_SQL =
+        "UPDATE player_item SET slot = CASE WHEN id = ? THEN ? ELSE 'INVENTORY' END " +
+        "WHERE owner_id = ? AND ((id = ? AND slot = 'INVENTORY') OR (slot = ? AND id <> ?)) " +
+        "AND EXISTS (SELECT 1 FROM player_item WHERE id = ? AND owner_id = ? AND slot = 'INVENTORY') " +
+        "RETURNING id";
+    
     /**
      * Finds all items owned by a specific player.
      * @param ownerId The player's ID
@@ -39,4 +69,224 @@ public class PlayerItemRepository implements PanacheRepositoryBase<PlayerItemEnt
     public List<PlayerItemEntity> findEquippedByOwnerId(String ownerId) {
         return find("ownerId = ?1 and slot != 'INVENTORY'", ownerId).list();
     }
+    
+    /**
+     * Finds all unequipped items for a group of players in a single query.
+     * @param ownerIds The player IDs
+     * @return List of PlayerItemEntity objects in INVENTORY
+     */
+    public List<PlayerItemEntity> findInventoryByOwnerIds(Collection<String> ownerIds) {
+        return find("ownerId in ?1 and slot = 'INVENTORY'", ownerIds).list();
+    }
+    
+    /**
+     * Writes the quantity, slot and durability of many item instances as one JDBC batch.
+     * Must be called inside a transaction.
+     * @param items The items to update (matched by owner and id, so each update touches one partition)
+     */
+    public void updateBatch(Collection<PlayerItemEntity> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        getEntityManager().unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "UPDATE player_item SET quantity = ?, slot = ?, current_durability = ? WHERE owner_id = ? AND id = ?")) {
+                for (PlayerItemEntity item : items) {
+                    statement.setInt(1, item.quantity);
+                    statement.setString(2, item.slot);
+                    if (item.currentDurability == null) {
+                        statement.setNull(3, Types.FLOAT);
+                    } else {
+                        statement.setFloat(3, item.currentDurability);
+                    }
+                    statement.setString(4, item.ownerId);
+                    statement.setLong(5, item.id);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+    
+    /**
+     * Deletes many item instances as one JDBC batch, one statement per owner.
+     * Must be called inside a transaction.
+     * @param idsByOwner The item instance IDs per owner (matched by owner too, so each delete touches one partition)
+     * @return The number of rows deleted
+     */
+    public long deleteByIds(Map<String, List<Long>> idsByOwner) {
+        if (idsByOwner.isEmpty()) {
+            return 0;
+        }
+        return getEntityManager().unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "DELETE FROM player_item WHERE owner_id = ? AND id = ANY(?)")) {
+                for (Map.Entry<String, List<Long>> entry : idsByOwner.entrySet()) {
+                    statement.setString(1, entry.getKey());
+                    statement.setArray(2, connection.createArrayOf("bigint", entry.getValue().toArray()));
+                    statement.addBatch();
+                }
+                long deleted = 0;
+                for (int count : statement.executeBatch()) {
+                    deleted += Math.max(count, 0);
+                }
+                return deleted;
+            }
+        });
+    }
+    
+    /**
+     * Atomically adds a quantity to a player's INVENTORY stack of a stackable item, creating the stack if
+     * there is none. Must be called inside a transaction.
+     * @param ownerId The player's ID
+     * @param itemId The item blueprint ID (must be stackable)
+     * @param quantity The quantity to add
+     * @return The stack after the change (not managed by Hibernate)
+     */
+    public PlayerItemEntity addToStack(String ownerId, String itemId, int quantity) {
+        return getEntityManager().unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(ADD_TO_STACK_SQL)) {
+                statement.setString(1, ownerId);
+                statement.setString(2, itemId);
+                statement.setInt(3, quantity);
+                try (ResultSet row = statement.executeQuery()) {
+                    row.next();
+                    PlayerItemEntity stack = new PlayerItemEntity(ownerId, itemId, row.getInt(2));
+                    stack.id = row.getLong(1);
+                    stack.stackable = true;
+                    return stack;
+                }
+            }
+        });
+    }
+    
+    /**
+     * Atomically adds to many INVENTORY stacks as one JDBC batch (same statement as addToStack).
+     * Must be called inside a transaction.
+     * @param stacks The additions (ownerId, itemId and quantity are used)
+     */
+    public void addToStacksBatch(Collection<PlayerItemEntity> stacks) {
+        if (stacks.isEmpty()) {
+            return;
+        }
+        getEntityManager().unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(ADD_TO_STACK_SQL)) {
+                for (PlayerItemEntity stack : stacks) {
+                    statement.setString(1, stack.ownerId);
+                    statement.setString(2, stack.itemId);
+                    statement.setInt(3, stack.quantity);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+    
+    /**
+     * Atomically removes a quantity of an item from a player, deleting the row once it is empty.
+     * Must be called inside a transaction.
+     * @param ownerId The player's ID
+     * @param itemId The item blueprint ID
+     * @param quantity The quantity to remove
+     * @return true if removed, false if the player has no row with enough of the item
+     */
+    public boolean removeQuantity(String ownerId, String itemId, int quantity) {
+        return getEntityManager().unwrap(Session.class).doReturningWork(connection -> {
+            long emptiedId;
+            try (PreparedStatement statement = connection.prepareStatement(REMOVE_QUANTITY_SQL)) {
+                statement.setInt(1, quantity);
+                statement.setString(2, ownerId);
+                statement.setString(3, ownerId);
+                statement.setString(4, itemId);
+                statement.setInt(5, quantity);
+                statement.setInt(6, quantity);
+                try (ResultSet row = statement.executeQuery()) {
+                    if (!row.next()) {
+                        return false;
+                    }
+                    if (row.getInt(2) > 0) {
+                        return true;
+                    }
+                    emptiedId = row.getLong(1);
+                }
+            }
+            // The row is locked by the UPDATE above, so nothing can refill it in between
+            try (PreparedStatement delete = connection.prepareStatement(
+                    "DELETE FROM player_item WHERE owner_id = ? AND id = ? AND quantity <= 0")) {
+                delete.setString(1, ownerId);
+                delete.setLong(2, emptiedId);
+                delete.executeUpdate();
+            }
+            return true;
+        });
+    }
+    
+    /**
+     * Equips an item with a single statement: the item moves from INVENTORY to the slot and anything
+     * already in that slot moves back to INVENTORY. Must be called inside a transaction.
+     * @param ownerId The player's ID
+     * @param playerItemId The item instance to equip
+     * @param slot The equipment slot
+     * @return The IDs of the rows changed; if playerItemId is not among them (e.g. it was equipped concurrently)
+     *         the caller must roll back
+     */
+    public List<Long> equipSwap(String ownerId, Long playerItemId, String slot) {
+        return getEntityManager().unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(EQUIP_SWAP_SQL)) {
+                statement.setLong(1, playerItemId);
+                statement.setString(2, slot);
+                statement.setString(3, ownerId);
+                statement.setLong(4, playerItemId);
+                statement.setString(5, slot);
+                statement.setLong(6, playerItemId);
+                statement.setLong(7, playerItemId);
+                statement.setString(8, ownerId);
+                List<Long> changed = new ArrayList<>();
+                try (ResultSet rows = statement.executeQuery()) {
+                    while (rows.next()) {
+                        changed.add(rows.getLong(1));
+                    }
+                }
+                return changed;
+            }
+        });
+    }
+    
+    /**
+     * Replaces all of a player's item rows with the given ones. Items without an ID get a new one from
+     * the sequence. Must be called inside a transaction.
+     * @param ownerId The player's ID
+     * @param items The player's complete inventory
+     */
+    public void replaceByOwnerId(String ownerId, Collection<PlayerItemEntity> items) {
+        getEntityManager().unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement delete = connection.prepareStatement("DELETE FROM player_item WHERE owner_id = ?")) {
+                delete.setString(1, ownerId);
+                delete.executeUpdate();
+            }
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO player_item (id, owner_id, item_id, quantity, slot, current_durability, stackable) " +
+                    "VALUES (COALESCE(?, nextval('player_item_seq')), ?, ?, ?, ?, ?, ?)")) {
+                for (PlayerItemEntity item : items) {
+                    if (item.id == null) {
+                        insert.setNull(1, Types.BIGINT);
+                    } else {
+                        insert.setLong(1, item.id);
+                    }
+                    insert.setString(2, ownerId);
+                    insert.setString(3, item.itemId);
+                    insert.setInt(4, item.quantity);
+                    insert.setString(5, item.slot);
+                    if (item.currentDurability == null) {
+                        insert.setNull(6, Types.FLOAT);
+                    } else {
+                        insert.setFloat(6, item.currentDurability);
+                    }
+                    insert.setBoolean(7, item.stackable);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        });
+    }
 }
@@ -1,8 +1,19 @@
 package com.framework.service.repos;
 
+import com.framework.data.entity.AgentStateEntity;
 import com.framework.data.entity.PlayerEntity;
+import com.framework.data.entity.PlayerItemEntity;
+import com.framework.data.model.PlayerSnapshot;
 import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
 import jakarta.enterprise.context.ApplicationScoped;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.hibernate.Session;
 
 /**
  * Repository for PlayerEntity.
@@ -11,6 +22,21 @@ import jakarta.enterprise.context.ApplicationScoped;
 @ApplicationScoped
 public class PlayerRepository implements PanacheRepositoryBase<PlayerEntity, String> {
     
+    // A single row: the player and agent state once, and the items aggregated into one array per column
+    // (ordered by ID). The items are filtered by owner_id directly, so only the owner's partition is read.
+    private static final String SNAPSHOT_SELECT =
+        "SELECT p.id, p.name, p.level, p.experience, " +
+        "a.agent_type, a.current_location, a.health, a.max_health, a.mana, a.max_mana, a.state_data";
+    private static final String SNAPSHOT_WITH_ITEMS_SQL = SNAPSHOT_SELECT +
+        ", i.ids, i.item_ids, i.quantities, i.slots, i.durabilities, i.stackables " +
+        "FROM player p LEFT JOIN agent_state a ON a.id = p.id " +
+        "LEFT JOIN LATERAL (SELECT array_agg(id ORDER BY id) AS ids, array_agg(item_id ORDER BY id) AS item_ids, " +
+        "array_agg(quantity ORDER BY id) AS quantities, array_agg(slot ORDER BY id) AS slots, " +
+        "array_agg(current_durability::float8 ORDER BY id) AS durabilities, array_agg(stackable ORDER BY id) AS stackables " +
+        "FROM player_item WHERE owner_id = ?) i ON TRUE WHERE p.id = ?";
+    private static final String SNAPSHOT_WITHOUT_ITEMS_SQL = SNAPSHOT_SELECT +
+        " FROM player p LEFT JOIN agent_state a ON a.id = p.id WHERE p.id = ?";
+    
     /**
      * Finds a player by name.
      * @param name The player's name
@@ -19,4 +45,94 @@ public class PlayerRepository implements PanacheRepositoryBase<PlayerEntity, Str
     public PlayerEntity findByName(String name) {
         return find("name", name).firstResult();
     }
+    
+    /**
+     * Finds all players with the given IDs in a single query.
+     * @param ids The player IDs
+     * @return List of PlayerEntity objects (missing IDs are skipped)
+     */
+    public List<PlayerEntity> findByIds(Collection<String> ids) {
+        return find("id in ?1", ids).list();
+    }
+    
+    /**
+     * Writes the experience and level of many players as one JDBC batch, bypassing entity loading.
+     * Must be called inside a transaction.
+     * @param players The players to update (only id, experience and level are used)
+     */
+    public void updateExperienceBatch(Collection<PlayerEntity> players) {
+        if (players.isEmpty()) {
+            return;
+        }
+        getEntityManager().unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "UPDATE player SET experience = ?, level = ? WHERE id = ?")) {
+                for (PlayerEntity player : players) {
+                    statement.setLong(1, player.experience);
+                    statement.setInt(2, player.level);
+                    statement.setString(3, player.id);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+    
+    /**
+     * Loads a player, their agent state and (optionally) all their items with one query returning one row.
+     * @param playerId The player ID
+     * @param includeItems Whether to load player_item rows (false when the inventory is held in memory)
+     * @return The snapshot, or null if the player does not exist
+     */
+    public PlayerSnapshot findSnapshot(String playerId, boolean includeItems) {
+        return getEntityManager().unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    includeItems ? SNAPSHOT_WITH_ITEMS_SQL : SNAPSHOT_WITHOUT_ITEMS_SQL)) {
+                statement.setString(1, playerId);
+                if (includeItems) {
+                    statement.setString(2, playerId);
+                }
+                try (ResultSet rows = statement.executeQuery()) {
+                    if (!rows.next()) {
+                        return null;
+                    }
+                    PlayerEntity player = new PlayerEntity(rows.getString(1), rows.getString(2));
+                    player.level = rows.getInt(3);
+                    player.experience = rows.getLong(4);
+                    AgentStateEntity agentState = null;
+                    if (rows.getString(5) != null) {
+                        agentState = new AgentStateEntity(player.id, rows.getString(5), rows.getString(6));
+                        agentState.health = rows.getInt(7);
+                        agentState.maxHealth = rows.getInt(8);
+                        agentState.mana = rows.getInt(9);
+                        agentState.maxMana = rows.getInt(10);
+                        agentState.stateData = rows.getBytes(11);
+                    }
+                    List<PlayerItemEntity> items = new ArrayList<>();
+                    Object[] ids = includeItems ? arrayOf(rows, 12) : null;
+                    if (ids != null) { // null: the player has no items
+                        Object[] itemIds = arrayOf(rows, 13);
+                        Object[] quantities = arrayOf(rows, 14);
+                        Object[] slots = arrayOf(rows, 15);
+                        Object[] durabilities = arrayOf(rows, 16);
+                        Object[] stackables = arrayOf(rows, 17);
+                        for (int i = 0; i < ids.length; i++) {
+                            PlayerItemEntity item = new PlayerItemEntity(player.id, (String) itemIds[i], ((Number) quantities[i]).intValue());
+                            item.id = ((Number) ids[i]).longValue();
+                            item.slot = (String) slots[i];
+                            item.currentDurability = durabilities[i] == null ? null : ((Number) durabilities[i]).floatValue();
+                            item.stackable = Boolean.TRUE.equals(stackables[i]);
+                            items.add(item);
+                        }
+                    }
+                    return new PlayerSnapshot(player, agentState, items);
+                }
+            }
+        });
+    }
+    
+    private static Object[] arrayOf(ResultSet rows, int column) throws SQLException {
+        Array array = rows.getArray(column);
+        return array == null ? null : (Object[]) array.getArray();
+    }
 }
@@ -0,0 +1,60 @@
+package com.framework.service.repos;
+
+import com.framework.data.entity.PlayerSkillEntity;
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.List;
+import org.hibernate.Session;
+
+/**
+ * Repository for PlayerSkillEntity.
+ * PanacheRepositoryBase provides methods like persist(), findById(), findAll(), etc., automatically.
+ */
+@ApplicationScoped
+public class PlayerSkillRepository implements PanacheRepositoryBase<PlayerSkillEntity, PlayerSkillEntity.Key> {
+    
+    /**
+     * Finds all skills of a player.
+     * @param playerId The player ID
+     * @return List of PlayerSkillEntity objects (skills never trained have no row)
+     */
+    public List<PlayerSkillEntity> findByPlayerId(String playerId) {
+        return find("playerId", playerId).list();
+    }
+    
+    /**
+     * Finds all skills of a group of players in a single query.
+     * @param playerIds The player IDs
+     * @return List of PlayerSkillEntity objects
+     */
+    public List<PlayerSkillEntity> findByPlayerIds(Collection<String> playerIds) {
+        return find("playerId in ?1", playerIds).list();
+    }
+    
+    /**
+     * Inserts or overwrites the experience and level of many (player, skill) pairs as one JDBC batch
+     * of INSERT ... ON CONFLICT DO UPDATE statements. Must be called inside a transaction.
+     * @param skills The rows to write
+     */
+    public void upsertBatch(Collection<PlayerSkillEntity> skills) {
+        if (skills.isEmpty()) {
+            return;
+        }
+        getEntityManager().unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO player_skill (player_id, skill_id, experience, level) VALUES (?, ?, ?, ?) " +
+                    "ON CONFLICT (player_id, skill_id) DO UPDATE SET experience = EXCLUDED.experience, level = EXCLUDED.level")) {
+                for (PlayerSkillEntity skill : skills) {
+                    statement.setString(1, skill.playerId);
+                    statement.setString(2, skill.skillId);
+                    statement.setLong(3, skill.experience);
+                    statement.setInt(4, skill.level);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+}
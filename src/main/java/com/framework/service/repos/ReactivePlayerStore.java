@@ -0,0 +1,105 @@
+package com.framework.service.repos;
+
+import com.framework.data.entity.AgentStateEntity;
+import com.framework.data.entity.PlayerEntity;
+import com.framework.data.entity.PlayerItemEntity;
+import com.framework.data.model.PlayerSnapshot;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.core.buffer.Buffer;
+import io.vertx.mutiny.sqlclient.Pool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Non-blocking versions of the queries the WebSocket commands run, on the reactive Postgres client.
+ * Used when game.persistence.mode=reactive: a pending query holds neither a thread nor a JDBC
+ * connection, only a slot in the reactive pool's wait queue.
+ * The SQL matches the blocking repositories (PlayerRepository.findSnapshot, LocationService.moveToLocation).
+ */
+@ApplicationScoped
+public class ReactivePlayerStore {
+
+    private static final String SNAPSHOT_SELECT =
+        "SELECT p.id, p.name, p.level, p.experience, " +
+        "a.agent_type, a.current_location, a.health, a.max_health, a.mana, a.max_mana, a.state_data";
+    private static final String SNAPSHOT_WITH_ITEMS_SQL = SNAPSHOT_SELECT +
+        ", i.ids, i.item_ids, i.quantities, i.slots, i.durabilities, i.stackables " +
+        "FROM player p LEFT JOIN agent_state a ON a.id = p.id " +
+        "LEFT JOIN LATERAL (SELECT array_agg(id ORDER BY id) AS ids, array_agg(item_id ORDER BY id) AS item_ids, " +
+        "array_agg(quantity ORDER BY id) AS quantities, array_agg(slot ORDER BY id) AS slots, " +
+        "array_agg(current_durability::float8 ORDER BY id) AS durabilities, array_agg(stackable ORDER BY id) AS stackables " +
+        "FROM player_item WHERE owner_id = $1) i ON TRUE WHERE p.id = $1";
+    private static final String SNAPSHOT_WITHOUT_ITEMS_SQL = SNAPSHOT_SELECT +
+        " FROM player p LEFT JOIN agent_state a ON a.id = p.id WHERE p.id = $1";
+    private static final String MOVE_SQL =
+        "INSERT INTO agent_state (id, agent_type, current_location, health, max_health, mana, max_mana) " +
+        "VALUES ($1, 'player', $2, 100, 100, 0, 0) " +
+        "ON CONFLICT (id) DO UPDATE SET current_location = EXCLUDED.current_location";
+
+    @Inject
+    Pool pool;
+
+    /**
+     * Loads a player, their agent state and (optionally) all their items with one query returning one row.
+     * @param playerId The player ID
+     * @param includeItems Whether to load player_item rows
+     * @return The snapshot, or null if the player does not exist
+     */
+    public Uni<PlayerSnapshot> findSnapshot(String playerId, boolean includeItems) {
+        return pool.preparedQuery(includeItems ? SNAPSHOT_WITH_ITEMS_SQL : SNAPSHOT_WITHOUT_ITEMS_SQL)
+            .execute(Tuple.of(playerId))
+            .map(rows -> {
+                if (rows.size() == 0) {
+                    return null;
+                }
+                Row row = rows.iterator().next();
+                PlayerEntity player = new PlayerEntity(row.getString(0), row.getString(1));
+                player.level = row.getInteger(2);
+                player.experience = row.getLong(3);
+                AgentStateEntity agentState = null;
+                if (row.getString(4) != null) {
+                    agentState = new AgentStateEntity(player.id, row.getString(4), row.getString(5));
+                    agentState.health = row.getInteger(6);
+                    agentState.maxHealth = row.getInteger(7);
+                    agentState.mana = row.getInteger(8);
+                    agentState.maxMana = row.getInteger(9);
+                    Buffer stateData = row.getBuffer(10);
+                    agentState.stateData = stateData == null ? null : stateData.getBytes();
+                }
+                List<PlayerItemEntity> items = new ArrayList<>();
+                Long[] ids = includeItems ? row.getArrayOfLongs(11) : null;
+                if (ids != null) { // null: the player has no items
+                    String[] itemIds = row.getArrayOfStrings(12);
+                    Integer[] quantities = row.getArrayOfIntegers(13);
+                    String[] slots = row.getArrayOfStrings(14);
+                    Double[] durabilities = row.getArrayOfDoubles(15);
+                    Boolean[] stackables = row.getArrayOfBooleans(16);
+                    for (int i = 0; i < ids.length; i++) {
+                        PlayerItemEntity item = new PlayerItemEntity(player.id, itemIds[i], quantities[i]);
+                        item.id = ids[i];
+                        item.slot = slots[i];
+                        item.currentDurability = durabilities[i] == null ? null : durabilities[i].floatValue();
+                        item.stackable = Boolean.TRUE.equals(stackables[i]);
+                        items.add(item);
+                    }
+                }
+                return new PlayerSnapshot(player, agentState, items);
+            });
+    }
+
+    /**
+     * Sets a player's location, creating their agent state if there is none, in one statement.
+     * @param playerId The player ID
+     * @param locationId The (validated) location ID
+     * @return Completes once the change is committed
+     */
+    public Uni<Void> moveToLocation(String playerId, String locationId) {
+        return pool.preparedQuery(MOVE_SQL)
+            .execute(Tuple.of(playerId, locationId))
+            .replaceWithVoid();
+    }
+}
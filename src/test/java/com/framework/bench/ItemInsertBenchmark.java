@@ -0,0 +1,124 @@
+package com.framework.bench;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Rows per second for a bulk item grant (a loot burst or catch-up creating many player_item rows),
+ * comparing the statement pattern Hibernate uses with IDENTITY keys against a pooled sequence.
+ * Each invocation inserts ROWS rows in one transaction and rolls it back, so the table does not grow.
+ * Needs the Postgres database from application.properties (with the changelog applied); override with
+ * -Dbench.jdbc.url=... -Dbench.jdbc.user=... -Dbench.jdbc.password=...
+ * Run with:
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.framework.bench.ItemInsertBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemInsertBenchmark {
+
+    private static final int ROWS = 1000;
+    private static final int ALLOCATION_SIZE = 50; // Same as PlayerItemEntity
+    private static final int BATCH_SIZE = 50; // Same as quarkus.hibernate-orm.jdbc.statement-batch-size
+
+    private Connection connection;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        connection = DriverManager.getConnection(
+            System.getProperty("bench.jdbc.url", "jdbc:postgresql://localhost:5432/game_db"),
+            System.getProperty("bench.jdbc.user", "game_user"),
+            System.getProperty("bench.jdbc.password", "game_password"));
+        connection.setAutoCommit(false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    /**
+     * Before: with IDENTITY keys every insert is executed on its own to read the generated key back.
+     */
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long identityInserts() throws SQLException {
+        long lastId = 0;
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO player_item (owner_id, item_id, quantity, slot) VALUES (?, ?, ?, 'INVENTORY') RETURNING id")) {
+            for (int i = 0; i < ROWS; i++) {
+                bindRow(insert, i, 1);
+                try (ResultSet keys = insert.executeQuery()) {
+                    keys.next();
+                    lastId = keys.getLong(1);
+                }
+            }
+        } finally {
+            connection.rollback();
+        }
+        return lastId;
+    }
+
+    /**
+     * After: IDs come from a pooled sequence (one nextval per 50 rows) and the inserts go out as JDBC batches.
+     */
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long pooledSequenceBatchInserts() throws SQLException {
+        long nextId = 0;
+        long blockEnd = 0;
+        try (PreparedStatement sequence = connection.prepareStatement("SELECT nextval('player_item_seq')");
+             PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO player_item (id, owner_id, item_id, quantity, slot) VALUES (?, ?, ?, ?, 'INVENTORY')")) {
+            for (int i = 0; i < ROWS; i++) {
+                if (nextId == blockEnd) {
+                    try (ResultSet value = sequence.executeQuery()) {
+                        value.next();
+                        blockEnd = value.getLong(1);
+                        nextId = blockEnd - ALLOCATION_SIZE;
+                    }
+                }
+                insert.setLong(1, ++nextId);
+                bindRow(insert, i, 2);
+                insert.addBatch();
+                if ((i + 1) % BATCH_SIZE == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        } finally {
+            connection.rollback();
+        }
+        return nextId;
+    }
+
+    private static void bindRow(PreparedStatement insert, int i, int firstIndex) throws SQLException {
+        insert.setString(firstIndex, "bench_player_" + (i % 100));
+        insert.setString(firstIndex + 1, "bench_item_" + i);
+        insert.setInt(firstIndex + 2, 1);
+    }
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(new String[] {ItemInsertBenchmark.class.getSimpleName()});
+    }
+}
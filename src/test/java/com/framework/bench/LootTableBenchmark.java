@@ -0,0 +1,130 @@
+package com.framework.bench;
+
+import com.framework.data.model.CompiledLootTable;
+import com.framework.data.model.LootTable;
+import com.framework.data.model.LootTable.LootDrop;
+import com.framework.data.model.LootTable.LootGroup;
+import com.framework.data.staticdata.StaticItemData;
+import com.framework.service.logic.LootAccumulator;
+import com.framework.service.logic.LootEngine;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares rolling a loot table by scanning its List of drops against the precompiled form.
+ * Run with:
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.framework.bench.LootTableBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LootTableBenchmark {
+
+    @Param({"10", "100", "500"})
+    int tableSize;
+
+    private LootTable independentTable;
+    private LootTable groupTable;
+    private CompiledLootTable compiledIndependentTable;
+    private CompiledLootTable compiledGroupTable;
+    private double[] groupWeights;
+
+    private final LootEngine lootEngine = new LootEngine();
+    private final SplittableRandom random = new SplittableRandom(42);
+    private LootAccumulator accumulator;
+
+    @Setup
+    public void setup() {
+        String[] itemIds = StaticItemData.getAllItems().keySet().toArray(new String[0]);
+        List<LootDrop> drops = new ArrayList<>();
+        for (int i = 0; i < tableSize; i++) {
+            // Mostly rare drops, like gem and pet tables
+            drops.add(new LootDrop(itemIds[i % itemIds.length], 0.001 + (i % 10) * 0.01, 1, 3));
+        }
+        independentTable = new LootTable("bench_independent", drops);
+        groupTable = new LootTable("bench_group", List.of(), List.of(new LootGroup(1.0, drops)));
+        compiledIndependentTable = new CompiledLootTable(independentTable);
+        compiledGroupTable = new CompiledLootTable(groupTable);
+
+        groupWeights = new double[tableSize];
+        for (int i = 0; i < tableSize; i++) {
+            groupWeights[i] = drops.get(i).getChance();
+        }
+        accumulator = new LootAccumulator();
+    }
+
+    /**
+     * Baseline: the List scan previously used for every roll.
+     */
+    @Benchmark
+    public boolean independentScan() {
+        for (LootDrop drop : independentTable.getDrops()) {
+            if (random.nextDouble() < drop.getChance()) {
+                int quantity = drop.getMinQuantity() +
+                    random.nextInt(drop.getMaxQuantity() - drop.getMinQuantity() + 1);
+                accumulator.add(StaticItemData.getItemIndex(drop.getItemId()), quantity);
+            }
+        }
+        accumulator.reset();
+        return accumulator.isEmpty();
+    }
+
+    @Benchmark
+    public boolean independentCompiled() {
+        lootEngine.roll(compiledIndependentTable, 1, random, accumulator);
+        accumulator.reset();
+        return accumulator.isEmpty();
+    }
+
+    /**
+     * Baseline: picking one entry of a weighted group by a linear cumulative-weight scan.
+     */
+    @Benchmark
+    public boolean groupScan() {
+        double total = 0;
+        for (double weight : groupWeights) {
+            total += weight;
+        }
+        double target = random.nextDouble() * total;
+        List<LootDrop> entries = groupTable.getGroups().get(0).getEntries();
+        for (int i = 0; i < groupWeights.length; i++) {
+            target -= groupWeights[i];
+            if (target < 0 || i == groupWeights.length - 1) {
+                LootDrop entry = entries.get(i);
+                int quantity = entry.getMinQuantity() +
+                    random.nextInt(entry.getMaxQuantity() - entry.getMinQuantity() + 1);
+                accumulator.add(StaticItemData.getItemIndex(entry.getItemId()), quantity);
+                break;
+            }
+        }
+        accumulator.reset();
+        return accumulator.isEmpty();
+    }
+
+    @Benchmark
+    public boolean groupCompiled() {
+        lootEngine.roll(compiledGroupTable, 1, random, accumulator);
+        accumulator.reset();
+        return accumulator.isEmpty();
+    }
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(new String[] {LootTableBenchmark.class.getSimpleName()});
+    }
+}
@@ -0,0 +1,201 @@
+package com.framework.bench;
+
+import io.vertx.core.Vertx;
+import io.vertx.pgclient.PgBuilder;
+import io.vertx.pgclient.PgConnectOptions;
+import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.PoolOptions;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.RowSet;
+import io.vertx.sqlclient.Tuple;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * STATE_INIT snapshot queries per second with many sessions asking at once, for both values of
+ * game.persistence.mode. Each invocation issues SESSIONS snapshot queries concurrently against a pool of
+ * POOL_SIZE connections: the blocking side the way the dispatcher runs them (a virtual thread per command,
+ * each holding a JDBC connection for its query), the reactive side as in-flight queries on the reactive
+ * client's pool. Compare ops/s, and run with -prof gc or watch thread counts for the resource side.
+ * Needs the Postgres database from application.properties (with the changelog applied); override with
+ * -Dbench.jdbc.url=... -Dbench.jdbc.user=... -Dbench.jdbc.password=...
+ * Run with:
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.framework.bench.PersistenceModeBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersistenceModeBenchmark {
+
+    private static final int SESSIONS = 1000;
+    private static final int PLAYERS = 100;
+    private static final int ITEMS_PER_PLAYER = 20;
+    private static final int POOL_SIZE = 16; // Same as game.ws.max-concurrent-commands / quarkus.datasource.reactive.max-size
+
+    // Same query as PlayerRepository.findSnapshot / ReactivePlayerStore.findSnapshot
+    private static final String SNAPSHOT_SQL =
+        "SELECT p.id, p.name, p.level, p.experience, " +
+        "a.agent_type, a.current_location, a.health, a.max_health, a.mana, a.max_mana, a.state_data, " +
+        "i.id, i.item_id, i.quantity, i.slot, i.current_durability, i.stackable " +
+        "FROM player p LEFT JOIN agent_state a ON a.id = p.id " +
+        "LEFT JOIN player_item i ON i.owner_id = p.id WHERE p.id = ";
+
+    private BlockingQueue<Connection> connections;
+    private ExecutorService virtualThreads;
+    private Vertx vertx;
+    private Pool reactivePool;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        connections = new ArrayBlockingQueue<>(POOL_SIZE);
+        for (int i = 0; i < POOL_SIZE; i++) {
+            connections.add(openConnection());
+        }
+        virtualThreads = Executors.newVirtualThreadPerTaskExecutor();
+        vertx = Vertx.vertx();
+        reactivePool = PgBuilder.pool()
+            .with(new PoolOptions().setMaxSize(POOL_SIZE).setMaxWaitQueueSize(-1))
+            .connectingTo(PgConnectOptions.fromUri(
+                    System.getProperty("bench.jdbc.url", "jdbc:postgresql://localhost:5432/game_db").substring("jdbc:".length()))
+                .setUser(System.getProperty("bench.jdbc.user", "game_user"))
+                .setPassword(System.getProperty("bench.jdbc.password", "game_password"))
+                .setCachePreparedStatements(true))
+            .using(vertx)
+            .build();
+
+        Connection connection = connections.peek();
+        try (PreparedStatement player = connection.prepareStatement(
+                "INSERT INTO player (id, name, level, experience) VALUES (?, ?, 1, 0) ON CONFLICT (id) DO NOTHING");
+             PreparedStatement item = connection.prepareStatement(
+                "INSERT INTO player_item (id, owner_id, item_id, quantity, slot, stackable) " +
+                "VALUES (nextval('player_item_seq'), ?, ?, 1, 'INVENTORY', false)")) {
+            for (int p = 0; p < PLAYERS; p++) {
+                player.setString(1, playerId(p));
+                player.setString(2, playerId(p));
+                player.addBatch();
+                for (int i = 0; i < ITEMS_PER_PLAYER; i++) {
+                    item.setString(1, playerId(p));
+                    item.setString(2, "bench_item_" + i);
+                    item.addBatch();
+                }
+            }
+            player.executeBatch();
+            item.executeBatch();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        Connection connection = connections.peek();
+        try (PreparedStatement items = connection.prepareStatement("DELETE FROM player_item WHERE owner_id LIKE 'bench_session_%'");
+             PreparedStatement players = connection.prepareStatement("DELETE FROM player WHERE id LIKE 'bench_session_%'")) {
+            items.executeUpdate();
+            players.executeUpdate();
+        }
+        for (Connection open : connections) {
+            open.close();
+        }
+        virtualThreads.shutdown();
+        reactivePool.close().toCompletionStage().toCompletableFuture().get();
+        vertx.close().toCompletionStage().toCompletableFuture().get();
+    }
+
+    /**
+     * game.persistence.mode=blocking: a virtual thread per command, parked on a JDBC connection for its query.
+     */
+    @Benchmark
+    @OperationsPerInvocation(SESSIONS)
+    public long blockingSnapshots() throws Exception {
+        List<Future<Integer>> pending = new ArrayList<>(SESSIONS);
+        for (int s = 0; s < SESSIONS; s++) {
+            String playerId = playerId(s % PLAYERS);
+            pending.add(virtualThreads.submit(() -> {
+                Connection connection = connections.take();
+                try (PreparedStatement statement = connection.prepareStatement(SNAPSHOT_SQL + "?")) {
+                    statement.setString(1, playerId);
+                    int rows = 0;
+                    try (ResultSet result = statement.executeQuery()) {
+                        while (result.next()) {
+                            rows++;
+                        }
+                    }
+                    return rows;
+                } finally {
+                    connections.add(connection);
+                }
+            }));
+        }
+        long rows = 0;
+        for (Future<Integer> result : pending) {
+            rows += result.get();
+        }
+        return rows;
+    }
+
+    /**
+     * game.persistence.mode=reactive: every query in flight at once on the reactive pool, no thread per command.
+     */
+    @Benchmark
+    @OperationsPerInvocation(SESSIONS)
+    public long reactiveSnapshots() throws Exception {
+        CompletableFuture<?>[] pending = new CompletableFuture<?>[SESSIONS];
+        long[] rows = new long[SESSIONS];
+        for (int s = 0; s < SESSIONS; s++) {
+            int session = s;
+            pending[s] = reactivePool.preparedQuery(SNAPSHOT_SQL + "$1")
+                .execute(Tuple.of(playerId(s % PLAYERS)))
+                .toCompletionStage()
+                .thenAccept((RowSet<Row> result) -> rows[session] = result.size())
+                .toCompletableFuture();
+        }
+        CompletableFuture.allOf(pending).get();
+        long total = 0;
+        for (long count : rows) {
+            total += count;
+        }
+        return total;
+    }
+
+    private Connection openConnection() throws SQLException {
+        return DriverManager.getConnection(
+            System.getProperty("bench.jdbc.url", "jdbc:postgresql://localhost:5432/game_db"),
+            System.getProperty("bench.jdbc.user", "game_user"),
+            System.getProperty("bench.jdbc.password", "game_password"));
+    }
+
+    private static String playerId(int index) {
+        return "bench_session_" + index;
+    }
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(new String[] {PersistenceModeBenchmark.class.getSimpleName()});
+    }
+}
@@ -0,0 +1,151 @@
+package com.framework.bench;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-player inventory query latency (JMH sample mode, so p50/p99/p99.9 are reported) on a player_item
+ * sized table, before and after changeset 9: bench_item_flat has the old layout (one table, primary key id,
+ * index on owner_id), bench_item_hashed the new one (hash partitions by owner_id, primary key (id, owner_id),
+ * index on (owner_id, slot)). Both hold the same rows, 25 items per owner, of which 3 are equipped.
+ *
+ * The tables are created and filled on the first run (100M rows each by default, which takes a long time)
+ * and kept for later runs; change the size with -Dbench.rows=... and the partition count with
+ * -Dbench.partitions=... (drop the bench_item_* tables to rebuild). To see the vacuum/bloat effect,
+ * run it again after churning both tables with UPDATEs.
+ * Needs the Postgres database from application.properties; override with
+ * -Dbench.jdbc.url=... -Dbench.jdbc.user=... -Dbench.jdbc.password=...
+ * Run with:
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.framework.bench.PlayerItemPartitionBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PlayerItemPartitionBenchmark {
+
+    private static final int ITEMS_PER_OWNER = 25;
+    private static final int EQUIPPED_PER_OWNER = 3;
+
+    private final long rows = Long.getLong("bench.rows", 100_000_000L);
+    private final int partitions = Integer.getInteger("bench.partitions", 16);
+    private long owners;
+    private Connection connection;
+    private PreparedStatement flatByOwner;
+    private PreparedStatement hashedByOwner;
+    private PreparedStatement flatEquipped;
+    private PreparedStatement hashedEquipped;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        connection = DriverManager.getConnection(
+            System.getProperty("bench.jdbc.url", "jdbc:postgresql://localhost:5432/game_db"),
+            System.getProperty("bench.jdbc.user", "game_user"),
+            System.getProperty("bench.jdbc.password", "game_password"));
+        owners = rows / ITEMS_PER_OWNER;
+        try (Statement statement = connection.createStatement()) {
+            if (!exists("bench_item_flat")) {
+                statement.execute("CREATE TABLE bench_item_flat (id BIGINT PRIMARY KEY, owner_id VARCHAR(255) NOT NULL, " +
+                    "item_id VARCHAR(255) NOT NULL, quantity INTEGER, slot VARCHAR(255), current_durability FLOAT, " +
+                    "stackable BOOLEAN NOT NULL DEFAULT FALSE)");
+                statement.execute("INSERT INTO bench_item_flat " + seedSelect());
+                statement.execute("CREATE INDEX bench_item_flat_owner ON bench_item_flat (owner_id)");
+                statement.execute("ANALYZE bench_item_flat");
+            }
+            if (!exists("bench_item_hashed")) {
+                statement.execute("CREATE TABLE bench_item_hashed (id BIGINT NOT NULL, owner_id VARCHAR(255) NOT NULL, " +
+                    "item_id VARCHAR(255) NOT NULL, quantity INTEGER, slot VARCHAR(255), current_durability FLOAT, " +
+                    "stackable BOOLEAN NOT NULL DEFAULT FALSE, PRIMARY KEY (id, owner_id)) PARTITION BY HASH (owner_id)");
+                for (int i = 0; i < partitions; i++) {
+                    statement.execute("CREATE TABLE bench_item_hashed_p" + i + " PARTITION OF bench_item_hashed " +
+                        "FOR VALUES WITH (MODULUS " + partitions + ", REMAINDER " + i + ")");
+                }
+                statement.execute("INSERT INTO bench_item_hashed " + seedSelect());
+                statement.execute("CREATE INDEX bench_item_hashed_owner_slot ON bench_item_hashed (owner_id, slot)");
+                statement.execute("ANALYZE bench_item_hashed");
+            }
+        }
+        // Same queries as PlayerItemRepository.findByOwnerId / findEquippedByOwnerId
+        flatByOwner = connection.prepareStatement("SELECT * FROM bench_item_flat WHERE owner_id = ?");
+        hashedByOwner = connection.prepareStatement("SELECT * FROM bench_item_hashed WHERE owner_id = ?");
+        flatEquipped = connection.prepareStatement("SELECT * FROM bench_item_flat WHERE owner_id = ? AND slot <> 'INVENTORY'");
+        hashedEquipped = connection.prepareStatement("SELECT * FROM bench_item_hashed WHERE owner_id = ? AND slot <> 'INVENTORY'");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public int flatFindByOwner() throws SQLException {
+        return query(flatByOwner);
+    }
+
+    @Benchmark
+    public int hashedFindByOwner() throws SQLException {
+        return query(hashedByOwner);
+    }
+
+    @Benchmark
+    public int flatFindEquipped() throws SQLException {
+        return query(flatEquipped);
+    }
+
+    @Benchmark
+    public int hashedFindEquipped() throws SQLException {
+        return query(hashedEquipped);
+    }
+
+    private int query(PreparedStatement statement) throws SQLException {
+        statement.setString(1, "bench_owner_" + ThreadLocalRandom.current().nextLong(owners));
+        int count = 0;
+        try (ResultSet result = statement.executeQuery()) {
+            while (result.next()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // An owner's items are spread over the whole insert order, as they are after years of play
+    private String seedSelect() {
+        return "SELECT g, 'bench_owner_' || (g % " + owners + "), 'item_' || (g % 40), 1, " +
+            "CASE WHEN (g / " + owners + ") % " + ITEMS_PER_OWNER + " < " + EQUIPPED_PER_OWNER + " THEN 'WEAPON' ELSE 'INVENTORY' END, " +
+            "NULL, FALSE FROM generate_series(0, " + (rows - 1) + ") g";
+    }
+
+    private boolean exists(String table) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT to_regclass(?) IS NOT NULL")) {
+            statement.setString(1, table);
+            try (ResultSet result = statement.executeQuery()) {
+                result.next();
+                return result.getBoolean(1);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(new String[] {PlayerItemPartitionBenchmark.class.getSimpleName()});
+    }
+}
@@ -0,0 +1,113 @@
+package com.framework.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.framework.service.core.StateDataCodec;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encode/decode throughput of a typical agent stateData value (a running action, 8 buffs and
+ * 12 cooldowns), StateDataCodec against Jackson JSON text, plus reading the one field recovery
+ * needs (find vs. parsing the whole tree). The encoded sizes are printed at setup.
+ * Run with:
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.framework.bench.StateDataCodecBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StateDataCodecBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private Map<String, Object> state;
+    private byte[] binary;
+    private byte[] json;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        state = new LinkedHashMap<>();
+        List<Object> buffs = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Map<String, Object> buff = new LinkedHashMap<>();
+            buff.put("id", "buff_" + i);
+            buff.put("expiresAt", 1_700_000_000_000L + i * 60_000L);
+            buff.put("stacks", (long) (i % 3 + 1));
+            buffs.add(buff);
+        }
+        state.put("buffs", buffs);
+        Map<String, Object> cooldowns = new LinkedHashMap<>();
+        for (int i = 0; i < 12; i++) {
+            cooldowns.put("ability_" + i, 1_700_000_000_000L + i * 1_000L);
+        }
+        state.put("cooldowns", cooldowns);
+        Map<String, Object> action = new LinkedHashMap<>();
+        action.put("actionId", "mine_copper");
+        action.put("instanceId", "copper_rock_3");
+        action.put("startTime", 1_700_000_000_000L);
+        action.put("endTime", 1_700_003_600_000L);
+        action.put("lastTickTime", 1_700_000_123_456L);
+        action.put("pendingSeconds", 0.4);
+        action.put("pendingExperience", 12.5);
+        state.put("action", action);
+
+        binary = StateDataCodec.encode(state);
+        json = objectMapper.writeValueAsBytes(state);
+        System.out.println("stateData size: binary " + binary.length + " bytes, JSON " + json.length + " bytes");
+    }
+
+    @Benchmark
+    public byte[] binaryEncode() {
+        return StateDataCodec.encode(state);
+    }
+
+    @Benchmark
+    public byte[] jsonEncode() throws Exception {
+        return objectMapper.writeValueAsBytes(state);
+    }
+
+    @Benchmark
+    public Map<String, Object> binaryDecode() {
+        return StateDataCodec.decode(binary);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> jsonDecode() throws Exception {
+        return objectMapper.readValue(json, Map.class);
+    }
+
+    /**
+     * The action's lastTickTime, skipping the buffs and cooldowns in front of it.
+     */
+    @Benchmark
+    public Object binaryFindField() {
+        return StateDataCodec.find(binary, "action", "lastTickTime");
+    }
+
+    @Benchmark
+    public long jsonFindField() throws Exception {
+        JsonNode root = objectMapper.readTree(json);
+        return root.path("action").path("lastTickTime").asLong();
+    }
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(new String[] {StateDataCodecBenchmark.class.getSimpleName()});
+    }
+}
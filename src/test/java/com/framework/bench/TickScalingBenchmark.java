@@ -0,0 +1,130 @@
+package com.framework.bench;
+
+import com.framework.data.model.CompiledLootTable;
+import com.framework.data.model.LootTable;
+import com.framework.data.model.LootTable.LootDrop;
+import com.framework.data.staticdata.StaticItemData;
+import com.framework.service.logic.ActionState;
+import com.framework.service.logic.LootAccumulator;
+import com.framework.service.logic.LootEngine;
+import com.framework.service.logic.ParallelTickSimulator;
+import com.framework.service.logic.TickResult;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures tick throughput (whole ticks per second over 50k players) as the number of simulation
+ * workers grows. Every 50th player is heavy (large table, many rolls, like a long catch-up), so the
+ * shards are deliberately unbalanced and only work stealing keeps all workers busy.
+ * Run with:
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.framework.bench.TickScalingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TickScalingBenchmark {
+
+    private static final int PLAYERS = 50_000;
+    private static final int SHARDS = 64;
+    private static final int HEAVY_EVERY = 50;
+    private static final int HEAVY_ROLLS = 200;
+
+    @Param({"1", "2", "4", "8", "16"})
+    int workers;
+
+    private final LootEngine lootEngine = new LootEngine();
+    private final ThreadLocal<LootAccumulator> accumulators = ThreadLocal.withInitial(LootAccumulator::new);
+    private final List<Map<String, ActionState>> shards = new ArrayList<>();
+    private CompiledLootTable lightTable;
+    private CompiledLootTable heavyTable;
+    private ParallelTickSimulator simulator;
+    private long tick;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        lightTable = new CompiledLootTable(new LootTable("bench_light", drops(10)));
+        heavyTable = new CompiledLootTable(new LootTable("bench_heavy", drops(500)));
+        for (int i = 0; i < SHARDS; i++) {
+            shards.add(new ConcurrentHashMap<>());
+        }
+        for (int i = 0; i < PLAYERS; i++) {
+            String playerId = "player-" + i;
+            shards.get(Math.floorMod(playerId.hashCode(), SHARDS)).put(playerId, new ActionState("bench", null));
+        }
+        simulator = new ParallelTickSimulator(workers, 64);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        simulator.shutdown();
+    }
+
+    /**
+     * Baseline: the single-threaded loop the tick used before sharding.
+     */
+    @Benchmark
+    public int sequentialTick() {
+        tick++;
+        int results = 0;
+        for (Map<String, ActionState> shard : shards) {
+            for (Map.Entry<String, ActionState> entry : shard.entrySet()) {
+                if (simulate(entry.getKey(), entry.getValue()) != null) {
+                    results++;
+                }
+            }
+        }
+        return results;
+    }
+
+    @Benchmark
+    public int parallelTick() {
+        tick++;
+        return simulator.simulate(shards, this::simulate).size();
+    }
+
+    // Stand-in for ActionService.simulateActionTick: per-player random stream, loot rolls, no database
+    private TickResult simulate(String playerId, ActionState actionState) {
+        int playerHash = playerId.hashCode();
+        boolean heavy = Math.floorMod(playerHash, HEAVY_EVERY) == 0;
+        SplittableRandom random = new SplittableRandom(playerHash * 0x9E3779B97F4A7C15L + tick);
+        LootAccumulator accumulator = accumulators.get();
+        lootEngine.roll(heavy ? heavyTable : lightTable, heavy ? HEAVY_ROLLS : 1, random, accumulator);
+        TickResult result = new TickResult(playerId, "bench");
+        result.experience = 10;
+        result.loot = accumulator.drain();
+        return result;
+    }
+
+    private static List<LootDrop> drops(int count) {
+        String[] itemIds = StaticItemData.getAllItems().keySet().toArray(new String[0]);
+        List<LootDrop> drops = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            drops.add(new LootDrop(itemIds[i % itemIds.length], 0.001 + (i % 10) * 0.02, 1, 3));
+        }
+        return drops;
+    }
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(new String[] {TickScalingBenchmark.class.getSimpleName()});
+    }
+}
@@ -0,0 +1,76 @@
+package com.framework.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.framework.api.WireProtocol;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encoding (server side) and parsing (client side) of a typical STATE_DELTA (XP in one skill, two items),
+ * as game.v1.json text against game.v1.cbor with numeric IDs. The frame sizes are printed at setup.
+ * Run with:
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.framework.bench.WireProtocolBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireProtocolBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Integer> xpDelta = new LinkedHashMap<>();
+    private final Map<String, Integer> inventoryDelta = new LinkedHashMap<>();
+    private byte[] json;
+    private byte[] cbor;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        xpDelta.put("mining", 35);
+        inventoryDelta.put("copper_ore", 3);
+        inventoryDelta.put("bronze_sword", 1);
+        json = jsonEncode();
+        cbor = cborEncode();
+        System.out.println("STATE_DELTA frame size: JSON " + json.length + " bytes, CBOR " + cbor.length + " bytes");
+    }
+
+    @Benchmark
+    public byte[] jsonEncode() throws Exception {
+        return WireProtocol.encodeText(WireProtocol.stateDelta(xpDelta, inventoryDelta, 100, null, false))
+            .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] cborEncode() throws Exception {
+        return WireProtocol.encodeBinary(WireProtocol.stateDelta(xpDelta, inventoryDelta, 100, null, true));
+    }
+
+    @Benchmark
+    public JsonNode jsonParse() throws Exception {
+        return objectMapper.readTree(json);
+    }
+
+    @Benchmark
+    public JsonNode cborParse() throws Exception {
+        return WireProtocol.decodeBinary(cbor);
+    }
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(new String[] {WireProtocolBenchmark.class.getSimpleName()});
+    }
+}
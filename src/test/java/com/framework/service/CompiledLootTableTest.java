@@ -0,0 +1,112 @@
+package com.framework.service;
+
+import com.framework.data.model.AliasTable;
+import com.framework.data.model.CompiledLootTable;
+import com.framework.data.model.LootTable;
+import com.framework.data.model.LootTable.LootDrop;
+import com.framework.data.model.LootTable.LootGroup;
+import com.framework.service.logic.LootAccumulator;
+import com.framework.service.logic.LootEngine;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for AliasTable, CompiledLootTable and aggregate loot rolls. Seeded, with tolerances of
+ * 5 standard errors.
+ */
+public class CompiledLootTableTest {
+
+    @Test
+    public void testThresholdMatchesNextDouble() {
+        assertEquals(0L, CompiledLootTable.toThreshold(0.0));
+        assertEquals(1L << 53, CompiledLootTable.toThreshold(1.0));
+        assertEquals(1L << 52, CompiledLootTable.toThreshold(0.5));
+        // Rounded up, so a tiny positive chance never becomes impossible
+        assertEquals(1L, CompiledLootTable.toThreshold(Double.MIN_VALUE));
+        assertEquals(1L, CompiledLootTable.toThreshold(0x1p-60));
+
+        // nextDouble() is (nextLong() >>> 11) * 2^-53, so both tests must agree on every draw
+        for (double chance : new double[] {0.1, 1.0 / 3, 0.999999, 0x1p-20 + 0x1p-53}) {
+            long threshold = CompiledLootTable.toThreshold(chance);
+            SplittableRandom doubles = new SplittableRandom(21);
+            SplittableRandom longs = new SplittableRandom(21);
+            for (int i = 0; i < 100_000; i++) {
+                assertEquals(doubles.nextDouble() < chance, (longs.nextLong() >>> 11) < threshold, "Chance " + chance);
+            }
+        }
+    }
+
+    @Test
+    public void testAliasTableDistribution() {
+        double[] weights = {1, 2, 3, 0, 4};
+        AliasTable table = new AliasTable(weights);
+        assertEquals(weights.length, table.size());
+
+        int samples = 200_000;
+        int[] counts = new int[weights.length];
+        SplittableRandom random = new SplittableRandom(22);
+        for (int i = 0; i < samples; i++) {
+            counts[table.sample(random)]++;
+        }
+        assertEquals(0, counts[3], "Zero weight sampled");
+        for (int i = 0; i < weights.length; i++) {
+            double p = weights[i] / 10.0;
+            assertEquals(p * samples, counts[i], 5 * Math.sqrt(samples * p * (1 - p)), "Entry " + i);
+        }
+    }
+
+    @Test
+    public void testAliasTableRejectsInvalidWeights() {
+        assertThrows(IllegalArgumentException.class, () -> new AliasTable(new double[0]));
+        assertThrows(IllegalArgumentException.class, () -> new AliasTable(new double[] {0, 0}));
+        assertThrows(IllegalArgumentException.class, () -> new AliasTable(new double[] {1, -1}));
+    }
+
+    @Test
+    public void testCompiledTableDropsImpossibleDrops() {
+        CompiledLootTable table = new CompiledLootTable(new LootTable("test", List.of(
+            new LootDrop("copper_ore", 0.0, 1, 1),
+            new LootDrop("copper_ore", 1.0, 1, 1),
+            new LootDrop("bronze_sword", 0.25, 1, 1))));
+        assertEquals(2, table.dropThresholds.length);
+        assertTrue(table.isGuaranteed(0));
+        assertFalse(table.isGuaranteed(1));
+    }
+
+    @Test
+    public void testAggregateGroupSplitKeepsEveryHit() {
+        // A trailing zero-weight entry must get nothing, however the remaining probability rounds
+        LootGroup group = new LootGroup(1.0, List.of(
+            new LootDrop("copper_ore", 1.0 / 3, 1, 1),
+            new LootDrop("copper_ore", 1.0 / 3, 1, 1),
+            new LootDrop("copper_ore", 1.0 / 3, 1, 1),
+            new LootDrop("bronze_sword", 0.0, 1, 1)));
+        CompiledLootTable table = new CompiledLootTable(new LootTable("test", List.of(), List.of(group)));
+        LootEngine engine = new LootEngine();
+        LootAccumulator accumulator = new LootAccumulator();
+        for (long seed = 0; seed < 200; seed++) {
+            engine.rollAggregate(table, 10_000, new SplittableRandom(seed), accumulator);
+            Map<String, Integer> loot = accumulator.drain().toMap();
+            assertEquals(Map.of("copper_ore", 10_000), loot, "Seed " + seed);
+        }
+    }
+
+    @Test
+    public void testAggregateGroupSplitDistribution() {
+        LootGroup group = new LootGroup(1.0, List.of(
+            new LootDrop("bronze_sword", 0.0, 1, 1),
+            new LootDrop("copper_ore", 0.75, 1, 1),
+            new LootDrop("bronze_sword", 0.25, 1, 1)));
+        CompiledLootTable table = new CompiledLootTable(new LootTable("test", List.of(), List.of(group)));
+        LootAccumulator accumulator = new LootAccumulator();
+        long rolls = 100_000;
+        new LootEngine().rollAggregate(table, rolls, new SplittableRandom(23), accumulator);
+        Map<String, Integer> loot = accumulator.drain().toMap();
+        assertEquals(rolls, (long) loot.get("copper_ore") + loot.get("bronze_sword"));
+        assertEquals(0.75 * rolls, loot.get("copper_ore"), 5 * Math.sqrt(rolls * 0.75 * 0.25));
+    }
+}
@@ -0,0 +1,123 @@
+package com.framework.service;
+
+import com.framework.data.entity.PlayerItemEntity;
+import com.framework.service.logic.InventoryService;
+import com.framework.service.repos.PlayerItemRepository;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stress tests for the database inventory path (players whose inventory is not loaded in memory):
+ * concurrent stacking and removal must neither lose updates nor oversell a stack.
+ */
+@QuarkusTest
+public class InventoryConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int OPERATIONS_PER_THREAD = 100;
+
+    @Inject
+    InventoryService inventoryService;
+
+    @Inject
+    PlayerItemRepository playerItemRepository;
+
+    @Test
+    public void testConcurrentAddsAreNotLost() throws Exception {
+        String playerId = "stress_" + UUID.randomUUID();
+
+        runConcurrently(() -> {
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                inventoryService.addItem(playerId, "copper_ore", 1);
+            }
+            return 0;
+        });
+
+        List<PlayerItemEntity> rows = findRows(playerId);
+        assertEquals(1, rows.size(), "Concurrent adds must share one stack");
+        assertEquals(THREADS * OPERATIONS_PER_THREAD, rows.get(0).quantity);
+    }
+
+    @Test
+    public void testConcurrentRemovesNeverOversell() throws Exception {
+        String playerId = "stress_" + UUID.randomUUID();
+        int stock = THREADS * OPERATIONS_PER_THREAD / 2;
+        inventoryService.addItem(playerId, "copper_ore", stock);
+
+        int removed = runConcurrently(() -> {
+            int succeeded = 0;
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                if (inventoryService.removeItem(playerId, "copper_ore", 1)) {
+                    succeeded++;
+                }
+            }
+            return succeeded;
+        });
+
+        assertEquals(stock, removed, "Exactly the stock may be removed");
+        assertTrue(findRows(playerId).isEmpty(), "The emptied stack must be deleted");
+    }
+
+    @Test
+    public void testConcurrentAddsAndRemovesBalance() throws Exception {
+        String playerId = "stress_" + UUID.randomUUID();
+        int stock = 50;
+        inventoryService.addItem(playerId, "copper_ore", stock);
+
+        int removed = runConcurrently(() -> {
+            int succeeded = 0;
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                inventoryService.addItem(playerId, "copper_ore", 2);
+                if (inventoryService.removeItem(playerId, "copper_ore", 3)) {
+                    succeeded++;
+                }
+            }
+            return succeeded;
+        });
+
+        long expected = stock + 2L * THREADS * OPERATIONS_PER_THREAD - 3L * removed;
+        long actual = findRows(playerId).stream().mapToLong(row -> row.quantity).sum();
+        assertEquals(expected, actual, "Every successful add and remove must be reflected exactly once");
+        assertTrue(actual >= 0);
+    }
+
+    // Runs the task on THREADS threads released at the same moment and sums their results
+    private int runConcurrently(Callable<Integer> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            int total = 0;
+            for (Future<Integer> future : futures) {
+                total += future.get(60, TimeUnit.SECONDS);
+            }
+            return total;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<PlayerItemEntity> findRows(String playerId) {
+        return QuarkusTransaction.requiringNew().call(() -> playerItemRepository.findByOwnerId(playerId));
+    }
+}
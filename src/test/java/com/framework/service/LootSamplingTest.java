@@ -0,0 +1,96 @@
+package com.framework.service;
+
+import com.framework.service.logic.LootSampling;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for LootSampling. Seeded, so every run draws the same samples; the tolerances
+ * (5 standard errors) only fail for a wrong distribution, not for an unlucky seed.
+ */
+public class LootSamplingTest {
+
+    private static final int SAMPLES = 20_000;
+
+    @Test
+    public void testBinomialEdgeCases() {
+        SplittableRandom random = new SplittableRandom(1);
+        assertEquals(0, LootSampling.binomial(random, 0, 0.5));
+        assertEquals(0, LootSampling.binomial(random, -5, 0.5));
+        assertEquals(0, LootSampling.binomial(random, 1_000, 0.0));
+        assertEquals(1_000, LootSampling.binomial(random, 1_000, 1.0));
+    }
+
+    @Test
+    public void testBinomialExactTrials() {
+        assertBinomialMoments(20, 0.3, 11);
+    }
+
+    @Test
+    public void testBinomialInversion() {
+        assertBinomialMoments(1_000, 0.004, 12);
+
+        // P(X = 0) = q^n, the first step of the CDF search
+        SplittableRandom random = new SplittableRandom(13);
+        int zeros = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            if (LootSampling.binomial(random, 1_000, 0.004) == 0) {
+                zeros++;
+            }
+        }
+        double expected = Math.pow(0.996, 1_000);
+        double standardError = Math.sqrt(expected * (1 - expected) / SAMPLES);
+        assertEquals(expected, zeros / (double) SAMPLES, 5 * standardError);
+    }
+
+    @Test
+    public void testBinomialNormalApproximation() {
+        assertBinomialMoments(1_000_000, 0.25, 14);
+    }
+
+    @Test
+    public void testBinomialHighChanceSamplesFailures() {
+        assertBinomialMoments(1_000, 0.997, 15);
+    }
+
+    @Test
+    public void testUniformSum() {
+        assertUniformSumMoments(10, 1, 6, 16);
+        assertUniformSumMoments(1_000_000, 2, 5, 17);
+        assertEquals(21, LootSampling.uniformSum(new SplittableRandom(18), 7, 3, 3));
+        assertEquals(0, LootSampling.uniformSum(new SplittableRandom(18), 0, 1, 6));
+    }
+
+    private static void assertBinomialMoments(long n, double p, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double sum = 0;
+        double sumOfSquares = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            long x = LootSampling.binomial(random, n, p);
+            assertTrue(x >= 0 && x <= n, "Out of range: " + x);
+            sum += x;
+            sumOfSquares += (double) x * x;
+        }
+        double mean = sum / SAMPLES;
+        double variance = sumOfSquares / SAMPLES - mean * mean;
+        double expectedVariance = n * p * (1 - p);
+        assertEquals(n * p, mean, 5 * Math.sqrt(expectedVariance / SAMPLES), "Mean for n=" + n + ", p=" + p);
+        assertEquals(expectedVariance, variance, 0.1 * expectedVariance, "Variance for n=" + n + ", p=" + p);
+    }
+
+    private static void assertUniformSumMoments(long count, int min, int max, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double range = max - min + 1;
+        double expectedMean = count * (min + max) / 2.0;
+        double expectedVariance = count * (range * range - 1) / 12.0;
+        double sum = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            long x = LootSampling.uniformSum(random, count, min, max);
+            assertTrue(x >= count * min && x <= count * max, "Out of range: " + x);
+            sum += x;
+        }
+        assertEquals(expectedMean, sum / SAMPLES, 5 * Math.sqrt(expectedVariance / SAMPLES), "Mean for count=" + count);
+    }
+}
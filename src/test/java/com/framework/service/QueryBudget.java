@@ -0,0 +1,37 @@
+package com.framework.service;
+
+import com.framework.service.core.DbCostTracker;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Test helper that fails when a piece of code runs more JDBC statements than it is allowed,
+ * e.g. a handler that starts issuing one query per item. Counts what MeteredDriver sees on the calling thread.
+ */
+public final class QueryBudget {
+
+    private QueryBudget() {
+    }
+
+    /**
+     * Runs the work and asserts it stayed within the statement budget.
+     * @param maxStatements The most statements the work may execute
+     * @param work The work to measure
+     * @return The work's result
+     */
+    public static <T> T assertWithin(int maxStatements, Callable<T> work) throws Exception {
+        T result;
+        long statements;
+        long rows;
+        try (DbCostTracker.Scope scope = DbCostTracker.begin("test")) {
+            result = work.call();
+            statements = scope.getStatements();
+            rows = scope.getRows();
+        }
+        if (statements > maxStatements) {
+            fail("Expected at most " + maxStatements + " statements, but " + statements + " ran (" + rows + " rows fetched)");
+        }
+        return result;
+    }
+}
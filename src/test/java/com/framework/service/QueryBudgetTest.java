@@ -0,0 +1,54 @@
+package com.framework.service;
+
+import com.framework.data.model.PlayerSnapshot;
+import com.framework.service.logic.AgentStateCache;
+import com.framework.service.logic.LocationService;
+import com.framework.service.logic.PlayerService;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Query budgets of the reads behind STATE_INIT and later agent state lookups, so that an extra
+ * round trip (e.g. lazy loading per item) fails here instead of showing up under load.
+ */
+@QuarkusTest
+public class QueryBudgetTest {
+
+    @Inject
+    PlayerService playerService;
+
+    @Inject
+    LocationService locationService;
+
+    @Inject
+    AgentStateCache agentStateCache;
+
+    @Test
+    public void testSnapshotIsOneQuery() throws Exception {
+        String playerId = newPlayer();
+
+        PlayerSnapshot snapshot = QueryBudget.assertWithin(1, () -> playerService.getSnapshot(playerId));
+        assertNotNull(snapshot);
+        assertNotNull(snapshot.getAgentState());
+    }
+
+    @Test
+    public void testAgentStateAfterSnapshotNeedsNoQuery() throws Exception {
+        String playerId = newPlayer();
+        playerService.getSnapshot(playerId);
+
+        assertNotNull(QueryBudget.assertWithin(0, () -> agentStateCache.get(playerId)));
+    }
+
+    private String newPlayer() {
+        String playerId = "budget_" + UUID.randomUUID();
+        playerService.getOrCreatePlayer(playerId);
+        locationService.getOrCreateAgentState(playerId);
+        agentStateCache.invalidate(playerId);
+        return playerId;
+    }
+}
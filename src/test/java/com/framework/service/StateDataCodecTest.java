@@ -0,0 +1,54 @@
+package com.framework.service;
+
+import com.framework.service.core.StateDataCodec;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for StateDataCodec.
+ */
+public class StateDataCodecTest {
+    
+    @Test
+    public void testRoundTrip() {
+        Map<String, Object> action = new LinkedHashMap<>();
+        action.put("actionId", "mine_copper");
+        action.put("instanceId", null);
+        action.put("startTime", 1_700_000_000_000L);
+        action.put("pendingSeconds", 1.25);
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("action", action);
+        state.put("buffs", List.of(Map.of("id", "haste", "stacks", 3L), "plain"));
+        state.put("customFlag", true); // Not an interned name
+        state.put("minimum", Long.MIN_VALUE);
+        
+        assertEquals(state, StateDataCodec.decode(StateDataCodec.encode(state)));
+    }
+    
+    @Test
+    public void testFindReadsOneNestedField() {
+        byte[] data = new StateDataCodec.Writer()
+            .putString("legacyText", "x".repeat(500))
+            .beginObject("cooldowns")
+            .putLong("smelt_bar", 42)
+            .endObject()
+            .beginObject("action")
+            .putLong("lastTickTime", -7)
+            .endObject()
+            .toByteArray();
+        
+        assertEquals(-7L, StateDataCodec.find(data, "action", "lastTickTime"));
+        assertEquals(42L, StateDataCodec.find(data, "cooldowns", "smelt_bar"));
+        assertNull(StateDataCodec.find(data, "action", "endTime"));
+        assertNull(StateDataCodec.find(data, "legacyText", "nested"));
+    }
+    
+    @Test
+    public void testRejectsUnknownVersion() {
+        assertThrows(IllegalArgumentException.class, () -> StateDataCodec.decode(new byte[] {99}));
+    }
+}
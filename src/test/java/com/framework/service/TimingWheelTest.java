@@ -0,0 +1,101 @@
+package com.framework.service;
+
+import com.framework.service.core.TimingWheel;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for TimingWheel, mostly around the level boundaries (64 and 4096 ticks) where timers cascade.
+ */
+public class TimingWheelTest {
+
+    // Deadlines on both sides of every level boundary of a 3-level wheel, plus one beyond its range
+    private static final long[] DEADLINES = {1, 63, 64, 65, 127, 128, 4095, 4096, 4097, 8191, 8192,
+        262_143, 262_144, 262_145, 300_000};
+
+    @Test
+    public void testEachTimerExpiresInItsOwnTick() {
+        TimingWheel<Long> wheel = new TimingWheel<>(1, 3, 0);
+        for (int i = DEADLINES.length - 1; i >= 0; i--) {
+            wheel.schedule(DEADLINES[i], DEADLINES[i]);
+        }
+        List<Long> fired = new ArrayList<>();
+        long now = 0;
+        for (long deadline : DEADLINES) {
+            wheel.advance(deadline - 1);
+            assertEquals(0, wheel.drainExpired(fired, Integer.MAX_VALUE), "Fired before " + deadline);
+            wheel.advance(deadline);
+            assertEquals(1, wheel.drainExpired(fired, Integer.MAX_VALUE), "Not fired at " + deadline);
+            assertEquals(deadline, (long) fired.get(fired.size() - 1));
+            now = deadline;
+        }
+        assertEquals(0, wheel.size());
+        wheel.advance(now + 1_000_000);
+        assertEquals(0, wheel.drainExpired(fired, Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void testOneBigAdvanceFiresInDeadlineOrder() {
+        TimingWheel<Long> wheel = new TimingWheel<>(10, 3, 1_000);
+        for (int i = DEADLINES.length - 1; i >= 0; i--) {
+            wheel.schedule(DEADLINES[i], 1_000 + DEADLINES[i] * 10);
+        }
+        assertEquals(DEADLINES.length, wheel.size());
+
+        wheel.advance(1_000 + 300_000 * 10);
+        List<Long> fired = new ArrayList<>();
+        // Handed out in bounded batches, still in order
+        while (wheel.drainExpired(fired, 4) > 0) {
+            assertTrue(fired.size() <= DEADLINES.length);
+        }
+        List<Long> expected = new ArrayList<>();
+        for (long deadline : DEADLINES) {
+            expected.add(deadline);
+        }
+        assertEquals(expected, fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testScheduleRoundsUpAndPastDeadlinesFireOnNextAdvance() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 2, 0);
+        wheel.advance(100);
+        wheel.schedule("past", 50);
+        wheel.schedule("partial", 101); // Rounded up to the tick ending at 110
+        List<String> fired = new ArrayList<>();
+        wheel.advance(100);
+        wheel.drainExpired(fired, 10);
+        assertEquals(List.of("past"), fired);
+        wheel.advance(109);
+        wheel.drainExpired(fired, 10);
+        assertEquals(List.of("past"), fired);
+        wheel.advance(110);
+        wheel.drainExpired(fired, 10);
+        assertEquals(List.of("past", "partial"), fired);
+    }
+
+    @Test
+    public void testCancel() {
+        TimingWheel<String> wheel = new TimingWheel<>(1, 2, 0);
+        TimingWheel.Timeout<String> pending = wheel.schedule("pending", 5_000); // Cascades before expiring
+        TimingWheel.Timeout<String> expired = wheel.schedule("expired", 10);
+        wheel.schedule("kept", 5_000);
+        wheel.advance(10);
+        assertTrue(expired.isExpired());
+
+        assertTrue(wheel.cancel(pending));
+        assertTrue(wheel.cancel(expired)); // Expired but not handed out yet
+        assertFalse(wheel.cancel(pending));
+        assertFalse(wheel.cancel(null));
+        assertEquals(1, wheel.size());
+
+        List<String> fired = new ArrayList<>();
+        wheel.advance(5_000);
+        wheel.drainExpired(fired, 10);
+        assertEquals(List.of("kept"), fired);
+        assertTrue(pending.isCancelled());
+    }
+}